@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+
+// Mede o acúmulo l = [...l, i] numa lista de n elementos. Sem escrita por
+// índice em l, cada passo divide a lista anterior (PersistentList); com um
+// l[0] = 0 no fim do script, l é escrita por índice e cada passo copia a
+// lista inteira (CompactList). Imprime o tempo e os bytes alocados por
+// elemento. A saída do script é descartada durante a medida.
+//
+// Uso: java benchmark.AccumulateBenchmark [elementos]
+public class AccumulateBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    private static final String LOOP = "var l = [], i = 0;\n"
+            + "while (i < N) { l = [...l, i]; i++; }\n"
+            + "print(length(l));\n";
+
+    public static void main(String[] args) throws Exception {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+
+        measure("persistente", elements, LOOP);
+        measure("cópia", elements, LOOP + "l[0] = 0;\n");
+    }
+
+    private static void measure(String label, int elements, String source) throws Exception {
+        Path file = Scripts.write(source.replace("N", Integer.toString(elements)));
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            Command tree = Scripts.parse(file);
+            System.setOut(discard);
+            long b0 = Scripts.allocated();
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            long b1 = Scripts.allocated();
+            System.setOut(out);
+
+            System.out.printf("%-11s round %d: %8.1f ms (%9.1f B/elemento)\n", label, r, (t1 - t0) / 1e6,
+                    (double) (b1 - b0) / elements);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+import interpreter.expr.Tagged;
+import interpreter.vm.BytecodeCompiler;
+import interpreter.vm.Program;
+import interpreter.vm.VirtualMachine;
+
+// Mede quantos bytes a execução aloca, percorrendo a árvore (com e sem a
+// avaliação marcada, Tagged) e na máquina virtual, com o contador de
+// alocação da própria thread. Usa um laço só de contagem e o script de laços
+// dos outros benchmarks. A saída do script é descartada durante a medida.
+//
+// Uso: java benchmark.AllocationBenchmark [iterações]
+public class AllocationBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        Path counting = Scripts.write("var i = 0, runs = " + iterations + ", soma = 0;\n"
+                + "while (i++ < runs) soma = soma + i % 7;\n"
+                + "print(soma);\n");
+
+        measure("contagem", counting, iterations);
+        measure("laços", Scripts.generateLoops(iterations), iterations);
+    }
+
+    private static void measure(String label, Path file, int iterations) {
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            Command tree = Scripts.parse(file);
+            System.setOut(discard);
+            long b0 = Scripts.allocated();
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            long b1 = Scripts.allocated();
+            System.setOut(out);
+
+            Program program = new BytecodeCompiler().compile(Scripts.parse(file));
+            System.setOut(discard);
+            long b2 = Scripts.allocated();
+            long t2 = System.nanoTime();
+            new VirtualMachine(program).run();
+            long t3 = System.nanoTime();
+            long b3 = Scripts.allocated();
+            System.setOut(out);
+
+            Command tagged = Scripts.parse(file);
+            Tagged.enable();
+            System.setOut(discard);
+            long b4 = Scripts.allocated();
+            long t4 = System.nanoTime();
+            tagged.execute();
+            long t5 = System.nanoTime();
+            long b5 = Scripts.allocated();
+            System.setOut(out);
+            Tagged.disable();
+
+            System.out.printf("%s round %d: árvore %s | vm %s | marcada %s\n", label, r,
+                    format(b1 - b0, t1 - t0, iterations),
+                    format(b3 - b2, t3 - t2, iterations),
+                    format(b5 - b4, t5 - t4, iterations));
+        }
+    }
+
+    private static String format(long bytes, long nanos, int iterations) {
+        return String.format("%7.1f MB (%5.1f B/iteração) %7.1f ms", bytes / 1e6, (double) bytes / iterations, nanos / 1e6);
+    }
+
+}
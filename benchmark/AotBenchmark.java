@@ -0,0 +1,56 @@
+package benchmark;
+
+import java.nio.file.Path;
+
+import interpreter.aot.AotCompiler;
+
+// Compara o interpretador (java mdi script) com o JAR da compilação
+// antecipada (java -jar script.jar), medindo o processo inteiro: um script
+// pequeno mede a partida e um script com laços longos mede a vazão. A saída
+// dos processos é descartada.
+//
+// Uso: java benchmark.AotBenchmark [arquivo.mdart | iterações]
+public class AotBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path file;
+        if (args.length == 0) {
+            file = Scripts.generateLoops(2_000_000);
+        } else if (args[0].matches("\\d+")) {
+            file = Scripts.generateLoops(Integer.parseInt(args[0]));
+        } else {
+            file = Path.of(args[0]);
+        }
+
+        compare("partida", Scripts.generateLoops(1_000));
+        compare("vazão", file);
+    }
+
+    private static void compare(String label, Path file) throws Exception {
+        Path jar = new AotCompiler().compile(file, Scripts.parse(file));
+        jar.toFile().deleteOnExit();
+        System.out.println(label + ": " + file + " -> " + jar);
+
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String cp = System.getProperty("java.class.path");
+        for (int r = 0; r < ROUNDS; r++) {
+            double tree = run(java, "-cp", cp, "mdi", file.toString());
+            double aot = run(java, "-jar", jar.toString());
+            System.out.printf("round %d: interpretador %8.1f ms | aot %8.1f ms | %.2fx\n", r, tree, aot, tree / aot);
+        }
+    }
+
+    private static double run(String... command) throws Exception {
+        long t0 = System.nanoTime();
+        Process p = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        if (p.waitFor() != 0)
+            throw new IllegalStateException("falhou: " + String.join(" ", command));
+        return (System.nanoTime() - t0) / 1e6;
+    }
+
+}
@@ -0,0 +1,56 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+
+// Mede listas montadas por compreensões: um for simples sobre uma lista de
+// n elementos e dois for aninhados com um if, que dão n * n elementos.
+// Imprime o tempo e os bytes alocados por elemento produzido (incluindo a
+// montagem da lista de origem). A saída do script é descartada durante a
+// medida.
+//
+// Uso: java benchmark.ComprehensionBenchmark [n]
+public class ComprehensionBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    private static final String SOURCE = "var l = [], i = 0;\n"
+            + "var? x; var? y;\n"
+            + "while (i < N) { l = [...l, i * 1000]; i++; }\n";
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        int repeat = 1000;
+        measure("simples", n * repeat, SOURCE.replace("N", Integer.toString(n))
+                + "i = 0;\n"
+                + "while (i < " + repeat + ") { print(length([for (x in l) x + 1])); i++; }\n");
+        measure("aninhada", n * n, SOURCE.replace("N", Integer.toString(n))
+                + "print(length([for (x in l) for (y in l) if (y > 0) x + y]));\n");
+    }
+
+    private static void measure(String label, long elements, String source) throws Exception {
+        Path file = Scripts.write(source);
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            Command tree = Scripts.parse(file);
+            System.setOut(discard);
+            long b0 = Scripts.allocated();
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            long b1 = Scripts.allocated();
+            System.setOut(out);
+
+            System.out.printf("%-8s round %d: %8.1f ms (%5.1f B/elemento)\n", label, r, (t1 - t0) / 1e6,
+                    (double) (b1 - b0) / elements);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+import interpreter.command.Tiering;
+import interpreter.jit.JitCompiler;
+import interpreter.vm.BytecodeCompiler;
+import interpreter.vm.Program;
+import interpreter.vm.VirtualMachine;
+
+// Compara a execução percorrendo a árvore (Command.execute) com a execução
+// do mesmo programa compilado para a máquina virtual e com a árvore cujos
+// laços quentes são compilados para bytecode da JVM. Cada rodada analisa o
+// script de novo, porque as variáveis guardam estado nos nós da árvore. A
+// saída do script é descartada durante a medida.
+//
+// Uso: java benchmark.EngineBenchmark [arquivo.mdart | iterações]
+public class EngineBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path file;
+        if (args.length == 0) {
+            file = Scripts.generateLoops(2_000_000);
+        } else if (args[0].matches("\\d+")) {
+            file = Scripts.generateLoops(Integer.parseInt(args[0]));
+        } else {
+            file = Path.of(args[0]);
+        }
+        System.out.println(file);
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            Command tree = Scripts.parse(file);
+            System.setOut(discard);
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            System.setOut(out);
+
+            Program program = new BytecodeCompiler().compile(Scripts.parse(file));
+            System.setOut(discard);
+            long t2 = System.nanoTime();
+            new VirtualMachine(program).run();
+            long t3 = System.nanoTime();
+            System.setOut(out);
+
+            Command hot = Scripts.parse(file);
+            Tiering.enable(new JitCompiler());
+            System.setOut(discard);
+            long t4 = System.nanoTime();
+            hot.execute();
+            long t5 = System.nanoTime();
+            System.setOut(out);
+            Tiering.disable();
+
+            double walk = (t1 - t0) / 1e6;
+            double vm = (t3 - t2) / 1e6;
+            double jit = (t5 - t4) / 1e6;
+            System.out.printf("round %d: árvore %8.1f ms | vm %8.1f ms (%d instruções) | jit %8.1f ms | %.2fx %.2fx\n",
+                    r, walk, vm, program.size(), jit, walk / vm, walk / jit);
+        }
+    }
+
+}
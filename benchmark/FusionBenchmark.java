@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+import interpreter.command.LoopFusion;
+
+// Mede um for sobre uma compreensão com filtro, três vezes sobre 2^n
+// elementos, com e sem LoopFusion. Imprime o tempo e os bytes alocados por
+// elemento percorrido; os dois lados incluem a montagem da lista de origem,
+// então a diferença é a lista do meio. data só tem inteiros, então a
+// conferência na entrada do laço deixa a fusão valer. A saída do script é
+// descartada.
+//
+// Uso: java benchmark.FusionBenchmark [dobras]
+public class FusionBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int doublings = args.length > 0 ? Integer.parseInt(args[0]) : 22;
+
+        Path file = Scripts.write("var data = [0], i = 0, s = 0;\n"
+                + "var? x; var? y;\n"
+                + "while (i < " + doublings + ") { data = [...data, for (x in data) x + length(data)]; i++; }\n"
+                + "i = 0;\n"
+                + "while (i < 3) {\n"
+                + "    for (x in [for (y in data) if (y % 2 == 0) y * 2]) s = s + x;\n"
+                + "    i++;\n"
+                + "}\n"
+                + "print(s);\n");
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        long elements = 3L << doublings;
+
+        for (int r = 0; r < ROUNDS; r++) {
+            for (boolean fuse : new boolean[] { false, true }) {
+                Command tree = Scripts.parse(file);
+                if (fuse)
+                    LoopFusion.apply(tree);
+                System.setOut(discard);
+                long b0 = Scripts.allocated();
+                long t0 = System.nanoTime();
+                tree.execute();
+                long t1 = System.nanoTime();
+                long b1 = Scripts.allocated();
+                System.setOut(out);
+
+                System.out.printf("%-9s round %d: %8.1f ms (%5.1f B/elemento)\n", fuse ? "fundido" : "lista", r,
+                        (t1 - t0) / 1e6, (double) (b1 - b0) / elements);
+            }
+        }
+    }
+
+}
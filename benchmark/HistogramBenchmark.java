@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+import interpreter.expr.Tagged;
+import interpreter.vm.BytecodeCompiler;
+import interpreter.vm.Program;
+import interpreter.vm.VirtualMachine;
+
+// Mede um histograma com chaves numéricas: freqs[r]++, com r
+// pseudoaleatório, repetido sobre um mapa de 1009 posições (chaves do cache
+// de NumberValue) e de 1000003 posições, percorrendo a árvore (com e sem a avaliação marcada) e na
+// máquina virtual, com o tempo e os bytes alocados por atualização,
+// incluindo o preenchimento do mapa. A saída do script é descartada durante
+// a medida.
+//
+// Uso: java benchmark.HistogramBenchmark [atualizações]
+public class HistogramBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int updates = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        measure(1009, updates);
+        measure(1_000_003, updates);
+    }
+
+    private static void measure(int buckets, int updates) throws Exception {
+        String b = Integer.toString(buckets);
+        Path file = Scripts.write("var freqs = {}, i = 0, r = 1;\n"
+                + "while (i < " + b + ") { freqs[i] = 0; i++; }\n"
+                + "i = 0;\n"
+                + "while (i < " + updates + ") {\n"
+                + "    r = r * 1103515245 + 12345;\n"
+                + "    freqs[(r % " + b + " + " + b + ") % " + b + "]++;\n"
+                + "    i++;\n"
+                + "}\n"
+                + "print(freqs[0]);\n");
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            Command tree = Scripts.parse(file);
+            System.setOut(discard);
+            long b0 = Scripts.allocated();
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            long b1 = Scripts.allocated();
+            System.setOut(out);
+
+            Program program = new BytecodeCompiler().compile(Scripts.parse(file));
+            System.setOut(discard);
+            long b2 = Scripts.allocated();
+            long t2 = System.nanoTime();
+            new VirtualMachine(program).run();
+            long t3 = System.nanoTime();
+            long b3 = Scripts.allocated();
+            System.setOut(out);
+
+            Command tagged = Scripts.parse(file);
+            Tagged.enable();
+            System.setOut(discard);
+            long b4 = Scripts.allocated();
+            long t4 = System.nanoTime();
+            tagged.execute();
+            long t5 = System.nanoTime();
+            long b5 = Scripts.allocated();
+            System.setOut(out);
+            Tagged.disable();
+
+            System.out.printf("%d chaves, round %d: árvore %s | vm %s | marcada %s\n", buckets, r,
+                    format(b1 - b0, t1 - t0, updates), format(b3 - b2, t3 - t2, updates),
+                    format(b5 - b4, t5 - t4, updates));
+        }
+    }
+
+    private static String format(long bytes, long nanos, int updates) {
+        return String.format("%8.1f ms (%5.1f B/atualização)", nanos / 1e6, (double) bytes / updates);
+    }
+
+}
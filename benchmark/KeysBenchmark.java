@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import interpreter.command.Command;
+
+// Mede for (k in keys(m)), for (v in values(m)) e length(keys(m)) sobre um
+// mapa de n entradas, cada um repetido PASSES vezes. O preenchimento do
+// mapa é medido à parte, com o mesmo script sem o laço, e descontado.
+// Imprime o tempo e os bytes alocados por entrada em cada passada. A saída
+// do script é descartada.
+//
+// Uso: java benchmark.KeysBenchmark [entradas]
+public class KeysBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int PASSES = 10;
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        String fill = "var m = {}, i = 0, s = 0;\n"
+                + "var? k;\n"
+                + "while (i < " + entries + ") { m[i] = i; i++; }\n"
+                + "i = 0;\n";
+        measure("for keys", entries, fill, "for (k in keys(m)) s = s + m[k];");
+        measure("for values", entries, fill, "for (k in values(m)) s = s + k;");
+        measure("length", entries, fill, "s = s + length(keys(m));");
+    }
+
+    private static void measure(String label, int entries, String fill, String loop) throws Exception {
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            Command setup = Scripts.parse(fill);
+            Command tree = Scripts.parse(fill + "while (i < " + PASSES + ") { " + loop + " i++; }\n");
+            System.setOut(discard);
+            setup.execute();
+            long b0 = Scripts.allocated();
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            long b1 = Scripts.allocated();
+            setup.execute();
+            long b2 = Scripts.allocated();
+            long t2 = System.nanoTime();
+            System.setOut(out);
+
+            // Desconta o preenchimento, medido logo depois com o mesmo script.
+            long fillNanos = t2 - t1;
+            long fillBytes = b2 - b1;
+            System.out.printf("%-10s round %d: %8.1f ms/passada (%6.1f B/entrada)\n", label, r,
+                    (t1 - t0 - fillNanos) / 1e6 / PASSES, (double) (b1 - b0 - fillBytes) / entries / PASSES);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import lexical.Lexeme;
+import lexical.Lexer;
+import lexical.LexicalAnalysis;
+import lexical.TableLexicalAnalysis;
+import lexical.TokenType;
+
+// Compara o analisador léxico escrito à mão (LexicalAnalysis) com o dirigido
+// por tabelas (TableLexicalAnalysis): confere que produzem a mesma sequência
+// de tokens e mede a vazão de cada um.
+//
+// Uso: java benchmark.LexerBenchmark [arquivo.mdart | MB]
+public class LexerBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path file = Scripts.fromArgs(args, 16);
+        String filename = file.toString();
+        double mb = Files.size(file) / (1024.0 * 1024.0);
+        System.out.printf("%s: %.1f MB\n", filename, mb);
+
+        long tokens = compare(filename);
+        System.out.printf("mesma sequência de %d tokens\n", tokens);
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            lex(filename, LexicalAnalysis::new);
+            long t1 = System.nanoTime();
+            lex(filename, TableLexicalAnalysis::new);
+            long t2 = System.nanoTime();
+
+            System.out.printf("round %d: switch %8.1f MB/s | table %8.1f MB/s\n",
+                    r, mb / ((t1 - t0) / 1e9), mb / ((t2 - t1) / 1e9));
+        }
+    }
+
+    private static boolean finished(Lexeme lex) {
+        return lex.type == TokenType.END_OF_FILE ||
+                lex.type == TokenType.INVALID_TOKEN ||
+                lex.type == TokenType.UNEXPECTED_EOF;
+    }
+
+    private static long compare(String filename) {
+        long count = 0;
+        try (Lexer a = new LexicalAnalysis(filename);
+             Lexer b = new TableLexicalAnalysis(filename)) {
+            Lexeme la, lb;
+            do {
+                la = a.nextToken();
+                lb = b.nextToken();
+                count++;
+
+                if (la.type != lb.type || a.getLine() != b.getLine() ||
+                        !la.token().equals(lb.token())) {
+                    throw new IllegalStateException(String.format(
+                            "Token %d difere: (\"%s\", %s, %d) != (\"%s\", %s, %d)", count,
+                            la.token(), la.type, a.getLine(), lb.token(), lb.type, b.getLine()));
+                }
+            } while (!finished(la));
+        }
+
+        return count;
+    }
+
+    private static long lex(String filename, Function<String, Lexer> factory) {
+        long count = 0;
+        try (Lexer l = factory.apply(filename)) {
+            Lexeme lex;
+            do {
+                lex = l.nextToken();
+                count++;
+            } while (!finished(lex));
+        }
+
+        return count;
+    }
+
+}
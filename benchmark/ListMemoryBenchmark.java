@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+
+// Mede quanta memória uma lista grande ocupa por elemento: o script dobra a
+// lista até 2^20 elementos (números distintos, ou booleanos) e o heap é
+// medido depois de coletar o lixo, com a árvore, que guarda a lista na
+// variável, ainda viva. A saída do script é descartada.
+//
+// Uso: java benchmark.ListMemoryBenchmark [dobras]
+public class ListMemoryBenchmark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int doublings = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        measure("números", doublings, "var l = [0], i = 0;\n"
+                + "var? x;\n"
+                + "while (i < D) { l = [...l, for (x in l) x + length(l)]; i++; }\n"
+                + "print(length(l));\n");
+        measure("booleanos", doublings, "var l = [true], i = 0;\n"
+                + "var? x;\n"
+                + "while (i < D) { l = [...l, for (x in l) !x]; i++; }\n"
+                + "print(length(l));\n");
+    }
+
+    private static void measure(String label, int doublings, String source) throws Exception {
+        Path file = Scripts.write(source.replace("D", Integer.toString(doublings)));
+
+        PrintStream out = System.out;
+        Command tree = Scripts.parse(file);
+        long before = used();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        tree.execute();
+        System.setOut(out);
+        long after = used();
+        // A árvore, e com ela a lista, fica viva até a medida.
+        Reference.reachabilityFence(tree);
+
+        int elements = 1 << doublings;
+        System.out.printf("%-9s %d elementos: %7.1f MB (%5.1f B/elemento)\n", label, elements,
+                (after - before) / 1e6, (double) (after - before) / elements);
+    }
+
+    private static long used() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,109 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import interpreter.command.Command;
+import interpreter.value.CompactMap;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Mede quanta memória um mapa de 1M entradas ocupa por entrada e quanto
+// custa percorrê-lo. Primeiro o script preenche o mapa (chaves numéricas, ou
+// de texto) e o heap é medido depois de coletar o lixo, com a árvore ainda
+// viva; a saída do script é descartada. Depois as mesmas chaves e valores
+// vão para um CompactMap e para um HashMap, e a diferença entre os dois é só
+// a estrutura do mapa, com a iteração medida sobre os values().
+//
+// Uso: java benchmark.MapMemoryBenchmark [entradas]
+public class MapMemoryBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        script("números", entries, "var m = {}, i = 0;\n"
+                + "while (i < N) { m[i * 7] = i; i++; }\n"
+                + "print(length(keys(m)));\n");
+        script("textos", entries, "var m = {}, i = 0;\n"
+                + "while (i < N) { m['k' + tostr(i)] = i; i++; }\n"
+                + "print(length(keys(m)));\n");
+
+        Value<?>[] numbers = new Value<?>[entries];
+        Value<?>[] texts = new Value<?>[entries];
+        Value<?>[] values = new Value<?>[entries];
+        for (int i = 0; i < entries; i++) {
+            numbers[i] = NumberValue.of(i * 7);
+            texts[i] = new TextValue("k" + i);
+            values[i] = NumberValue.of(i);
+        }
+
+        compare("números", numbers, values);
+        compare("textos", texts, values);
+    }
+
+    private static void script(String label, int entries, String source) throws Exception {
+        Path file = Scripts.write(source.replace("N", Integer.toString(entries)));
+
+        PrintStream out = System.out;
+        Command tree = Scripts.parse(file);
+        long before = used();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        tree.execute();
+        System.setOut(out);
+        long after = used();
+        // A árvore, e com ela o mapa, fica viva até a medida.
+        Reference.reachabilityFence(tree);
+
+        System.out.printf("script %-8s %d entradas: %7.1f MB (%5.1f B/entrada)\n", label, entries,
+                (after - before) / 1e6, (double) (after - before) / entries);
+    }
+
+    // Chaves e valores já existem antes da medida, então o heap a mais é só
+    // o do mapa.
+    private static void compare(String label, Value<?>[] keys, Value<?>[] values) {
+        measure("CompactMap", label, CompactMap::new, keys, values);
+        measure("HashMap", label, HashMap::new, keys, values);
+    }
+
+    private static void measure(String kind, String label, Supplier<Map<Value<?>, Value<?>>> factory,
+            Value<?>[] keys, Value<?>[] values) {
+        long before = used();
+        Map<Value<?>, Value<?>> m = factory.get();
+        for (int i = 0; i < keys.length; i++)
+            m.put(keys[i], values[i]);
+        long after = used();
+
+        long best = Long.MAX_VALUE;
+        long sum = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            for (Value<?> v : m.values())
+                sum += v.hashCode();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        Reference.reachabilityFence(m);
+
+        System.out.printf("%-10s %-8s %d entradas: %7.1f MB (%5.1f B/entrada), iteração %6.2f ms [%d]\n",
+                kind, label, keys.length, (after - before) / 1e6, (double) (after - before) / keys.length,
+                best / 1e6, sum);
+    }
+
+    private static long used() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+import interpreter.vm.BytecodeCompiler;
+import interpreter.vm.Program;
+import interpreter.vm.VirtualMachine;
+
+// Mede a vazão dos operadores, que despacham pelo tipo dos valores: cada
+// script é um laço dominado por uma família de operações, executado
+// percorrendo a árvore e na máquina virtual. As primeiras rodadas servem de
+// aquecimento; o tempo é dado em ns por iteração. A saída do script é
+// descartada durante a medida.
+//
+// Uso: java benchmark.OperatorBenchmark [iterações]
+public class OperatorBenchmark {
+
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        measure("aritmética", iterations,
+                "var i = 0, a = 0;\n"
+                + "while (i < N) { a = (a + i * 3 - i % 7) % 1000; i++; }\n"
+                + "print(a);\n");
+        measure("comparação", iterations,
+                "var i = 0, c = 0;\n"
+                + "while (i < N) { if (i % 3 >= 1 && !(i > 5000)) c++; i++; }\n"
+                + "print(c);\n");
+        measure("igualdade", iterations,
+                "var i = 0, c = 0, t = 'a';\n"
+                + "var? n = null;\n"
+                + "while (i < N) { if (i % 2 == 0 || t == 'a' || n == null || n != t) c++; i++; }\n"
+                + "print(c);\n");
+        measure("acesso", iterations,
+                "var i = 0, s = 0, l = [1, 2, 3, 4, 5, 6, 7, 8], m = {0: 1, 1: 2, 2: 3};\n"
+                + "while (i < N) { s = s + l[i % 8] + (m[i % 4] ?? 0); i++; }\n"
+                + "print(s);\n");
+    }
+
+    private static void measure(String label, int iterations, String source) throws Exception {
+        Path file = Scripts.write(source.replace("N", Integer.toString(iterations)));
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        double walk = 0, vm = 0;
+        for (int r = 0; r < WARMUP + ROUNDS; r++) {
+            Command tree = Scripts.parse(file);
+            System.setOut(discard);
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            System.setOut(out);
+
+            Program program = new BytecodeCompiler().compile(Scripts.parse(file));
+            System.setOut(discard);
+            long t2 = System.nanoTime();
+            new VirtualMachine(program).run();
+            long t3 = System.nanoTime();
+            System.setOut(out);
+
+            if (r >= WARMUP) {
+                walk += t1 - t0;
+                vm += t3 - t2;
+            }
+        }
+
+        double n = (double) ROUNDS * iterations;
+        System.out.printf("%-11s árvore %6.1f ns/iteração | vm %6.1f ns/iteração\n", label, walk / n, vm / n);
+    }
+
+}
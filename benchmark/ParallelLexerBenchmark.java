@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import lexical.ParallelLexicalAnalysis;
+import lexical.SourceBuffer;
+import lexical.TableLexicalAnalysis;
+import lexical.TokenBuffer;
+
+// Mede o tempo de análise léxica do arquivo inteiro em série e com o
+// ParallelLexicalAnalysis usando 1, 2, 4, ... threads, até o número de núcleos.
+//
+// Uso: java benchmark.ParallelLexerBenchmark [arquivo.mdart | MB]
+public class ParallelLexerBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path file = Scripts.fromArgs(args, 64);
+        SourceBuffer source = new SourceBuffer(file.toString());
+        double mb = Files.size(file) / (1024.0 * 1024.0);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%s: %.1f MB, %d núcleos\n", file, mb, cores);
+
+        TokenBuffer expected = new TableLexicalAnalysis(source.region(0, source.size())).tokenize();
+        double serial = best(() -> new TableLexicalAnalysis(source.region(0, source.size())).tokenize());
+        System.out.printf("série:      %7.1f ms %8.1f MB/s\n", serial, mb / (serial / 1e3));
+
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            ParallelLexicalAnalysis lexer = new ParallelLexicalAnalysis(pool, 1 << 20);
+
+            if (!same(expected, lexer.tokenize(source)))
+                throw new IllegalStateException("Sequência de tokens difere com " + threads + " threads");
+
+            double ms = best(() -> lexer.tokenize(source));
+            System.out.printf("%2d threads: %7.1f ms %8.1f MB/s (%.2fx)\n",
+                    threads, ms, mb / (ms / 1e3), serial / ms);
+            pool.shutdown();
+        }
+    }
+
+    private static double best(Runnable r) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            r.run();
+            best = Math.min(best, (System.nanoTime() - t0) / 1e6);
+        }
+
+        return best;
+    }
+
+    private static boolean same(TokenBuffer a, TokenBuffer b) {
+        if (a.size() != b.size())
+            return false;
+
+        for (int i = 0; i < a.size(); i++) {
+            if (a.type(i) != b.type(i) || a.start(i) != b.start(i) ||
+                    a.length(i) != b.length(i) || a.line(i) != b.line(i))
+                return false;
+        }
+
+        return true;
+    }
+
+}
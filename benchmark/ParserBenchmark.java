@@ -0,0 +1,36 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lexical.TableLexicalAnalysis;
+import lexical.TokenBuffer;
+import syntatic.SyntacticAnalysis;
+
+// Mede a vazão do analisador sintático sobre um script dominado por
+// expressões. Os tokens são gerados antes, num TokenBuffer, para que só a
+// análise sintática entre na medida.
+//
+// Uso: java benchmark.ParserBenchmark [arquivo.mdart | MB]
+public class ParserBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path file = args.length == 0 ? Scripts.generateExpressions(8) : Scripts.fromArgs(args, 8);
+        double mb = Files.size(file) / (1024.0 * 1024.0);
+
+        TokenBuffer tokens = new TableLexicalAnalysis(file.toString()).tokenize();
+        System.out.printf("%s: %.1f MB, %d tokens\n", file, mb, tokens.size());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            new SyntacticAnalysis(tokens.stream()).start();
+            double s = (System.nanoTime() - t0) / 1e9;
+
+            System.out.printf("round %d: %8.1f ms | %8.1f MB/s | %6.2f Mtokens/s\n",
+                    r, s * 1e3, mb / s, tokens.size() / s / 1e6);
+        }
+    }
+
+}
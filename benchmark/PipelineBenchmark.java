@@ -0,0 +1,46 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lexical.Lexer;
+import lexical.PipelinedTokenStream;
+import lexical.TableLexicalAnalysis;
+import syntatic.SyntacticAnalysis;
+
+// Mede o tempo de parede da análise léxica + sintática com o analisador
+// léxico chamado sob demanda pelo sintático e com os dois em threads
+// separadas (PipelinedTokenStream), e quanto a sobreposição economiza.
+//
+// Uso: java benchmark.PipelineBenchmark [arquivo.mdart | MB]
+public class PipelineBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path file = Scripts.fromArgs(args, 16);
+        String filename = file.toString();
+        double mb = Files.size(file) / (1024.0 * 1024.0);
+        System.out.printf("%s: %.1f MB\n", filename, mb);
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            try (Lexer l = new TableLexicalAnalysis(filename)) {
+                new SyntacticAnalysis(l.stream()).start();
+            }
+            long t1 = System.nanoTime();
+            try (Lexer l = new TableLexicalAnalysis(filename);
+                 PipelinedTokenStream tokens = new PipelinedTokenStream(l)) {
+                new SyntacticAnalysis(tokens).start();
+            }
+            long t2 = System.nanoTime();
+
+            double sequential = (t1 - t0) / 1e6;
+            double pipelined = (t2 - t1) / 1e6;
+            System.out.printf("round %d: sob demanda %8.1f ms | pipeline %8.1f ms | economia %7.1f ms (%.1f%%)\n",
+                    r, sequential, pipelined, sequential - pipelined,
+                    100.0 * (sequential - pipelined) / sequential);
+        }
+    }
+
+}
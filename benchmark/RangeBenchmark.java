@@ -0,0 +1,51 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import interpreter.command.Command;
+
+// Mede três formas de somar os inteiros de [0, 2^n): um while com contador,
+// um for sobre a lista montada com [...range(n)] e um for direto sobre
+// range(n). Imprime o tempo e os bytes alocados por volta; o for sobre
+// range deve ficar perto do while, sem a lista. A saída do script é
+// descartada.
+//
+// Uso: java benchmark.RangeBenchmark [dobras]
+public class RangeBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    private static final String[] NAMES = { "while", "lista", "range" };
+
+    public static void main(String[] args) throws Exception {
+        int doublings = args.length > 0 ? Integer.parseInt(args[0]) : 22;
+        int n = 1 << doublings;
+
+        String[] loops = {
+            "var i = 0, s = 0;\nwhile (i < " + n + ") { s = s + i % 7; i++; }\nprint(s);\n",
+            "var? i; var s = 0;\nfor (i in [...range(" + n + ")]) s = s + i % 7;\nprint(s);\n",
+            "var? i; var s = 0;\nfor (i in range(" + n + ")) s = s + i % 7;\nprint(s);\n",
+        };
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int k = 0; k < loops.length; k++) {
+                Command tree = Scripts.parse(loops[k]);
+                System.setOut(discard);
+                long b0 = Scripts.allocated();
+                long t0 = System.nanoTime();
+                tree.execute();
+                long t1 = System.nanoTime();
+                long b1 = Scripts.allocated();
+                System.setOut(out);
+
+                System.out.printf("%-5s round %d: %8.1f ms (%5.1f B/volta)\n", NAMES[k], r,
+                        (t1 - t0) / 1e6, (double) (b1 - b0) / n);
+            }
+        }
+    }
+
+}
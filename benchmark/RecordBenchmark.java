@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+
+// Mede mapas usados como registros: o laço lê e grava campos de chave de
+// texto constante. Com o literal, todas as chaves estão no MapExpr e o mapa
+// tem forma; montado campo a campo a partir de {}, o mesmo registro fica
+// numa tabela de hash. Imprime o tempo e os bytes alocados por iteração. A
+// saída do script é descartada durante a medida.
+//
+// Uso: java benchmark.RecordBenchmark [iterações]
+public class RecordBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    private static final String LOOP = "var i = 0;\n"
+            + "while (i < N) {\n"
+            + "    p['x'] = p['x'] + p['dx'];\n"
+            + "    p['y'] = p['y'] + p['dy'];\n"
+            + "    if (p['x'] > 1000) p['x'] = 0;\n"
+            + "    i++;\n"
+            + "}\n"
+            + "print(p['name']);\n";
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+
+        measure("literal", iterations,
+                "var p = {'name': 'p', 'x': 0, 'y': 0, 'dx': 3, 'dy': 5};\n" + LOOP);
+        measure("dinâmico", iterations,
+                "var p = {};\n"
+                + "p['name'] = 'p'; p['x'] = 0; p['y'] = 0; p['dx'] = 3; p['dy'] = 5;\n" + LOOP);
+    }
+
+    private static void measure(String label, int iterations, String source) throws Exception {
+        Path file = Scripts.write(source.replace("N", Integer.toString(iterations)));
+
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int r = 0; r < ROUNDS; r++) {
+            Command tree = Scripts.parse(file);
+            System.setOut(discard);
+            long b0 = Scripts.allocated();
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            long b1 = Scripts.allocated();
+            System.setOut(out);
+
+            System.out.printf("%-9s round %d: %8.1f ms (%5.1f B/iteração)\n", label, r, (t1 - t0) / 1e6,
+                    (double) (b1 - b0) / iterations);
+        }
+    }
+
+}
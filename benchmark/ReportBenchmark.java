@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import interpreter.command.Command;
+
+// Mede a montagem de um relatório por concatenação, s = s + tostr(i) + ', ',
+// até uns 50 MB de texto, e a impressão dele. Imprime o tempo, os bytes
+// alocados por byte de relatório e o tamanho impresso; a saída do script
+// vai para um contador, não para o console.
+//
+// Uso: java benchmark.ReportBenchmark [iterações]
+public class ReportBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 6_000_000;
+
+        Path file = Scripts.write("var s = '', i = 0;\n"
+                + "while (i < " + iterations + ") { s = s + tostr(i) + ', '; i++; }\n"
+                + "print(s);\n");
+
+        PrintStream out = System.out;
+        for (int r = 0; r < ROUNDS; r++) {
+            Counter counter = new Counter();
+            Command tree = Scripts.parse(file);
+            System.setOut(new PrintStream(counter));
+            long b0 = Scripts.allocated();
+            long t0 = System.nanoTime();
+            tree.execute();
+            long t1 = System.nanoTime();
+            long b1 = Scripts.allocated();
+            System.setOut(out);
+
+            System.out.printf("round %d: %8.1f ms, %5.1f MB impressos (%5.1f B alocados/B)\n", r,
+                    (t1 - t0) / 1e6, counter.bytes / 1e6, (double) (b1 - b0) / counter.bytes);
+        }
+    }
+
+    private static final class Counter extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntacticAnalysis;
+
+// Gera scripts .mdart sintéticos para os benchmarks e reúne o que todos eles
+// usam para medir: gravar e analisar um script e contar os bytes alocados.
+public class Scripts {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Scripts() {
+    }
+
+    // Usa o arquivo passado como argumento ou, se o argumento for um número
+    // (ou estiver ausente), gera um script sintético com esse tamanho em MB.
+    public static Path fromArgs(String[] args, int defaultMb) throws Exception {
+        if (args.length == 0)
+            return generate(defaultMb);
+
+        if (args[0].matches("\\d+"))
+            return generate(Integer.parseInt(args[0]));
+
+        return Path.of(args[0]);
+    }
+
+    // Grava source num arquivo temporário, apagado ao fim da execução.
+    public static Path write(String source) throws Exception {
+        Path file = temp();
+        Files.writeString(file, source);
+        return file;
+    }
+
+    public static Command parse(Path file) {
+        try (LexicalAnalysis l = new LexicalAnalysis(file.toString())) {
+            return new SyntacticAnalysis(l).start();
+        }
+    }
+
+    public static Command parse(String source) throws Exception {
+        return parse(write(source));
+    }
+
+    // Bytes alocados até agora pela thread atual.
+    public static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static Path generate(int mb) throws Exception {
+        return generate(mb, Scripts::block);
+    }
+
+    // Script dominado por expressões longas, com todos os níveis de precedência.
+    public static Path generateExpressions(int mb) throws Exception {
+        return generate(mb, Scripts::expressions);
+    }
+
+    // Script pequeno dominado por laços, para comparar as formas de execução.
+    public static Path generateLoops(int iterations) throws Exception {
+        return write("var i = 0, x, soma = 0, h = {}, l = [];\n"
+                + "while (i < " + iterations + ") {\n"
+                + "    soma = soma + i * 3 % 7 - 1;\n"
+                + "    if (i % 5 == 0 && soma >= 0) h[i % 10] = (h[i % 10] ?? 0) + 1;\n"
+                + "    i++;\n"
+                + "}\n"
+                + "do { l = [...l, length(l)]; } while (length(l) < 100);\n"
+                + "i = 0;\n"
+                + "while (i < " + iterations / 1000 + ") {\n"
+                + "    for (x in [for (x in l) if (x % 2 == 0) x * x]) soma = soma + x;\n"
+                + "    i++;\n"
+                + "}\n"
+                + "print(soma);\n"
+                + "print(h);\n");
+    }
+
+    private static Path generate(int mb, IntFunction<String> blocks) throws Exception {
+        Path file = temp();
+
+        long target = mb * 1024L * 1024L;
+        long written = 0;
+        int n = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            while (written < target) {
+                String block = blocks.apply(n++);
+                w.write(block);
+                written += block.length();
+            }
+        }
+
+        return file;
+    }
+
+    private static Path temp() throws Exception {
+        Path file = Files.createTempFile("bench", ".mdart");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static String block(int n) {
+        return "// bloco " + n + "\n"
+                + "var v" + n + " = " + n + ", l" + n + " = [1, 2, 3, 'texto " + n + "'];\n"
+                + "var m" + n + " = {'chave': v" + n + " * 2 + 1, 'lista': [...l" + n + "]};\n"
+                + "if (v" + n + " >= 0 && !(v" + n + " == 7)) v" + n + "++; else v" + n + " = v" + n + " - 1;\n"
+                + "print('resultado: ' + tostr(m" + n + "['chave']) + ' ' + tostr(length(l" + n + ")));\n";
+    }
+
+    private static String expressions(int n) {
+        return "var e" + n + " = (" + n + " + 2) * 3 - -4 % 5 + 6 * (7 - 8) < 9 + " + n + " * 10 ?? 11;\n"
+                + "print(!(e" + n + " == true) && e" + n + " != false || 1 + 2 * 3 >= 4 - 5 % 6);\n"
+                + "e" + n + " = length([1 + 2, 3 * 4, {5: 6 - 7}, (8 + 9) * (10 - 11) % 12]) + e" + n + " * 2;\n";
+    }
+
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import java.io.FileInputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lexical.Lexeme;
+import lexical.LexicalAnalysis;
+import lexical.SourceBuffer;
+import lexical.TokenType;
+
+// Compara a vazão (MB/s) do leitor antigo, byte a byte por um PushbackInputStream,
+// com o SourceBuffer mapeado em memória, tanto na leitura crua quanto no nextToken().
+//
+// Uso: java benchmark.SourceReaderBenchmark [arquivo.mdart | MB]
+public class SourceReaderBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path file = Scripts.fromArgs(args, 16);
+        String filename = file.toString();
+        double mb = Files.size(file) / (1024.0 * 1024.0);
+        System.out.printf("%s: %.1f MB\n", filename, mb);
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            long a = readPushback(filename);
+            long t1 = System.nanoTime();
+            long b = readSourceBuffer(filename);
+            long t2 = System.nanoTime();
+            long c = lex(filename);
+            long t3 = System.nanoTime();
+
+            System.out.printf("round %d: pushback %8.1f MB/s | source buffer %8.1f MB/s | nextToken %8.1f MB/s (%d tokens)\n",
+                    r, rate(mb, t1 - t0), rate(mb, t2 - t1), rate(mb, t3 - t2), c);
+
+            if (a != b)
+                throw new IllegalStateException("Checksum mismatch: " + a + " != " + b);
+        }
+    }
+
+    private static double rate(double mb, long nanos) {
+        return mb / (nanos / 1e9);
+    }
+
+    private static long readPushback(String filename) throws Exception {
+        long sum = 0;
+        try (PushbackInputStream input = new PushbackInputStream(new FileInputStream(filename), 2)) {
+            int c;
+            while ((c = input.read()) != -1)
+                sum += c;
+        }
+
+        return sum;
+    }
+
+    private static long readSourceBuffer(String filename) {
+        long sum = 0;
+        SourceBuffer input = new SourceBuffer(filename);
+        int c;
+        while ((c = input.getc()) != -1)
+            sum += c;
+
+        return sum;
+    }
+
+    private static long lex(String filename) {
+        long count = 0;
+        try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
+            Lexeme lex;
+            do {
+                lex = l.nextToken();
+                count++;
+            } while (lex.type != TokenType.END_OF_FILE &&
+                    lex.type != TokenType.INVALID_TOKEN &&
+                    lex.type != TokenType.UNEXPECTED_EOF);
+        }
+
+        return count;
+    }
+
+}
@@ -0,0 +1,184 @@
+package interpreter.aot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import interpreter.command.Command;
+
+// Compilação antecipada: traduz o programa para Java, compila em memória e
+// empacota num JAR executável com as classes do interpretador de que o código
+// gerado depende (só valores e operações, sem léxico, sintático nem árvore).
+public class AotCompiler {
+
+    // Nomes de classe do interpretador citados no pool de constantes, sozinhos
+    // ou dentro de descritores.
+    private static final Pattern REFERENCE = Pattern.compile("(?:^|L)(interpreter/[^;<\\[]+)");
+
+    // Gera <script>.jar ao lado do arquivo do script e devolve o seu caminho.
+    public Path compile(Path script, Command program) throws IOException {
+        String className = className(script);
+        String source = new JavaTranslator(className, program).translate(script.getFileName().toString());
+
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        javac(className, source, classes);
+        runtime(classes);
+
+        String file = script.getFileName().toString().replaceFirst("\\.[^.]*$", "") + ".jar";
+        Path jar = script.toAbsolutePath().resolveSibling(file);
+        write(jar, className, classes);
+        return jar;
+    }
+
+    // test3.mdart vira Test3Script.
+    static String className(Path script) {
+        String base = script.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        StringBuilder sb = new StringBuilder();
+        boolean upper = true;
+        for (char c : base.toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            } else {
+                upper = true;
+            }
+        }
+        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0)))
+            sb.insert(0, 'S');
+        return sb.append("Script").toString();
+    }
+
+    private static void javac(String className, String source, Map<String, byte[]> classes) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IllegalStateException("a compilação antecipada precisa do compilador Java (JDK)");
+
+        JavaFileObject unit = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileManager files = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(diagnostics, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + name.replace('.', '/') + ".class"), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return new ByteArrayOutputStream() {
+                            @Override
+                            public void close() {
+                                classes.put(name.replace('.', '/'), toByteArray());
+                            }
+                        };
+                    }
+                };
+            }
+        };
+
+        List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-proc:none");
+        if (!compiler.getTask(null, files, diagnostics, options, null, List.of(unit)).call())
+            throw new IllegalStateException("o código gerado não compilou: " + diagnostics.getDiagnostics());
+    }
+
+    // Acrescenta as classes do interpretador alcançáveis a partir das geradas.
+    private static void runtime(Map<String, byte[]> classes) throws IOException {
+        Deque<byte[]> pending = new ArrayDeque<>(classes.values());
+        while (!pending.isEmpty()) {
+            for (String name : references(pending.pop())) {
+                if (classes.containsKey(name))
+                    continue;
+
+                try (InputStream in = AotCompiler.class.getClassLoader().getResourceAsStream(name + ".class")) {
+                    if (in == null)
+                        continue;
+                    byte[] bytes = in.readAllBytes();
+                    classes.put(name, bytes);
+                    pending.push(bytes);
+                }
+            }
+        }
+    }
+
+    // As classes do interpretador citadas no pool de constantes de um .class.
+    private static List<String> references(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.readInt();
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int count = in.readUnsignedShort();
+
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: {
+                    Matcher m = REFERENCE.matcher(in.readUTF());
+                    while (m.find())
+                        names.add(m.group(1));
+                    break;
+                }
+                case 7, 8, 16, 19, 20:
+                    in.skipBytes(2);
+                    break;
+                case 15:
+                    in.skipBytes(3);
+                    break;
+                case 3, 4, 9, 10, 11, 12, 17, 18:
+                    in.skipBytes(4);
+                    break;
+                case 5, 6:
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("tag inválida no pool de constantes: " + tag);
+            }
+        }
+        return names;
+    }
+
+    private static void write(Path jar, String mainClass, Map<String, byte[]> classes) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+                out.putNextEntry(new JarEntry(e.getKey() + ".class"));
+                out.write(e.getValue());
+                out.closeEntry();
+            }
+        }
+    }
+
+}
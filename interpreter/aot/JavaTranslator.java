@@ -0,0 +1,729 @@
+package interpreter.aot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.aot.TypeInference.Type;
+import interpreter.command.AssertCommand;
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DoWhileCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.LoopCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.BinaryOp;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.ForListItem;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.IfListItem;
+import interpreter.expr.ListExpr;
+import interpreter.expr.ListItem;
+import interpreter.expr.MapExpr;
+import interpreter.expr.MapItem;
+import interpreter.expr.RangeExpr;
+import interpreter.expr.SafeVariable;
+import interpreter.expr.SingleListItem;
+import interpreter.expr.SpreadListItem;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.UnaryOp;
+import interpreter.expr.Variable;
+import interpreter.value.BoolValue;
+import interpreter.value.NullValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Traduz a árvore do programa para o código-fonte de uma classe Java. As
+// variáveis do script viram campos estáticos, copiados para locais no início
+// de cada método e devolvidos no fim; as que só guardam inteiros ou booleanos
+// são int e boolean. O que não tem tipo conhecido passa por Operations, que
+// repete a semântica (e os erros) dos nós da árvore.
+final class JavaTranslator {
+
+    // Comandos de nível mais externo agrupados por método, para que nenhum
+    // método fique grande demais para o compilador da JVM.
+    private static final int COMMANDS_PER_METHOD = 25;
+
+    // Código de uma expressão já avaliada: um literal ou um temporário.
+    private static final class Operand {
+        final String code;
+        final Type type;
+        final Value<?> constant;
+
+        Operand(String code, Type type, Value<?> constant) {
+            this.code = code;
+            this.type = type;
+            this.constant = constant;
+        }
+
+        Operand(String code, Type type) {
+            this(code, type, null);
+        }
+    }
+
+    private final String className;
+    private final Command program;
+    private final TypeInference types;
+    private final List<String> constants = new ArrayList<>();
+    private final Map<String, String> constantNames = new HashMap<>();
+
+    private StringBuilder code;
+    private Map<Variable, Boolean> used;
+    private int depth;
+    private int temps;
+
+    JavaTranslator(String className, Command program) {
+        this.className = className;
+        this.program = program;
+        this.types = new TypeInference(program);
+    }
+
+    String translate(String source) {
+        List<Command> top = new ArrayList<>();
+        flatten(program, top);
+
+        List<String> methods = new ArrayList<>();
+        List<String> calls = new ArrayList<>();
+        List<Command> group = new ArrayList<>();
+        for (Command c : top) {
+            if (hasLoop(c)) {
+                if (!group.isEmpty())
+                    methods.add(method("part" + calls.size(), group, calls));
+                group = new ArrayList<>();
+                methods.add(method("part" + calls.size(), List.of(c), calls));
+            } else {
+                group.add(c);
+                if (group.size() == COMMANDS_PER_METHOD) {
+                    methods.add(method("part" + calls.size(), group, calls));
+                    group = new ArrayList<>();
+                }
+            }
+        }
+        if (!group.isEmpty())
+            methods.add(method("part" + calls.size(), group, calls));
+
+        StringBuilder out = new StringBuilder();
+        out.append("// Gerado por mdi --aot a partir de ").append(source).append(".\n\n");
+        out.append("import java.util.List;\n\n");
+        out.append("import interpreter.util.Operations;\n");
+        out.append("import interpreter.util.Utils;\n");
+        out.append("import interpreter.value.BoolValue;\n");
+        out.append("import interpreter.value.CompactList;\n");
+        out.append("import interpreter.value.CompactMap;\n");
+        out.append("import interpreter.value.ListValue;\n");
+        out.append("import interpreter.value.MapValue;\n");
+        out.append("import interpreter.value.NullValue;\n");
+        out.append("import interpreter.value.NumberValue;\n");
+        out.append("import interpreter.value.TextValue;\n");
+        out.append("import interpreter.value.Value;\n\n");
+        out.append("public final class ").append(className).append(" {\n\n");
+
+        for (Variable var : types.variables()) {
+            out.append("    private static ").append(java(types.type(var))).append(' ').append(name(var)).append(";\n");
+            if (!types.initialized(var))
+                out.append("    private static boolean ").append(flag(var)).append(";\n");
+        }
+        for (String k : constants)
+            out.append("    ").append(k).append('\n');
+
+        out.append("\n    public static void main(String[] args) {\n");
+        out.append("        try {\n");
+        for (String call : calls)
+            out.append("            ").append(call).append("();\n");
+        out.append("        } catch (Exception e) {\n");
+        out.append("            System.err.println(\"Internal error: \" + e.getMessage());\n");
+        out.append("            e.printStackTrace();\n");
+        out.append("        }\n");
+        out.append("    }\n");
+
+        for (String m : methods)
+            out.append('\n').append(m);
+
+        out.append("\n}\n");
+        return out.toString();
+    }
+
+    // Um método com alguns comandos do nível mais externo. As variáveis que
+    // eles usam são copiadas para locais de mesmo nome na entrada e de volta
+    // para os campos na saída.
+    private String method(String name, List<Command> cmds, List<String> calls) {
+        code = new StringBuilder();
+        used = new IdentityHashMap<>();
+        depth = 2;
+        temps = 0;
+        for (Command c : cmds)
+            command(c);
+
+        List<Variable> vars = new ArrayList<>();
+        for (Variable var : types.variables())
+            if (used.containsKey(var))
+                vars.add(var);
+
+        StringBuilder m = new StringBuilder();
+        m.append("    private static void ").append(name).append("() {\n");
+        for (Variable var : vars) {
+            m.append("        ").append(java(types.type(var))).append(' ').append(name(var))
+                    .append(" = ").append(className).append('.').append(name(var)).append(";\n");
+            if (!types.initialized(var))
+                m.append("        boolean ").append(flag(var)).append(" = ")
+                        .append(className).append('.').append(flag(var)).append(";\n");
+        }
+        m.append(code);
+        for (Variable var : vars) {
+            m.append("        ").append(className).append('.').append(name(var)).append(" = ").append(name(var)).append(";\n");
+            if (!types.initialized(var))
+                m.append("        ").append(className).append('.').append(flag(var)).append(" = ").append(flag(var)).append(";\n");
+        }
+        m.append("    }\n");
+
+        calls.add(name);
+        return m.toString();
+    }
+
+    private static void flatten(Command c, List<Command> top) {
+        if (c instanceof BlocksCommand b) {
+            for (Command cmd : b.getCommands())
+                flatten(cmd, top);
+        } else if (c != null) {
+            top.add(c);
+        }
+    }
+
+    private static boolean hasLoop(Command c) {
+        if (c instanceof LoopCommand)
+            return true;
+        if (c instanceof BlocksCommand b) {
+            for (Command cmd : b.getCommands())
+                if (hasLoop(cmd))
+                    return true;
+        }
+        if (c instanceof IfCommand i)
+            return hasLoop(i.getThen()) || hasLoop(i.getElse());
+        return false;
+    }
+
+    // Comandos.
+
+    private void command(Command c) {
+        if (c instanceof BlocksCommand b) {
+            for (Command cmd : b.getCommands())
+                command(cmd);
+        } else if (c instanceof AssignCommand a) {
+            Operand o = expr(a.getRhs());
+            if (a.getLhs() instanceof Variable var)
+                write(var, o, a);
+            else if (a.getLhs() instanceof AccessExpr ae)
+                set(ae, box(o));
+        } else if (c instanceof IfCommand i) {
+            if (i.getExpr() == null) {
+                line("Utils.abort(" + i.getLine() + ");");
+                return;
+            }
+            String cond = condition(i.getExpr(), i.getLine());
+            line("if (" + cond + ") {");
+            block(i.getThen());
+            if (i.getElse() != null) {
+                line("} else {");
+                block(i.getElse());
+            }
+            line("}");
+        } else if (c instanceof WhileCommand w) {
+            line("while (true) {");
+            depth++;
+            String cond = condition(w.getExpr(), w.getLine());
+            line("if (!" + cond + ")");
+            line("    break;");
+            command(w.getCommands());
+            depth--;
+            line("}");
+        } else if (c instanceof DoWhileCommand d) {
+            line("while (true) {");
+            depth++;
+            command(d.getCommands());
+            String cond = condition(d.getExpr(), d.getLine());
+            line("if (!" + cond + ")");
+            line("    break;");
+            depth--;
+            line("}");
+        } else if (c instanceof ForCommand f && f.getExpr() instanceof RangeExpr r) {
+            String e = range(r);
+            depth++;
+            write(f.getVar(), new Operand(e, Type.INT), null);
+            command(f.getCommands());
+            depth--;
+            line("}");
+        } else if (c instanceof ForCommand f) {
+            Operand o = expr(f.getExpr());
+            String list = temp("List<Value<?>>", "Operations.forList(" + box(o) + ", " + f.getLine() + ")");
+            String e = "t" + temps++;
+            line("for (Value<?> " + e + " : " + list + ") {");
+            depth++;
+            write(f.getVar(), new Operand(e, Type.VALUE), null);
+            command(f.getCommands());
+            depth--;
+            line("}");
+        } else if (c instanceof PrintCommand p) {
+            if (p.getExpr() != null) {
+                Operand o = expr(p.getExpr());
+                // Só um Value pode ser um texto; int e boolean saem direto.
+                if (o.type == Type.VALUE)
+                    line("Operations.print(" + o.code + ");");
+                else
+                    line("System.out.print(" + o.code + ");");
+            }
+            line("System.out.println();");
+        } else if (c instanceof AssertCommand a) {
+            if (a.getExpr() == null)
+                return;
+            String cond = condition(a.getExpr(), a.getLine());
+            line("if (!" + cond + ") {");
+            depth++;
+            if (a.getMsg() != null) {
+                Operand m = expr(a.getMsg());
+                line("System.out.println(\"assert: \" + " + m.code + ");");
+            } else {
+                line("System.out.println(\"assert: not true\");");
+            }
+            depth--;
+            line("}");
+        } else if (c != null) {
+            throw new IllegalStateException("comando não suportado: " + c.getClass().getSimpleName());
+        }
+    }
+
+    private void block(Command c) {
+        depth++;
+        command(c);
+        depth--;
+    }
+
+    private String condition(Expr e, int line) {
+        Operand o = expr(e);
+        if (o.type == Type.BOOL)
+            return o.code;
+        return temp(Type.BOOL, "Operations.truth(" + box(o) + ", " + line + ")");
+    }
+
+    // Variáveis. Só as que podem ser lidas antes da primeira escrita guardam
+    // o indicador de inicialização.
+
+    private Operand read(Variable var) {
+        String name = use(var);
+        if (!types.initialized(var))
+            line("if (!" + flag(var) + ") Utils.abort(" + var.getLine() + ");");
+
+        Type t = types.type(var);
+        String v = temp(t, name);
+        if (var instanceof SafeVariable && t == Type.VALUE)
+            line("if (" + v + " instanceof NullValue) Utils.abort(" + var.getLine() + ");");
+        return new Operand(v, t);
+    }
+
+    private void write(Variable var, Operand o, AssignCommand a) {
+        String name = use(var);
+        if (var.isConstant()) {
+            if (!types.initialized(var))
+                line("if (" + flag(var) + ") Utils.abort(" + var.getLine() + ");");
+            else if (!types.isDeclaration(var, a))
+                line("Utils.abort(" + var.getLine() + ");");
+        }
+        if (var instanceof SafeVariable && o.type == Type.VALUE)
+            line("if (" + o.code + " instanceof NullValue) Utils.abort(" + var.getLine() + ");");
+
+        line(name + " = " + as(o, types.type(var)) + ";");
+        if (!types.initialized(var))
+            line(flag(var) + " = true;");
+    }
+
+    private String use(Variable var) {
+        used.put(var, true);
+        return name(var);
+    }
+
+    private static String name(Variable var) {
+        return "v_" + var.getName();
+    }
+
+    private static String flag(Variable var) {
+        return "s_" + var.getName();
+    }
+
+    // Expressões. Cada uma vira comandos que deixam o resultado num
+    // temporário, na mesma ordem de avaliação da árvore.
+
+    private Operand expr(Expr e) {
+        if (e instanceof ConstExpr c)
+            return constant(c.getValue());
+        if (e instanceof Variable var)
+            return read(var);
+        if (e instanceof BinaryExpr b)
+            return binary(b);
+        if (e instanceof UnaryExpr u)
+            return unary(u);
+        if (e instanceof FunctionExpr f)
+            return function(f);
+        if (e instanceof RangeExpr r)
+            return new Operand(temp(Type.VALUE, "Operations.range(" + bound(r.getFrom()) + ", " + bound(r.getTo()) + ", " + r.getLine() + ")"), Type.VALUE);
+        if (e instanceof AccessExpr a)
+            return new Operand(temp(Type.VALUE, get(a)), Type.VALUE);
+        if (e instanceof ListExpr l)
+            return list(l);
+        if (e instanceof MapExpr m)
+            return map(m);
+        throw new IllegalStateException("expressão não suportada: " + e.getClass().getSimpleName());
+    }
+
+    private Operand constant(Value<?> v) {
+        if (v instanceof NullValue)
+            return new Operand("NullValue.NULL", Type.VALUE, null);
+        if (v instanceof NumberValue nv)
+            return new Operand(literal(nv.intValue()), Type.INT, v);
+        if (v instanceof BoolValue bv)
+            return new Operand(Boolean.toString(bv.booleanValue()), Type.BOOL, v);
+        return new Operand(constantField(v), Type.VALUE, v);
+    }
+
+    // Constantes que precisam de objeto ficam em campos, criados uma vez só.
+    private String constantField(Value<?> v) {
+        String init;
+        if (v instanceof NumberValue nv)
+            init = "NumberValue.of(" + literal(nv.intValue()) + ")";
+        else if (v instanceof TextValue tv)
+            init = "new TextValue(" + string(tv.value()) + ")";
+        else
+            throw new IllegalStateException("constante não suportada: " + v.getClass().getSimpleName());
+
+        String name = constantNames.get(init);
+        if (name == null) {
+            name = "k" + constants.size();
+            constants.add("private static final Value<?> " + name + " = " + init + ";");
+            constantNames.put(init, name);
+        }
+        return name;
+    }
+
+    private Operand binary(BinaryExpr b) {
+        Operand l = expr(b.getLeft());
+        Operand r = expr(b.getRight());
+        int line = b.getLine();
+        boolean ints = l.type == Type.INT && r.type == Type.INT;
+        String args = box(l) + ", " + box(r) + ", " + line;
+
+        switch (b.getOp()) {
+            case ADD:
+                if (ints)
+                    return new Operand(temp(Type.INT, l.code + " + " + r.code), Type.INT);
+                return new Operand(temp(Type.VALUE, "Operations.add(" + args + ")"), Type.VALUE);
+            case SUB:
+                return arithmetic(ints, l.code + " - " + r.code, "Operations.sub(" + args + ")");
+            case MUL:
+                return arithmetic(ints, l.code + " * " + r.code, "Operations.mul(" + args + ")");
+            case DIV:
+                return arithmetic(ints, "Operations.div(" + l.code + ", " + r.code + ", " + line + ")",
+                        "Operations.div(" + args + ")");
+            case MOD:
+                return arithmetic(ints, "Operations.mod(" + l.code + ", " + r.code + ", " + line + ")",
+                        "Operations.mod(" + args + ")");
+            case LOWER_THAN:
+                return comparison(ints, l.code + " < " + r.code, "Operations.lowerThan(" + args + ")");
+            case LOWER_EQUAL:
+                return comparison(ints, l.code + " <= " + r.code, "Operations.lowerEqual(" + args + ")");
+            case GREATER_THAN:
+                return comparison(ints, l.code + " > " + r.code, "Operations.greaterThan(" + args + ")");
+            case GREATER_EQUAL:
+                return comparison(ints, l.code + " >= " + r.code, "Operations.greaterEqual(" + args + ")");
+            case EQUAL:
+            case NOT_EQUAL: {
+                boolean same = l.type == r.type && l.type != Type.VALUE;
+                String eq = b.getOp() == BinaryOp.EQUAL ? " == " : " != ";
+                String generic = (eq.equals(" == ") ? "" : "!") + "Operations.equal(" + box(l) + ", " + box(r) + ")";
+                return comparison(same, l.code + eq + r.code, generic);
+            }
+            case AND: {
+                boolean bools = l.type == Type.BOOL && r.type == Type.BOOL;
+                return comparison(bools, l.code + " & " + r.code, "Operations.and(" + args + ")");
+            }
+            case OR: {
+                boolean bools = l.type == Type.BOOL && r.type == Type.BOOL;
+                return comparison(bools, l.code + " | " + r.code, "Operations.or(" + args + ")");
+            }
+            case IF_NULL:
+                if (l.type != Type.VALUE)
+                    return l;
+                return new Operand(temp(Type.VALUE, "!(" + l.code + " instanceof NullValue) ? " + l.code + " : " + box(r)), Type.VALUE);
+            default:
+                throw new IllegalStateException("operador não suportado: " + b.getOp());
+        }
+    }
+
+    private Operand arithmetic(boolean inline, String fast, String generic) {
+        return new Operand(temp(Type.INT, inline ? fast : generic), Type.INT);
+    }
+
+    private Operand comparison(boolean inline, String fast, String generic) {
+        return new Operand(temp(Type.BOOL, inline ? fast : generic), Type.BOOL);
+    }
+
+    private Operand unary(UnaryExpr u) {
+        int line = u.getLine();
+        switch (u.getOp()) {
+            case NEG: {
+                Operand o = expr(u.getExpr());
+                String v = o.type == Type.INT ? "-" + o.code : "Operations.neg(" + box(o) + ", " + line + ")";
+                return new Operand(temp(Type.INT, v), Type.INT);
+            }
+            case NOT: {
+                Operand o = expr(u.getExpr());
+                String v = o.type == Type.BOOL ? "!" + o.code : "Operations.not(" + box(o) + ", " + line + ")";
+                return new Operand(temp(Type.BOOL, v), Type.BOOL);
+            }
+            default:
+                return step(u);
+        }
+    }
+
+    // ++ e --. Como na árvore, um acesso por índice avalia base e índice de
+    // novo para gravar o resultado.
+    private Operand step(UnaryExpr u) {
+        int delta = u.getOp() == UnaryOp.PRE_INC || u.getOp() == UnaryOp.POS_INC ? 1 : -1;
+        boolean post = u.getOp() == UnaryOp.POS_INC || u.getOp() == UnaryOp.POS_DEC;
+        Expr target = u.getExpr();
+
+        Operand old;
+        if (target instanceof AccessExpr a)
+            old = new Operand(temp(Type.VALUE, get(a)), Type.VALUE);
+        else
+            old = expr(target);
+
+        String v;
+        if (old.type == Type.INT)
+            v = old.code + (delta > 0 ? " + 1" : " - 1");
+        else
+            v = "Operations.step(" + box(old) + ", " + delta + ", " + u.getLine() + ")";
+        Operand res = new Operand(temp(Type.INT, v), Type.INT);
+
+        if (target instanceof Variable var)
+            write(var, res, null);
+        else if (target instanceof AccessExpr a)
+            set(a, box(res));
+
+        return post ? old : res;
+    }
+
+    private Operand function(FunctionExpr f) {
+        Operand o = expr(f.getExpr());
+        String arg = box(o);
+        switch (f.getOp()) {
+            case READ:
+                return new Operand(temp(Type.VALUE, "Operations.read(" + arg + ")"), Type.VALUE);
+            case RANDOM:
+                return new Operand(temp(Type.INT, "Operations.random(" + arg + ")"), Type.INT);
+            case LENGTH:
+                return new Operand(temp(Type.INT, "Operations.length(" + arg + ")"), Type.INT);
+            case KEYS:
+                return new Operand(temp(Type.VALUE, "Operations.keys(" + arg + ")"), Type.VALUE);
+            case VALUES:
+                return new Operand(temp(Type.VALUE, "Operations.values(" + arg + ")"), Type.VALUE);
+            case TOBOOL:
+                if (o.type == Type.BOOL)
+                    return o;
+                if (o.type == Type.INT)
+                    return new Operand(temp(Type.BOOL, o.code + " != 0"), Type.BOOL);
+                return new Operand(temp(Type.BOOL, "Operations.toBool(" + arg + ")"), Type.BOOL);
+            case TOINT:
+                if (o.type == Type.INT)
+                    return o;
+                if (o.type == Type.BOOL)
+                    return new Operand(temp(Type.INT, o.code + " ? 1 : 0"), Type.INT);
+                return new Operand(temp(Type.INT, "Operations.toInt(" + arg + ")"), Type.INT);
+            case TOSTR:
+                return new Operand(temp(Type.VALUE, "Operations.toStr(" + arg + ")"), Type.VALUE);
+            default:
+                throw new IllegalStateException("função não suportada: " + f.getOp());
+        }
+    }
+
+    // Um for sobre range vira um for de int, sem lista nenhuma. Abre o laço
+    // e devolve o nome do contador.
+    private String range(RangeExpr r) {
+        String from = bound(r.getFrom());
+        String to = bound(r.getTo());
+        line("Operations.span(" + from + ", " + to + ", " + r.getLine() + ");");
+        String e = "t" + temps++;
+        line("for (int " + e + " = " + from + "; " + e + " < " + to + "; " + e + "++) {");
+        return e;
+    }
+
+    // Os limites de range só podem ser números; range(n) começa em 0.
+    private String bound(Expr e) {
+        if (e == null)
+            return "0";
+
+        Operand o = expr(e);
+        return o.type == Type.INT ? temp(Type.INT, o.code) : temp(Type.INT, "Operations.bound(" + box(o) + ")");
+    }
+
+    // Acesso por índice: a base é conferida antes de o índice ser avaliado.
+    private String get(AccessExpr a) {
+        String base = base(a);
+        Operand i = expr(a.getIndex());
+        return "Operations.get(" + base + ", " + index(i) + ", " + a.getLine() + ")";
+    }
+
+    private void set(AccessExpr a, String value) {
+        String base = base(a);
+        Operand i = expr(a.getIndex());
+        line("Operations.set(" + base + ", " + index(i) + ", " + value + ", " + a.getLine() + ");");
+    }
+
+    private String base(AccessExpr a) {
+        Operand o = expr(a.getBase());
+        String base = o.type == Type.VALUE ? o.code : temp(Type.VALUE, box(o));
+        line("Operations.indexable(" + base + ", " + a.getLine() + ");");
+        return base;
+    }
+
+    private String index(Operand i) {
+        return i.type == Type.INT ? i.code : box(i);
+    }
+
+    private Operand list(ListExpr l) {
+        String items = temp("CompactList", "new CompactList()");
+        for (ListItem item : l.getItems())
+            item(items, item);
+        return new Operand(temp(Type.VALUE, "new ListValue(" + items + ")"), Type.VALUE);
+    }
+
+    private void item(String items, ListItem item) {
+        if (item instanceof SingleListItem s) {
+            Operand o = expr(s.getExpr());
+            if (o.type == Type.INT)
+                line(items + ".addInt(" + o.code + ");");
+            else
+                line("Operations.item(" + items + ", " + box(o) + ");");
+        } else if (item instanceof SpreadListItem s) {
+            Operand o = expr(s.getExpr());
+            line("Operations.spread(" + items + ", " + box(o) + ", " + s.getLine() + ");");
+        } else if (item instanceof IfListItem i) {
+            String cond = condition(i.getExpr(), i.getLine());
+            line("if (" + cond + ") {");
+            depth++;
+            item(items, i.getThen());
+            depth--;
+            if (i.getElse() != null) {
+                line("} else {");
+                depth++;
+                item(items, i.getElse());
+                depth--;
+            }
+            line("}");
+        } else if (item instanceof ForListItem f && f.getExpr() instanceof RangeExpr r) {
+            String e = range(r);
+            depth++;
+            write(f.getVar(), new Operand(e, Type.INT), null);
+            item(items, f.getItem());
+            depth--;
+            line("}");
+        } else if (item instanceof ForListItem f) {
+            Operand o = expr(f.getExpr());
+            String list = temp("List<Value<?>>", "Operations.items(" + box(o) + ", " + f.getLine() + ")");
+            String e = "t" + temps++;
+            line("for (Value<?> " + e + " : " + list + ") {");
+            depth++;
+            write(f.getVar(), new Operand(e, Type.VALUE), null);
+            item(items, f.getItem());
+            depth--;
+            line("}");
+        }
+    }
+
+    private Operand map(MapExpr m) {
+        String entries = temp("CompactMap", "new CompactMap()");
+        for (MapItem item : m.getItems()) {
+            Operand k = expr(item.key);
+            if (k.type == Type.VALUE)
+                line("if (" + k.code + " instanceof NullValue) Utils.abort(" + m.getLine() + ");");
+            Operand v = expr(item.value);
+            line(entries + ".put(" + box(k) + ", " + box(v) + ");");
+        }
+        return new Operand(temp(Type.VALUE, "new MapValue(" + entries + ")"), Type.VALUE);
+    }
+
+    // Conversões entre valores e tipos primitivos.
+
+    private String box(Operand o) {
+        if (o.type == Type.VALUE)
+            return o.code;
+        if (o.type == Type.BOOL)
+            return o.constant != null ? "BoolValue." + o.code.toUpperCase() : "BoolValue.of(" + o.code + ")";
+        if (o.constant != null)
+            return constantField(o.constant);
+        return "NumberValue.of(" + o.code + ")";
+    }
+
+    // A inferência garante que um valor gravado numa variável int ou boolean
+    // tem esse tipo, então a conversão não falha.
+    private String as(Operand o, Type t) {
+        if (t == Type.VALUE)
+            return box(o);
+        if (o.type == t)
+            return o.code;
+        if (o.type != Type.VALUE)
+            throw new IllegalStateException("tipos incompatíveis: " + o.type + " e " + t);
+        return t == Type.INT ? "((NumberValue) " + o.code + ").intValue()" : "((BoolValue) " + o.code + ").booleanValue()";
+    }
+
+    private static String java(Type t) {
+        switch (t) {
+            case INT:
+                return "int";
+            case BOOL:
+                return "boolean";
+            default:
+                return "Value<?>";
+        }
+    }
+
+    private String temp(Type t, String init) {
+        return temp(java(t), init);
+    }
+
+    private String temp(String type, String init) {
+        String name = "t" + temps++;
+        line(type + " " + name + " = " + init + ";");
+        return name;
+    }
+
+    private void line(String s) {
+        for (int i = 0; i < depth; i++)
+            code.append("    ");
+        code.append(s).append('\n');
+    }
+
+    private static String literal(int n) {
+        return n < 0 ? "(" + n + ")" : Integer.toString(n);
+    }
+
+    private static String string(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20 || c == 0x7f)
+                sb.append(String.format("\\%03o", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+}
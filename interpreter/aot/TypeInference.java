@@ -0,0 +1,329 @@
+package interpreter.aot;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.command.AssertCommand;
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DoWhileCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.ForListItem;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.IfListItem;
+import interpreter.expr.ListExpr;
+import interpreter.expr.ListItem;
+import interpreter.expr.MapExpr;
+import interpreter.expr.MapItem;
+import interpreter.expr.RangeExpr;
+import interpreter.expr.SingleListItem;
+import interpreter.expr.SpreadListItem;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.UnaryOp;
+import interpreter.expr.Variable;
+import interpreter.value.BoolValue;
+import interpreter.value.NumberValue;
+
+// Descobre, olhando todas as escritas, quais variáveis só guardam inteiros
+// ou só booleanos; essas viram int e boolean no código gerado. Também marca
+// as variáveis inicializadas na própria declaração, antes de qualquer outro
+// uso, que dispensam o teste de variável não inicializada.
+final class TypeInference {
+
+    // NONE: nenhuma escrita vista ainda. VALUE: qualquer valor, inclusive null.
+    enum Type {
+        NONE, INT, BOOL, VALUE;
+
+        Type join(Type other) {
+            if (this == NONE || this == other)
+                return other;
+            return other == NONE ? this : VALUE;
+        }
+    }
+
+    private final Map<Variable, Type> types = new IdentityHashMap<>();
+    private final Map<Variable, AssignCommand> declarations = new IdentityHashMap<>();
+    private final Map<Variable, Boolean> seen = new IdentityHashMap<>();
+    private final List<Variable> variables = new ArrayList<>();
+    private boolean changed;
+
+    TypeInference(Command program) {
+        do {
+            changed = false;
+            command(program);
+        } while (changed);
+
+        firstUse(program, true);
+    }
+
+    // As variáveis do programa, na ordem em que aparecem.
+    List<Variable> variables() {
+        return variables;
+    }
+
+    Type type(Variable var) {
+        Type t = types.get(var);
+        return t == null || t == Type.NONE ? Type.VALUE : t;
+    }
+
+    boolean initialized(Variable var) {
+        return declarations.containsKey(var);
+    }
+
+    // A atribuição da declaração, que já encontra a variável vazia.
+    boolean isDeclaration(Variable var, AssignCommand a) {
+        return declarations.get(var) == a;
+    }
+
+    // Tipo de uma expressão. Quando uma operação pode abortar, o tipo é o
+    // do resultado caso ela não aborte.
+    Type type(Expr e) {
+        if (e instanceof ConstExpr c) {
+            if (c.getValue() instanceof NumberValue)
+                return Type.INT;
+            if (c.getValue() instanceof BoolValue)
+                return Type.BOOL;
+            return Type.VALUE;
+        }
+
+        if (e instanceof Variable var) {
+            Type t = types.get(var);
+            return t == null ? Type.NONE : t;
+        }
+
+        if (e instanceof BinaryExpr b) {
+            switch (b.getOp()) {
+                case ADD: {
+                    Type l = type(b.getLeft());
+                    Type r = type(b.getRight());
+                    return l.join(Type.INT) == Type.INT && r.join(Type.INT) == Type.INT ? Type.INT : Type.VALUE;
+                }
+                case SUB:
+                case MUL:
+                case DIV:
+                case MOD:
+                    return Type.INT;
+                case IF_NULL: {
+                    Type l = type(b.getLeft());
+                    return l == Type.INT || l == Type.BOOL || l == Type.NONE ? l : Type.VALUE;
+                }
+                default:
+                    return Type.BOOL;
+            }
+        }
+
+        if (e instanceof UnaryExpr u)
+            return u.getOp() == UnaryOp.NOT ? Type.BOOL : Type.INT;
+
+        if (e instanceof FunctionExpr f) {
+            switch (f.getOp()) {
+                case LENGTH:
+                case RANDOM:
+                case TOINT:
+                    return Type.INT;
+                case TOBOOL:
+                    return Type.BOOL;
+                default:
+                    return Type.VALUE;
+            }
+        }
+
+        return Type.VALUE;
+    }
+
+    private void declare(Variable var) {
+        if (!types.containsKey(var)) {
+            variables.add(var);
+            types.put(var, Type.NONE);
+        }
+    }
+
+    private void write(Variable var, Type t) {
+        declare(var);
+        Type old = types.get(var);
+        Type joined = old.join(t);
+        if (joined != old) {
+            types.put(var, joined);
+            changed = true;
+        }
+    }
+
+    // Percorre o programa procurando as escritas.
+
+    private void command(Command c) {
+        if (c instanceof BlocksCommand b) {
+            for (Command cmd : b.getCommands())
+                command(cmd);
+        } else if (c instanceof AssignCommand a) {
+            expr(a.getRhs());
+            if (a.getLhs() instanceof Variable var)
+                write(var, type(a.getRhs()));
+            else if (a.getLhs() != null)
+                expr(a.getLhs());
+        } else if (c instanceof IfCommand i) {
+            expr(i.getExpr());
+            command(i.getThen());
+            command(i.getElse());
+        } else if (c instanceof WhileCommand w) {
+            expr(w.getExpr());
+            command(w.getCommands());
+        } else if (c instanceof DoWhileCommand d) {
+            command(d.getCommands());
+            expr(d.getExpr());
+        } else if (c instanceof ForCommand f) {
+            expr(f.getExpr());
+            write(f.getVar(), element(f.getExpr()));
+            command(f.getCommands());
+        } else if (c instanceof PrintCommand p) {
+            expr(p.getExpr());
+        } else if (c instanceof AssertCommand a) {
+            expr(a.getExpr());
+            expr(a.getMsg());
+        }
+    }
+
+    private void expr(Expr e) {
+        if (e instanceof Variable var) {
+            declare(var);
+        } else if (e instanceof BinaryExpr b) {
+            expr(b.getLeft());
+            expr(b.getRight());
+        } else if (e instanceof UnaryExpr u) {
+            expr(u.getExpr());
+            if (u.getOp() != UnaryOp.NEG && u.getOp() != UnaryOp.NOT && u.getExpr() instanceof Variable var)
+                write(var, Type.INT);
+        } else if (e instanceof FunctionExpr f) {
+            expr(f.getExpr());
+        } else if (e instanceof RangeExpr r) {
+            expr(r.getFrom());
+            expr(r.getTo());
+        } else if (e instanceof AccessExpr a) {
+            expr(a.getBase());
+            expr(a.getIndex());
+        } else if (e instanceof ListExpr l) {
+            for (ListItem item : l.getItems())
+                item(item);
+        } else if (e instanceof MapExpr m) {
+            for (MapItem item : m.getItems()) {
+                expr(item.key);
+                expr(item.value);
+            }
+        }
+    }
+
+    private void item(ListItem item) {
+        if (item instanceof SingleListItem s) {
+            expr(s.getExpr());
+        } else if (item instanceof SpreadListItem s) {
+            expr(s.getExpr());
+        } else if (item instanceof IfListItem i) {
+            expr(i.getExpr());
+            item(i.getThen());
+            if (i.getElse() != null)
+                item(i.getElse());
+        } else if (item instanceof ForListItem f) {
+            expr(f.getExpr());
+            write(f.getVar(), element(f.getExpr()));
+            item(f.getItem());
+        }
+    }
+
+    // Tipo dos elementos percorridos por um for. A lista de um range escrito
+    // direto no for não tem nome, ninguém a altera: só tem inteiros.
+    private static Type element(Expr list) {
+        return list instanceof RangeExpr ? Type.INT : Type.VALUE;
+    }
+
+    // Inicialização na declaração: a primeira referência à variável, na
+    // ordem de execução, é a atribuição da declaração, feita no nível mais
+    // externo do programa (fora de if e laços) e sem usar a própria variável.
+    private void firstUse(Command c, boolean top) {
+        if (c instanceof BlocksCommand b) {
+            for (Command cmd : b.getCommands())
+                firstUse(cmd, top);
+        } else if (c instanceof AssignCommand a) {
+            uses(a.getRhs());
+            if (a.getLhs() instanceof Variable var) {
+                if (top && !seen.containsKey(var))
+                    declarations.put(var, a);
+                seen.put(var, true);
+            } else {
+                uses(a.getLhs());
+            }
+        } else if (c instanceof IfCommand i) {
+            uses(i.getExpr());
+            firstUse(i.getThen(), false);
+            firstUse(i.getElse(), false);
+        } else if (c instanceof WhileCommand w) {
+            uses(w.getExpr());
+            firstUse(w.getCommands(), false);
+        } else if (c instanceof DoWhileCommand d) {
+            firstUse(d.getCommands(), false);
+            uses(d.getExpr());
+        } else if (c instanceof ForCommand f) {
+            uses(f.getExpr());
+            seen.put(f.getVar(), true);
+            firstUse(f.getCommands(), false);
+        } else if (c instanceof PrintCommand p) {
+            uses(p.getExpr());
+        } else if (c instanceof AssertCommand a) {
+            uses(a.getExpr());
+            uses(a.getMsg());
+        }
+    }
+
+    private void uses(Expr e) {
+        if (e instanceof Variable var) {
+            seen.put(var, true);
+        } else if (e instanceof BinaryExpr b) {
+            uses(b.getLeft());
+            uses(b.getRight());
+        } else if (e instanceof UnaryExpr u) {
+            uses(u.getExpr());
+        } else if (e instanceof FunctionExpr f) {
+            uses(f.getExpr());
+        } else if (e instanceof RangeExpr r) {
+            uses(r.getFrom());
+            uses(r.getTo());
+        } else if (e instanceof AccessExpr a) {
+            uses(a.getBase());
+            uses(a.getIndex());
+        } else if (e instanceof ListExpr l) {
+            for (ListItem item : l.getItems())
+                usesItem(item);
+        } else if (e instanceof MapExpr m) {
+            for (MapItem item : m.getItems()) {
+                uses(item.key);
+                uses(item.value);
+            }
+        }
+    }
+
+    private void usesItem(ListItem item) {
+        if (item instanceof SingleListItem s) {
+            uses(s.getExpr());
+        } else if (item instanceof SpreadListItem s) {
+            uses(s.getExpr());
+        } else if (item instanceof IfListItem i) {
+            uses(i.getExpr());
+            usesItem(i.getThen());
+            if (i.getElse() != null)
+                usesItem(i.getElse());
+        } else if (item instanceof ForListItem f) {
+            uses(f.getExpr());
+            seen.put(f.getVar(), true);
+            usesItem(f.getItem());
+        }
+    }
+
+}
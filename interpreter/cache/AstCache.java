@@ -0,0 +1,90 @@
+package interpreter.cache;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import interpreter.command.Command;
+
+// Guarda a árvore produzida por SyntacticAnalysis.start() num arquivo binário,
+// por padrão ao lado do script (arquivo.mdart -> arquivo.mdart.ast) ou num
+// diretório de cache. O cabeçalho leva a versão do formato, o SHA-256 do
+// front-end (AstFormat.BUILD) e o SHA-256 do script: se qualquer um deles
+// mudar, load() devolve null e a próxima chamada a store() sobrescreve o
+// arquivo.
+public class AstCache {
+
+    private static final String SUFFIX = ".ast";
+
+    private final Path source;
+    private final Path cache;
+    private byte[] hash;
+
+    public AstCache(Path source) {
+        this(source, source.toAbsolutePath().resolveSibling(source.getFileName() + SUFFIX));
+    }
+
+    public AstCache(Path source, Path cache) {
+        this.source = source;
+        this.cache = cache;
+    }
+
+    public static AstCache inDirectory(Path source, Path directory) {
+        return new AstCache(source, directory.resolve(source.getFileName() + SUFFIX));
+    }
+
+    public Path getPath() {
+        return cache;
+    }
+
+    public Command load() {
+        if (AstFormat.BUILD == null)
+            return null;
+
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new AstReader(in).read(hash());
+        } catch (Exception e) {
+            // Sem cache, cache corrompido ou de outra versão: refaz a análise.
+            return null;
+        }
+    }
+
+    public void store(Command cmd) {
+        if (AstFormat.BUILD == null)
+            return;
+
+        try {
+            byte[] data = new AstWriter().write(hash(), cmd);
+
+            Path dir = cache.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(cache.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            // O cache é só uma otimização: sem permissão de escrita, segue sem ele.
+        }
+    }
+
+    private byte[] hash() throws IOException {
+        if (hash == null) {
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                md.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                hash = md.digest();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+        }
+
+        return hash;
+    }
+
+}
@@ -0,0 +1,94 @@
+package interpreter.cache;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import interpreter.command.*;
+import interpreter.expr.*;
+import lexical.LexicalAnalysis;
+import lexical.TokenType;
+import syntatic.SyntacticAnalysis;
+
+// Formato binário da árvore gravada pelo AstCache. Cada nó é uma tag de um
+// byte seguida da linha e dos filhos, em pré-ordem; null é a tag NULL.
+// Variáveis são definidas na primeira ocorrência (VAR_DEF) e depois
+// referenciadas pelo índice (VAR_REF), preservando o compartilhamento.
+//
+// VERSION deve ser incrementada sempre que os nós ou a codificação mudarem.
+// Como esquecer disso é fácil, o cabeçalho também leva BUILD, o SHA-256 dos
+// .class do analisador, do leitor/escritor e dos nós: qualquer mudança no
+// front-end invalida os caches antigos mesmo com a mesma VERSION.
+final class AstFormat {
+
+    static final int MAGIC = 0x4D444153; // "MDAS"
+    static final int VERSION = 2;
+    static final int HASH_SIZE = 32;
+
+    // null se algum .class não puder ser lido; nesse caso o cache fica desligado.
+    static final byte[] BUILD = build(
+            AstFormat.class, AstReader.class, AstWriter.class,
+            LexicalAnalysis.class, TokenType.class, SyntacticAnalysis.class,
+            AssertCommand.class, AssignCommand.class, BlocksCommand.class,
+            DoWhileCommand.class, ForCommand.class, IfCommand.class,
+            PrintCommand.class, WhileCommand.class,
+            AccessExpr.class, BinaryExpr.class, BinaryOp.class, ConstExpr.class,
+            FunctionExpr.class, FunctionOp.class, ListExpr.class, MapExpr.class,
+            MapItem.class, RangeExpr.class, UnaryExpr.class, UnaryOp.class,
+            SafeVariable.class, UnsafeVariable.class, ForListItem.class,
+            IfListItem.class, SingleListItem.class, SpreadListItem.class);
+
+    static final byte NULL = 0;
+
+    // Comandos
+    static final byte ASSERT = 1;
+    static final byte ASSIGN = 2;
+    static final byte BLOCKS = 3;
+    static final byte DO_WHILE = 4;
+    static final byte FOR = 5;
+    static final byte IF = 6;
+    static final byte PRINT = 7;
+    static final byte WHILE = 8;
+
+    // Expressões
+    static final byte ACCESS = 20;
+    static final byte BINARY = 21;
+    static final byte CONST = 22;
+    static final byte FUNCTION = 23;
+    static final byte LIST = 24;
+    static final byte MAP = 25;
+    static final byte UNARY = 26;
+    static final byte VAR_DEF = 27;
+    static final byte VAR_REF = 28;
+    static final byte RANGE = 29;
+
+    // Itens de lista
+    static final byte FOR_ITEM = 40;
+    static final byte IF_ITEM = 41;
+    static final byte SINGLE_ITEM = 42;
+    static final byte SPREAD_ITEM = 43;
+
+    // Constantes
+    static final byte BOOL = 60;
+    static final byte NUMBER = 61;
+    static final byte TEXT = 62;
+
+    private AstFormat() {
+    }
+
+    private static byte[] build(Class<?>... classes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Class<?> c : classes) {
+                try (InputStream in = c.getResourceAsStream(c.getSimpleName() + ".class")) {
+                    if (in == null)
+                        return null;
+                    md.update(in.readAllBytes());
+                }
+            }
+            return md.digest();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package interpreter.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.*;
+import interpreter.expr.*;
+import interpreter.value.BoolValue;
+import interpreter.value.NullValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+class AstReader {
+
+    private static final BinaryOp[] BINARY_OPS = BinaryOp.values();
+    private static final UnaryOp[] UNARY_OPS = UnaryOp.values();
+    private static final FunctionOp[] FUNCTION_OPS = FunctionOp.values();
+
+    private final ByteBuffer in;
+    private final List<Variable> variables;
+
+    AstReader(ByteBuffer in) {
+        this.in = in;
+        this.variables = new ArrayList<>();
+    }
+
+    // Devolve null se o cabeçalho não for desta versão, deste build ou deste conteúdo.
+    Command read(byte[] hash) throws IOException {
+        if (in.getInt() != AstFormat.MAGIC || in.getInt() != AstFormat.VERSION)
+            return null;
+
+        byte[] stored = new byte[AstFormat.HASH_SIZE];
+        in.get(stored);
+        if (!java.util.Arrays.equals(stored, AstFormat.BUILD))
+            return null;
+
+        in.get(stored);
+        if (!java.util.Arrays.equals(stored, hash))
+            return null;
+
+        Command cmd = readCommand();
+        if (in.hasRemaining())
+            throw new IOException("Trailing data");
+
+        return cmd;
+    }
+
+    private Command readCommand() throws IOException {
+        byte tag = in.get();
+        if (tag == AstFormat.NULL)
+            return null;
+
+        int line = in.getInt();
+        switch (tag) {
+            case AstFormat.ASSERT: {
+                Expr expr = readExpr();
+                Expr msg = readExpr();
+                return new AssertCommand(line, expr, msg);
+            }
+            case AstFormat.ASSIGN: {
+                Expr rhs = readExpr();
+                SetExpr lhs = (SetExpr) readExpr();
+                return new AssignCommand(line, rhs, lhs);
+            }
+            case AstFormat.BLOCKS: {
+                int n = in.getInt();
+                List<Command> cmds = new ArrayList<>(n);
+                for (int i = 0; i < n; i++)
+                    cmds.add(readCommand());
+                return new BlocksCommand(line, cmds);
+            }
+            case AstFormat.DO_WHILE: {
+                Command cmds = readCommand();
+                Expr expr = readExpr();
+                return new DoWhileCommand(line, cmds, expr);
+            }
+            case AstFormat.FOR: {
+                Variable var = (Variable) readExpr();
+                Expr expr = readExpr();
+                Command cmds = readCommand();
+                return new ForCommand(line, var, expr, cmds);
+            }
+            case AstFormat.IF: {
+                Expr expr = readExpr();
+                Command thenCmds = readCommand();
+                Command elseCmds = readCommand();
+                return new IfCommand(line, expr, thenCmds, elseCmds);
+            }
+            case AstFormat.PRINT:
+                return new PrintCommand(line, readExpr());
+            case AstFormat.WHILE: {
+                Expr expr = readExpr();
+                Command cmds = readCommand();
+                return new WhileCommand(line, expr, cmds);
+            }
+            default:
+                throw new IOException("Unknown command tag " + tag);
+        }
+    }
+
+    private Expr readExpr() throws IOException {
+        byte tag = in.get();
+        if (tag == AstFormat.NULL)
+            return null;
+
+        if (tag == AstFormat.VAR_REF)
+            return variables.get(in.getInt());
+
+        int line = in.getInt();
+        switch (tag) {
+            case AstFormat.VAR_DEF: {
+                boolean unsafe = in.get() != 0;
+                boolean constant = in.get() != 0;
+                String name = readString();
+                Variable var = unsafe
+                        ? new UnsafeVariable(line, name, constant)
+                        : new SafeVariable(line, name, constant);
+                variables.add(var);
+                return var;
+            }
+            case AstFormat.ACCESS: {
+                SetExpr base = (SetExpr) readExpr();
+                Expr index = readExpr();
+                return new AccessExpr(line, base, index);
+            }
+            case AstFormat.BINARY: {
+                Expr left = readExpr();
+                BinaryOp op = BINARY_OPS[in.get()];
+                Expr right = readExpr();
+                return new BinaryExpr(line, left, op, right);
+            }
+            case AstFormat.CONST:
+                return new ConstExpr(line, readValue());
+            case AstFormat.FUNCTION: {
+                FunctionOp op = FUNCTION_OPS[in.get()];
+                Expr expr = readExpr();
+                return new FunctionExpr(line, op, expr);
+            }
+            case AstFormat.RANGE: {
+                Expr from = readExpr();
+                Expr to = readExpr();
+                return new RangeExpr(line, from, to);
+            }
+            case AstFormat.LIST: {
+                ListExpr list = new ListExpr(line);
+                int n = in.getInt();
+                for (int i = 0; i < n; i++)
+                    list.addItem(readItem());
+                return list;
+            }
+            case AstFormat.MAP: {
+                MapExpr map = new MapExpr(line);
+                int n = in.getInt();
+                for (int i = 0; i < n; i++) {
+                    Expr key = readExpr();
+                    Expr value = readExpr();
+                    map.addItem(new MapItem(key, value));
+                }
+                return map;
+            }
+            case AstFormat.UNARY: {
+                Expr expr = readExpr();
+                UnaryOp op = UNARY_OPS[in.get()];
+                return new UnaryExpr(line, expr, op);
+            }
+            default:
+                throw new IOException("Unknown expression tag " + tag);
+        }
+    }
+
+    private ListItem readItem() throws IOException {
+        byte tag = in.get();
+        if (tag == AstFormat.NULL)
+            return null;
+
+        int line = in.getInt();
+        switch (tag) {
+            case AstFormat.FOR_ITEM: {
+                Variable var = (Variable) readExpr();
+                Expr expr = readExpr();
+                ListItem item = readItem();
+                return new ForListItem(line, var, expr, item);
+            }
+            case AstFormat.IF_ITEM: {
+                Expr expr = readExpr();
+                ListItem thenItem = readItem();
+                ListItem elseItem = readItem();
+                return new IfListItem(line, expr, thenItem, elseItem);
+            }
+            case AstFormat.SINGLE_ITEM:
+                return new SingleListItem(line, readExpr());
+            case AstFormat.SPREAD_ITEM:
+                return new SpreadListItem(line, readExpr());
+            default:
+                throw new IOException("Unknown list item tag " + tag);
+        }
+    }
+
+    private Value<?> readValue() throws IOException {
+        byte tag = in.get();
+        switch (tag) {
+            case AstFormat.NULL:
+                return NullValue.NULL;
+            case AstFormat.BOOL:
+                return BoolValue.of(in.get() != 0);
+            case AstFormat.NUMBER:
+                return NumberValue.of(in.getInt());
+            case AstFormat.TEXT:
+                return new TextValue(readString());
+            default:
+                throw new IOException("Unknown constant tag " + tag);
+        }
+    }
+
+    private String readString() {
+        byte[] b = new byte[in.getInt()];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,190 @@
+package interpreter.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import interpreter.command.*;
+import interpreter.expr.*;
+import interpreter.value.BoolValue;
+import interpreter.value.NullValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+class AstWriter {
+
+    private final ByteArrayOutputStream bytes;
+    private final DataOutputStream out;
+    private final Map<Variable, Integer> variables;
+
+    AstWriter() {
+        bytes = new ByteArrayOutputStream();
+        out = new DataOutputStream(bytes);
+        variables = new IdentityHashMap<>();
+    }
+
+    byte[] write(byte[] hash, Command cmd) throws IOException {
+        out.writeInt(AstFormat.MAGIC);
+        out.writeInt(AstFormat.VERSION);
+        out.write(AstFormat.BUILD);
+        out.write(hash);
+        writeCommand(cmd);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writeCommand(Command cmd) throws IOException {
+        if (cmd == null) {
+            out.writeByte(AstFormat.NULL);
+        } else if (cmd instanceof AssertCommand c) {
+            header(AstFormat.ASSERT, c.getLine());
+            writeExpr(c.getExpr());
+            writeExpr(c.getMsg());
+        } else if (cmd instanceof AssignCommand c) {
+            header(AstFormat.ASSIGN, c.getLine());
+            writeExpr(c.getRhs());
+            writeExpr(c.getLhs());
+        } else if (cmd instanceof BlocksCommand c) {
+            header(AstFormat.BLOCKS, c.getLine());
+            out.writeInt(c.getCommands().size());
+            for (Command child : c.getCommands())
+                writeCommand(child);
+        } else if (cmd instanceof DoWhileCommand c) {
+            header(AstFormat.DO_WHILE, c.getLine());
+            writeCommand(c.getCommands());
+            writeExpr(c.getExpr());
+        } else if (cmd instanceof ForCommand c) {
+            header(AstFormat.FOR, c.getLine());
+            writeExpr(c.getVar());
+            writeExpr(c.getExpr());
+            writeCommand(c.getCommands());
+        } else if (cmd instanceof IfCommand c) {
+            header(AstFormat.IF, c.getLine());
+            writeExpr(c.getExpr());
+            writeCommand(c.getThen());
+            writeCommand(c.getElse());
+        } else if (cmd instanceof PrintCommand c) {
+            header(AstFormat.PRINT, c.getLine());
+            writeExpr(c.getExpr());
+        } else if (cmd instanceof WhileCommand c) {
+            header(AstFormat.WHILE, c.getLine());
+            writeExpr(c.getExpr());
+            writeCommand(c.getCommands());
+        } else {
+            throw new IOException("Unsupported command " + cmd.getClass().getName());
+        }
+    }
+
+    private void writeExpr(Expr expr) throws IOException {
+        if (expr == null) {
+            out.writeByte(AstFormat.NULL);
+        } else if (expr instanceof Variable v) {
+            Integer id = variables.get(v);
+            if (id != null) {
+                out.writeByte(AstFormat.VAR_REF);
+                out.writeInt(id);
+            } else {
+                variables.put(v, variables.size());
+                header(AstFormat.VAR_DEF, v.getLine());
+                out.writeBoolean(v instanceof UnsafeVariable);
+                out.writeBoolean(v.isConstant());
+                writeString(v.getName());
+            }
+        } else if (expr instanceof AccessExpr e) {
+            header(AstFormat.ACCESS, e.getLine());
+            writeExpr(e.getBase());
+            writeExpr(e.getIndex());
+        } else if (expr instanceof BinaryExpr e) {
+            header(AstFormat.BINARY, e.getLine());
+            writeExpr(e.getLeft());
+            out.writeByte(e.getOp().ordinal());
+            writeExpr(e.getRight());
+        } else if (expr instanceof ConstExpr e) {
+            header(AstFormat.CONST, e.getLine());
+            writeValue(e.getValue());
+        } else if (expr instanceof FunctionExpr e) {
+            header(AstFormat.FUNCTION, e.getLine());
+            out.writeByte(e.getOp().ordinal());
+            writeExpr(e.getExpr());
+        } else if (expr instanceof RangeExpr e) {
+            header(AstFormat.RANGE, e.getLine());
+            writeExpr(e.getFrom());
+            writeExpr(e.getTo());
+        } else if (expr instanceof ListExpr e) {
+            header(AstFormat.LIST, e.getLine());
+            out.writeInt(e.getItems().size());
+            for (ListItem item : e.getItems())
+                writeItem(item);
+        } else if (expr instanceof MapExpr e) {
+            header(AstFormat.MAP, e.getLine());
+            out.writeInt(e.getItems().size());
+            for (MapItem item : e.getItems()) {
+                writeExpr(item.key);
+                writeExpr(item.value);
+            }
+        } else if (expr instanceof UnaryExpr e) {
+            header(AstFormat.UNARY, e.getLine());
+            writeExpr(e.getExpr());
+            out.writeByte(e.getOp().ordinal());
+        } else {
+            throw new IOException("Unsupported expression " + expr.getClass().getName());
+        }
+    }
+
+    private void writeItem(ListItem item) throws IOException {
+        if (item == null) {
+            out.writeByte(AstFormat.NULL);
+        } else if (item instanceof ForListItem i) {
+            header(AstFormat.FOR_ITEM, i.getLine());
+            writeExpr(i.getVar());
+            writeExpr(i.getExpr());
+            writeItem(i.getItem());
+        } else if (item instanceof IfListItem i) {
+            header(AstFormat.IF_ITEM, i.getLine());
+            writeExpr(i.getExpr());
+            writeItem(i.getThen());
+            writeItem(i.getElse());
+        } else if (item instanceof SingleListItem i) {
+            header(AstFormat.SINGLE_ITEM, i.getLine());
+            writeExpr(i.getExpr());
+        } else if (item instanceof SpreadListItem i) {
+            header(AstFormat.SPREAD_ITEM, i.getLine());
+            writeExpr(i.getExpr());
+        } else {
+            throw new IOException("Unsupported list item " + item.getClass().getName());
+        }
+    }
+
+    private void writeValue(Value<?> value) throws IOException {
+        if (value instanceof NullValue) {
+            out.writeByte(AstFormat.NULL);
+        } else if (value instanceof BoolValue bv) {
+            out.writeByte(AstFormat.BOOL);
+            out.writeBoolean(bv.booleanValue());
+        } else if (value instanceof NumberValue nv) {
+            out.writeByte(AstFormat.NUMBER);
+            out.writeInt(nv.intValue());
+        } else if (value instanceof TextValue tv) {
+            out.writeByte(AstFormat.TEXT);
+            writeString(tv.value());
+        } else {
+            throw new IOException("Unsupported constant " + value.getClass().getName());
+        }
+    }
+
+    private void header(byte tag, int line) throws IOException {
+        out.writeByte(tag);
+        out.writeInt(line);
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+}
@@ -1,8 +1,6 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
-import interpreter.util.Utils;
-import interpreter.value.BoolValue;
 
 public class AssertCommand extends Command {
 
@@ -15,18 +13,18 @@ public class AssertCommand extends Command {
     this.msg = msg;
   }
 
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public Expr getMsg() {
+    return msg;
+  }
+
   @Override
   public void execute() {
     if (expr != null) {
-      var v = expr.expr();
-      if (!(v instanceof BoolValue bv)) {
-        Utils.abort(super.getLine());
-        return;
-      }
-
-      boolean b = bv.value();
-
-      if (!b) {
+      if (!test(expr)) {
         if (msg != null) {
           var m = msg.expr();
           System.out.println("assert: " + m);
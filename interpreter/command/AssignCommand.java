@@ -1,7 +1,9 @@
 package interpreter.command;
 
+import interpreter.expr.AccessExpr;
 import interpreter.expr.Expr;
 import interpreter.expr.SetExpr;
+import interpreter.expr.Tagged;
 import interpreter.expr.Variable;
 import interpreter.value.Value;
 
@@ -14,10 +16,28 @@ public class AssignCommand extends Command {
         super(line);
         this.rhs = rhs;
         this.lhs = lhs;
+        if (lhs instanceof AccessExpr a)
+            a.markWritten();
+    }
+
+    public Expr getRhs() {
+        return rhs;
+    }
+
+    public SetExpr getLhs() {
+        return lhs;
     }
 
     @Override
     public void execute() {
+        // Com --tagged, inteiros e booleanos vão para o destino sem virar Value.
+        if (Tagged.isEnabled()) {
+            long t = rhs.tagged();
+            if (lhs != null)
+                lhs.setTagged(t);
+            return;
+        }
+
         Value<?> v = rhs.expr();
         if (lhs != null)
             lhs.setValue(v);
@@ -11,6 +11,10 @@ public class BlocksCommand extends Command {
         this.cmds = cmds;
     }
 
+    public List<Command> getCommands() {
+        return cmds;
+    }
+
     @Override
     public void execute() {
         for (Command c : cmds)
@@ -1,5 +1,10 @@
 package interpreter.command;
 
+import interpreter.expr.Expr;
+import interpreter.expr.Tagged;
+import interpreter.util.Utils;
+import interpreter.value.BoolValue;
+
 public abstract class Command {
 
     private final int line;
@@ -14,4 +19,24 @@ public abstract class Command {
 
     public abstract void execute();
 
+    // A condição de if, while, do-while e assert, que aborta na linha do
+    // comando se não for booleana. Com --tagged, não cria o BoolValue.
+    protected boolean test(Expr expr) {
+        if (Tagged.isEnabled()) {
+            long t = expr.tagged();
+            if (!Tagged.isBool(t)) {
+                Utils.abort(line);
+                return false;
+            }
+            return Tagged.boolValue(t);
+        }
+
+        var v = expr.expr();
+        if (!(v instanceof BoolValue bv)) {
+            Utils.abort(line);
+            return false;
+        }
+        return bv.booleanValue();
+    }
+
 }
@@ -0,0 +1,15 @@
+package interpreter.command;
+
+import java.util.List;
+
+import interpreter.value.Value;
+
+// Código compilado de um laço quente. Continua o laço do ponto em que o
+// interpretador parou (para o for, a lista e a posição do próximo item) e
+// devolve -1 quando o laço terminou ou, se um teste de tipo falhou, a
+// posição em que o interpretador deve retomar.
+public interface CompiledLoop {
+
+    int resume(List<Value<?>> list, int next);
+
+}
@@ -1,10 +1,8 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
-import interpreter.util.Utils;
-import interpreter.value.BoolValue;
 
-public class DoWhileCommand extends Command {
+public class DoWhileCommand extends LoopCommand {
 
     private final Command cmds;
     private final Expr expr;
@@ -15,22 +13,28 @@ public class DoWhileCommand extends Command {
         this.expr = expr;
     }
 
+    public Command getCommands() {
+        return cmds;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
     // <dowhile> ::= do <body> while '(' <expr> ')' ';'
     @Override
     public void execute() {
         cmds.execute();
 
         while (true) {
-            var v = expr.expr();
-            if (!(v instanceof BoolValue bv)) {
-                Utils.abort(super.getLine());
+            if (isCompiled() && resume(null, 0) < 0)
                 return;
-            }
 
-            if (!bv.value())
+            if (!test(expr))
                 break;
 
             cmds.execute();
+            iterated();
         }
 
     }
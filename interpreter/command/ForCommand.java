@@ -1,16 +1,28 @@
 package interpreter.command;
 
+import java.util.List;
+
 import interpreter.expr.Expr;
 import interpreter.expr.ListExpr;
+import interpreter.expr.Tagged;
 import interpreter.expr.Variable;
 import interpreter.util.Utils;
+import interpreter.value.CompactList;
 import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.RangeList;
+import interpreter.value.Value;
 
-public class ForCommand extends Command {
+public class ForCommand extends LoopCommand {
 
     private final Variable var;
     private final Expr expr;
     private final Command cmds;
+    // Marcado por LoopFusion: expr é uma compreensão que entrega os valores
+    // direto ao corpo, sem montar a lista, desde que cada guarda seja uma
+    // lista só de inteiros na entrada do laço.
+    private boolean fused;
+    private List<Variable> guards;
 
     public ForCommand(int line, Variable var, Expr expr, Command cmds) {
         super(line);
@@ -19,9 +31,51 @@ public class ForCommand extends Command {
         this.cmds = cmds;
     }
 
+    public Variable getVar() {
+        return var;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Command getCommands() {
+        return cmds;
+    }
+
+    public boolean isFused() {
+        return fused;
+    }
+
+    void fuse(List<Variable> guards) {
+        this.fused = true;
+        this.guards = guards;
+    }
+
+    // Range ou lista só de inteiros: a compreensão fundida não aborta no meio.
+    private boolean guarded() {
+        for (Variable g : guards) {
+            Value<?> v = g.expr();
+            if (!(v instanceof ListValue lv))
+                return false;
+            if (!(lv.value() instanceof RangeList r && r.isLazy())
+                    && !(lv.value() instanceof CompactList c && c.isInts()))
+                return false;
+        }
+        return true;
+    }
+
     // for '(' <name> in <expr> ')' <body>
     @Override
     public void execute() {
+        if (fused && guarded()) {
+            ((ListExpr) expr).each(e -> {
+                var.setValue(e);
+                cmds.execute();
+            });
+            return;
+        }
+
         var v = expr.expr();
 
         if(!(v instanceof ListValue lv)){
@@ -31,9 +85,30 @@ public class ForCommand extends Command {
         }
 
         var list = lv.value();
-        for (var item : list) {
-            var.setValue(item);
+        int i = 0;
+        while (i < list.size()) {
+            if (isCompiled()) {
+                i = resume(list, i);
+                if (i < 0)
+                    return;
+                continue;
+            }
+
+            // Um range ainda não escrito não tem lista: o elemento sai do
+            // próprio contador. Com --tagged, o elemento de uma lista de
+            // inteiros vai para a variável sem virar NumberValue.
+            if (list instanceof RangeList r && r.isLazy()) {
+                int n = r.intAt(i++);
+                if (Tagged.isEnabled())
+                    var.setTagged(Tagged.ofInt(n));
+                else
+                    var.setValue(NumberValue.of(n));
+            } else if (Tagged.isEnabled() && list instanceof CompactList c && c.isInts())
+                var.setTagged(Tagged.ofInt(c.intAt(i++)));
+            else
+                var.setValue(list.get(i++));
             cmds.execute();
+            iterated();
         }
 
     }
@@ -2,7 +2,6 @@ package interpreter.command;
 
 import interpreter.expr.Expr;
 import interpreter.util.Utils;
-import interpreter.value.BoolValue;
 
 public class IfCommand extends Command {
 
@@ -17,6 +16,18 @@ public class IfCommand extends Command {
     this.elseCmds = elseCmds;
   }
 
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public Command getThen() {
+    return thenCmds;
+  }
+
+  public Command getElse() {
+    return elseCmds;
+  }
+
   @Override
   public void execute() {
     if (expr == null) {
@@ -24,15 +35,7 @@ public class IfCommand extends Command {
       return;
     }
 
-    var v = expr.expr();
-    if (!(v instanceof BoolValue bv)) {
-      Utils.abort(super.getLine());
-      return;
-    }
-
-    var b = bv.value();
-
-    if (b) {
+    if (test(expr)) {
       thenCmds.execute();
     } else {
       if (elseCmds != null) {
@@ -0,0 +1,38 @@
+package interpreter.command;
+
+import java.util.List;
+
+import interpreter.value.Value;
+
+// Base dos laços: conta as iterações e, quando o laço fica quente, troca o
+// resto da execução pelo código compilado. Se um teste de tipo do código
+// compilado falhar, o laço volta a ser interpretado e a contagem recomeça.
+public abstract class LoopCommand extends Command {
+
+    private int iterations;
+    private CompiledLoop compiled;
+
+    protected LoopCommand(int line) {
+        super(line);
+    }
+
+    protected void iterated() {
+        if (Tiering.hot(++iterations))
+            compiled = Tiering.compile(this);
+    }
+
+    protected boolean isCompiled() {
+        return compiled != null;
+    }
+
+    protected int resume(List<Value<?>> list, int next) {
+        int n = compiled.resume(list, next);
+        if (n >= 0) {
+            compiled = null;
+            iterations = 0;
+            Tiering.deoptimized();
+        }
+        return n;
+    }
+
+}
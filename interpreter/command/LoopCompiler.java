@@ -0,0 +1,9 @@
+package interpreter.command;
+
+// Traduz um WhileCommand, DoWhileCommand ou ForCommand para código compilado.
+// Devolve null quando não consegue; o laço continua interpretado.
+public interface LoopCompiler {
+
+    CompiledLoop compile(Command loop);
+
+}
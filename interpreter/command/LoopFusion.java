@@ -0,0 +1,389 @@
+package interpreter.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.ForListItem;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.FunctionOp;
+import interpreter.expr.IfListItem;
+import interpreter.expr.ListExpr;
+import interpreter.expr.ListItem;
+import interpreter.expr.MapExpr;
+import interpreter.expr.MapItem;
+import interpreter.expr.RangeExpr;
+import interpreter.expr.SingleListItem;
+import interpreter.expr.SpreadListItem;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.UnaryOp;
+import interpreter.expr.Variable;
+import interpreter.value.BoolValue;
+import interpreter.value.NullValue;
+import interpreter.value.NumberValue;
+
+// Passo sobre a árvore que funde um for com a compreensão (ou literal) que
+// ele percorre: em vez de montar a lista e depois iterá-la, o for recebe os
+// valores um a um, à medida que a compreensão os produz, e a lista do meio
+// nunca existe. length() e spreads de literais já consomem sem lista por
+// conta própria (ListExpr.count e SpreadListItem.emit).
+//
+// Fundir intercala a compreensão com o corpo, então só vale quando a ordem
+// não se nota: a compreensão não tem efeitos (read, random, ++, --) nem
+// pode abortar no meio (Safety), o corpo não escreve nenhuma variável que
+// ela lê ou usa como variável de laço, não lê essas variáveis de laço e não
+// escreve por índice (que pode mudar, por outro nome, uma lista que ela lê).
+// Se a compreensão pudesse abortar, o corpo fundido já teria impresso ou
+// escrito alguma coisa antes do erro, que sem fusão vem primeiro.
+//
+// Um for de primeiro nível da compreensão pode percorrer uma variável de
+// fora, como em for (x in [for (y in data) if (y > 0) y * 2]): a análise
+// supõe que os elementos são inteiros e o ForCommand confere isso uma vez,
+// na entrada do laço (ForCommand.execute). Se a lista não for só de
+// inteiros, a compreensão é montada como antes.
+public final class LoopFusion {
+
+    private static int fused;
+
+    private LoopFusion() {
+    }
+
+    public static void apply(Command program) {
+        command(program);
+    }
+
+    public static int getFused() {
+        return fused;
+    }
+
+    public static String report() {
+        return String.format("laços fundidos: %d", fused);
+    }
+
+    private static void command(Command c) {
+        if (c instanceof BlocksCommand b) {
+            for (Command cmd : b.getCommands())
+                command(cmd);
+        } else if (c instanceof IfCommand i) {
+            command(i.getThen());
+            command(i.getElse());
+        } else if (c instanceof WhileCommand w) {
+            command(w.getCommands());
+        } else if (c instanceof DoWhileCommand d) {
+            command(d.getCommands());
+        } else if (c instanceof ForCommand f) {
+            List<Variable> guards = new ArrayList<>();
+            if (f.getExpr() instanceof ListExpr l && fusible(f, l, guards)) {
+                f.fuse(guards);
+                fused++;
+            }
+            command(f.getCommands());
+        }
+    }
+
+    private static boolean fusible(ForCommand f, ListExpr l, List<Variable> guards) {
+        Effects producer = new Effects();
+        producer.expr(l);
+        if (producer.impure || !new Safety(guards).producer(l))
+            return false;
+
+        // A conferência da entrada só vale se a compreensão não reatribui a lista.
+        for (Variable v : guards) {
+            if (producer.writes.contains(v))
+                return false;
+        }
+
+        Effects consumer = new Effects();
+        consumer.writes.add(f.getVar());
+        consumer.command(f.getCommands());
+        if (consumer.indexed)
+            return false;
+
+        for (Variable v : consumer.writes) {
+            if (producer.reads.contains(v) || producer.writes.contains(v))
+                return false;
+        }
+        for (Variable v : producer.writes) {
+            if (consumer.reads.contains(v))
+                return false;
+        }
+        return true;
+    }
+
+    // As variáveis lidas e escritas por um trecho da árvore, se ele tem
+    // efeitos além delas e se escreve por índice.
+    private static final class Effects {
+
+        final Set<Variable> reads = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<Variable> writes = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean impure;
+        boolean indexed;
+
+        void command(Command c) {
+            if (c instanceof BlocksCommand b) {
+                for (Command cmd : b.getCommands())
+                    command(cmd);
+            } else if (c instanceof AssignCommand a) {
+                expr(a.getRhs());
+                write(a.getLhs());
+            } else if (c instanceof IfCommand i) {
+                expr(i.getExpr());
+                command(i.getThen());
+                command(i.getElse());
+            } else if (c instanceof WhileCommand w) {
+                expr(w.getExpr());
+                command(w.getCommands());
+            } else if (c instanceof DoWhileCommand d) {
+                command(d.getCommands());
+                expr(d.getExpr());
+            } else if (c instanceof ForCommand f) {
+                expr(f.getExpr());
+                writes.add(f.getVar());
+                command(f.getCommands());
+            } else if (c instanceof PrintCommand p) {
+                expr(p.getExpr());
+            } else if (c instanceof AssertCommand a) {
+                expr(a.getExpr());
+                expr(a.getMsg());
+            }
+        }
+
+        void write(Expr target) {
+            if (target instanceof Variable var) {
+                writes.add(var);
+            } else if (target instanceof AccessExpr a) {
+                indexed = true;
+                expr(a);
+            }
+        }
+
+        void expr(Expr e) {
+            if (e instanceof Variable var) {
+                reads.add(var);
+            } else if (e instanceof BinaryExpr b) {
+                expr(b.getLeft());
+                expr(b.getRight());
+            } else if (e instanceof UnaryExpr u) {
+                expr(u.getExpr());
+                if (u.getOp() != UnaryOp.NEG && u.getOp() != UnaryOp.NOT) {
+                    impure = true;
+                    write(u.getExpr());
+                }
+            } else if (e instanceof FunctionExpr f) {
+                if (f.getOp() == FunctionOp.READ || f.getOp() == FunctionOp.RANDOM)
+                    impure = true;
+                expr(f.getExpr());
+            } else if (e instanceof RangeExpr r) {
+                expr(r.getFrom());
+                expr(r.getTo());
+            } else if (e instanceof AccessExpr a) {
+                expr(a.getBase());
+                expr(a.getIndex());
+            } else if (e instanceof ListExpr l) {
+                for (ListItem item : l.getItems())
+                    item(item);
+            } else if (e instanceof MapExpr m) {
+                for (MapItem item : m.getItems()) {
+                    expr(item.key);
+                    expr(item.value);
+                }
+            }
+        }
+
+        void item(ListItem item) {
+            if (item instanceof SingleListItem s) {
+                expr(s.getExpr());
+            } else if (item instanceof SpreadListItem s) {
+                expr(s.getExpr());
+            } else if (item instanceof IfListItem i) {
+                expr(i.getExpr());
+                item(i.getThen());
+                if (i.getElse() != null)
+                    item(i.getElse());
+            } else if (item instanceof ForListItem f) {
+                expr(f.getExpr());
+                writes.add(f.getVar());
+                item(f.getItem());
+            }
+        }
+
+    }
+
+    // Tipos que a compreensão produz, vistos só pela árvore. Uma
+    // compreensão que não pode abortar só lê constantes e as próprias
+    // variáveis de laço, e só faz operações cujos operandos têm o tipo
+    // certo: aritmética de inteiros, divisão por constante diferente de
+    // zero, comparações, and/or de booleanos, for sobre listas e range de
+    // inteiros. Fora isso, uma variável de fora pode não estar inicializada
+    // ou ter qualquer valor; só a origem de um for de primeiro nível é
+    // aceita, como guarda conferida na execução.
+    private enum Kind {
+        INT, BOOL, LIST, TEXT, ANY
+    }
+
+    private static final class Safety {
+
+        final Map<Variable, Kind> locals = new IdentityHashMap<>();
+        final List<Variable> guards;
+
+        Safety(List<Variable> guards) {
+            this.guards = guards;
+        }
+
+        // Os itens de primeiro nível são sempre avaliados, em ordem, e o que
+        // vem antes não tem efeitos nem aborta: ler a origem de um deles na
+        // entrada do laço dá no mesmo que lê-la na hora.
+        boolean producer(ListExpr l) {
+            for (ListItem item : l.getItems()) {
+                if (item instanceof ForListItem f && f.getExpr() instanceof Variable var) {
+                    guards.add(var);
+                    if (!loop(f, Kind.INT))
+                        return false;
+                } else if (!item(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // null se a expressão pode abortar.
+        Kind kind(Expr e) {
+            if (e instanceof ConstExpr c) {
+                if (c.getValue() instanceof NumberValue)
+                    return Kind.INT;
+                if (c.getValue() instanceof BoolValue)
+                    return Kind.BOOL;
+                return c.getValue() instanceof NullValue ? Kind.ANY : Kind.TEXT;
+            } else if (e instanceof Variable var) {
+                return locals.get(var);
+            } else if (e instanceof BinaryExpr b) {
+                return binary(b);
+            } else if (e instanceof UnaryExpr u) {
+                Kind k = kind(u.getExpr());
+                if (u.getOp() == UnaryOp.NEG)
+                    return k == Kind.INT ? Kind.INT : null;
+                if (u.getOp() == UnaryOp.NOT)
+                    return k == Kind.BOOL ? Kind.BOOL : null;
+                return null;
+            } else if (e instanceof FunctionExpr f) {
+                Kind k = kind(f.getExpr());
+                if (k == null)
+                    return null;
+                switch (f.getOp()) {
+                    case LENGTH:
+                        return k == Kind.LIST ? Kind.INT : null;
+                    case TOBOOL:
+                        return Kind.BOOL;
+                    case TOINT:
+                        return Kind.INT;
+                    case TOSTR:
+                        return k != Kind.ANY ? Kind.TEXT : null;
+                    default:
+                        return null;
+                }
+            } else if (e instanceof RangeExpr r) {
+                boolean from = r.getFrom() == null || kind(r.getFrom()) == Kind.INT;
+                return from && kind(r.getTo()) == Kind.INT ? Kind.LIST : null;
+            } else if (e instanceof AccessExpr a) {
+                // Fora dos limites dá null, sem abortar.
+                return kind(a.getBase()) == Kind.LIST && kind(a.getIndex()) == Kind.INT ? Kind.ANY : null;
+            } else if (e instanceof ListExpr l) {
+                for (ListItem item : l.getItems()) {
+                    if (!item(item))
+                        return null;
+                }
+                return Kind.LIST;
+            }
+            return null;
+        }
+
+        private Kind binary(BinaryExpr b) {
+            Kind l = kind(b.getLeft());
+            Kind r = kind(b.getRight());
+            if (l == null || r == null)
+                return null;
+
+            switch (b.getOp()) {
+                case ADD:
+                    if (l == Kind.TEXT && r == Kind.TEXT)
+                        return Kind.TEXT;
+                    return l == Kind.INT && r == Kind.INT ? Kind.INT : null;
+                case SUB:
+                case MUL:
+                    return l == Kind.INT && r == Kind.INT ? Kind.INT : null;
+                case DIV:
+                case MOD:
+                    boolean nonZero = b.getRight() instanceof ConstExpr c
+                            && c.getValue() instanceof NumberValue nv && nv.intValue() != 0;
+                    return l == Kind.INT && nonZero ? Kind.INT : null;
+                case LOWER_THAN:
+                case LOWER_EQUAL:
+                case GREATER_THAN:
+                case GREATER_EQUAL:
+                    return l == Kind.INT && r == Kind.INT ? Kind.BOOL : null;
+                case AND:
+                case OR:
+                    return l == Kind.BOOL && r == Kind.BOOL ? Kind.BOOL : null;
+                case EQUAL:
+                case NOT_EQUAL:
+                    return Kind.BOOL;
+                case IF_NULL:
+                    return l == r ? l : Kind.ANY;
+                default:
+                    return null;
+            }
+        }
+
+        boolean item(ListItem item) {
+            if (item instanceof SingleListItem s) {
+                return kind(s.getExpr()) != null;
+            } else if (item instanceof SpreadListItem s) {
+                return kind(s.getExpr()) == Kind.LIST;
+            } else if (item instanceof IfListItem i) {
+                return kind(i.getExpr()) == Kind.BOOL && item(i.getThen())
+                        && (i.getElse() == null || item(i.getElse()));
+            } else if (item instanceof ForListItem f) {
+                if (kind(f.getExpr()) != Kind.LIST)
+                    return false;
+
+                return loop(f, element(f.getExpr()));
+            }
+            return false;
+        }
+
+        // A variável de laço só vale dentro do próprio for.
+        private boolean loop(ForListItem f, Kind element) {
+            Kind old = locals.put(f.getVar(), element);
+            boolean safe = item(f.getItem());
+            if (old != null)
+                locals.put(f.getVar(), old);
+            else
+                locals.remove(f.getVar());
+            return safe;
+        }
+
+        // Tipo dos elementos de uma lista sem erro: range só tem inteiros,
+        // um literal só de inteiros também.
+        private Kind element(Expr list) {
+            if (list instanceof RangeExpr)
+                return Kind.INT;
+            if (list instanceof ListExpr l) {
+                for (ListItem item : l.getItems()) {
+                    if (!(item instanceof SingleListItem s) || kind(s.getExpr()) != Kind.INT)
+                        return Kind.ANY;
+                }
+                return Kind.INT;
+            }
+            return Kind.ANY;
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
+import interpreter.util.Operations;
 import interpreter.value.Value;
 
 public class PrintCommand extends Command {
@@ -12,11 +13,15 @@ public class PrintCommand extends Command {
         this.expr = expr;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
     @Override
     public void execute() {
         if (expr != null) {
             var v = expr.expr();
-            System.out.print(v);
+            Operations.print(v);
         }
         System.out.println();
     }
@@ -0,0 +1,61 @@
+package interpreter.command;
+
+// Decide quando um laço está quente o bastante para ser compilado. Sem um
+// compilador registrado (o padrão), os laços são sempre interpretados.
+public final class Tiering {
+
+    public static final int THRESHOLD = 10_000;
+
+    private static LoopCompiler compiler;
+    private static int threshold = THRESHOLD;
+    private static int compiled;
+    private static int failed;
+    private static int deoptimized;
+
+    private Tiering() {
+    }
+
+    public static void enable(LoopCompiler c) {
+        enable(c, THRESHOLD);
+    }
+
+    public static void enable(LoopCompiler c, int iterations) {
+        compiler = c;
+        threshold = iterations;
+    }
+
+    public static void disable() {
+        compiler = null;
+    }
+
+    // Verdadeiro na iteração em que o laço deve ser compilado.
+    static boolean hot(int iterations) {
+        return iterations == threshold && compiler != null;
+    }
+
+    static CompiledLoop compile(Command loop) {
+        CompiledLoop code;
+        try {
+            code = compiler.compile(loop);
+        } catch (RuntimeException | LinkageError e) {
+            code = null;
+        }
+
+        if (code == null)
+            failed++;
+        else
+            compiled++;
+        return code;
+    }
+
+    // Chamado quando o código compilado devolve o laço ao interpretador.
+    static void deoptimized() {
+        deoptimized++;
+    }
+
+    public static String report() {
+        return String.format("laços compilados: %d, não compilados: %d, devolvidos ao interpretador: %d",
+                compiled, failed, deoptimized);
+    }
+
+}
@@ -1,11 +1,8 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
-import interpreter.util.Utils;
-import interpreter.value.BoolValue;
-import interpreter.value.Value;
 
-public class WhileCommand extends Command {
+public class WhileCommand extends LoopCommand {
 
     private final Expr expr;
     private final Command cmds;
@@ -16,22 +13,26 @@ public class WhileCommand extends Command {
         this.cmds = cmds;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Command getCommands() {
+        return cmds;
+    }
+
     // ::= while '(' <expr> ')' <body>
     @Override
     public void execute() {
         while (true) {
-            var v = expr.expr();
-            if (!(v instanceof BoolValue bv)) {
-                Utils.abort(super.getLine());
+            if (isCompiled() && resume(null, 0) < 0)
                 return;
-            }
-            
-            boolean b = bv.value();
 
-            if (!b)
+            if (!test(expr))
                 break;
 
             cmds.execute();
+            iterated();
         }
     }
     
@@ -3,47 +3,232 @@ package interpreter.expr;
 import java.util.Map;
 
 import interpreter.util.Utils;
+import interpreter.value.CompactList;
+import interpreter.value.CompactMap;
 import interpreter.value.ListValue;
 import interpreter.value.MapValue;
+import interpreter.value.NullValue;
 import interpreter.value.NumberValue;
+import interpreter.value.RangeList;
+import interpreter.value.Shape;
+import interpreter.value.ShapedMap;
+import interpreter.value.TextValue;
 import interpreter.value.Value;
 
 public class AccessExpr extends SetExpr {
 
+    // Como em BinaryExpr: o nó se especializa para o tipo da base (lista ou
+    // mapa) visto no primeiro acesso, seja leitura ou escrita.
+    private static final int UNINITIALIZED = 0;
+    private static final int GENERIC = 1;
+    private static final int LIST = 2;
+    private static final int MAP = 3;
+
     private final SetExpr base;
     private final Expr index;
+    private int state;
+
+    // Cache da forma: com índice de texto constante, a última forma de
+    // ShapedMap vista e a posição da chave nela (-1 se a chave não está).
+    private final TextValue key;
+    private Shape shape;
+    private int slot;
 
     public AccessExpr(int line, SetExpr base, Expr index) {
         super(line);
         this.base = base;
         this.index = index;
+        this.key = index instanceof ConstExpr c && c.getValue() instanceof TextValue tv ? tv : null;
+    }
+
+    public SetExpr getBase() {
+        return base;
+    }
+
+    public Expr getIndex() {
+        return index;
+    }
+
+    // Marca a variável na raiz do acesso como escrita por índice.
+    public void markWritten() {
+        SetExpr b = base;
+        while (b instanceof AccessExpr a)
+            b = a.base;
+        if (b instanceof Variable v)
+            v.markIndexed();
     }
 
     @Override
     public Value<?> expr() {
         Value<?> bvalue = base.expr();
-        if (bvalue instanceof ListValue lv) {
-            var list = lv.value();
-            var i = index.expr();
-            if (!(i instanceof NumberValue nv)) {
-                Utils.abort(super.getLine());
-                return null;
-            }
-            int index = nv.value();
-            if (index >= list.size() || index < 0) {
-                return null;
-            }
+        switch (state) {
+            case LIST:
+                if (bvalue instanceof ListValue lv)
+                    return listGet(lv);
+                break;
+            case MAP:
+                if (bvalue instanceof MapValue mv)
+                    return mapGet(mv);
+                break;
+            case UNINITIALIZED:
+                specialize(bvalue);
+                return genericGet(bvalue);
+            default:
+                return genericGet(bvalue);
+        }
 
-            return list.get(index);
+        deoptimize();
+        return genericGet(bvalue);
+    }
 
-        } else if (bvalue instanceof MapValue mv) {
-            Map<Value<?>, Value<?>> map = mv.value();
+    @Override
+    public void setValue(Value<?> value) {
+        set(base.expr(), value);
+    }
+
+    private void set(Value<?> bvalue, Value<?> value) {
+        switch (state) {
+            case LIST:
+                if (bvalue instanceof ListValue lv) {
+                    listSet(lv, value);
+                    return;
+                }
+                break;
+            case MAP:
+                if (bvalue instanceof MapValue mv) {
+                    mapSet(mv, value);
+                    return;
+                }
+                break;
+            case UNINITIALIZED:
+                specialize(bvalue);
+                genericSet(bvalue, value);
+                return;
+            default:
+                genericSet(bvalue, value);
+                return;
+        }
+
+        deoptimize();
+        genericSet(bvalue, value);
+    }
+
+    // Na avaliação marcada, o elemento de uma lista de inteiros ou o valor
+    // numérico de um mapa de chaves numéricas sai sem NumberValue.
+    @Override
+    public long tagged() {
+        if (state == MAP)
+            return mapTagged();
+        if (state != LIST)
+            return Tagged.of(expr());
 
-            Value<?> ivalue = index.expr();
-            if (ivalue == null)
+        Value<?> bvalue = base.expr();
+        if (!(bvalue instanceof ListValue lv)) {
+            deoptimize();
+            return Tagged.of(genericGet(bvalue));
+        }
+        if (lv.value() instanceof RangeList r && r.isLazy())
+            return rangeTagged(r);
+        if (!(lv.value() instanceof CompactList list) || !list.isInts())
+            return Tagged.of(listGet(lv));
+
+        long i = index.tagged();
+        if (!Tagged.isInt(i)) {
+            Utils.abort(super.getLine());
+            return Tagged.REF;
+        }
+        int index = Tagged.intValue(i);
+        if (index >= list.size() || index < 0)
+            return Tagged.of(NullValue.NULL);
+
+        return Tagged.ofInt(list.intAt(index));
+    }
+
+    // O elemento de um range é calculado, sem NumberValue.
+    private long rangeTagged(RangeList r) {
+        long i = index.tagged();
+        if (!Tagged.isInt(i)) {
+            Utils.abort(super.getLine());
+            return Tagged.REF;
+        }
+        int index = Tagged.intValue(i);
+        if (index >= r.size() || index < 0)
+            return Tagged.of(NullValue.NULL);
+
+        return Tagged.ofInt(r.intAt(index));
+    }
+
+    private long mapTagged() {
+        Value<?> bvalue = base.expr();
+        if (!(bvalue instanceof MapValue mv)) {
+            deoptimize();
+            return Tagged.of(genericGet(bvalue));
+        }
+        if (!(mv.value() instanceof CompactMap map) || !map.isIntKeyed())
+            return Tagged.of(mapGet(mv));
+
+        long i = index.tagged();
+        if (!Tagged.isInt(i)) {
+            Value<?> ivalue = Tagged.value(i);
+            if (ivalue instanceof NullValue)
                 Utils.abort(super.getLine());
+            return Tagged.of(map.getOrDefault(ivalue, NullValue.NULL));
+        }
+
+        int e = map.find(Tagged.intValue(i));
+        if (e < 0)
+            return Tagged.of(NullValue.NULL);
+        return map.isInt(e) ? Tagged.ofInt(map.intAt(e)) : Tagged.of(map.valueAt(e));
+    }
+
+    @Override
+    public void setTagged(long t) {
+        if (state != MAP || !Tagged.isInt(t)) {
+            setValue(Tagged.value(t));
+            return;
+        }
+
+        Value<?> bvalue = base.expr();
+        if (!(bvalue instanceof MapValue mv) || !(mv.value() instanceof CompactMap map) || !map.isIntKeyed()) {
+            set(bvalue, NumberValue.of(Tagged.intValue(t)));
+            return;
+        }
 
-            return map.get(ivalue);
+        long i = index.tagged();
+        if (Tagged.isInt(i)) {
+            map.putInt(Tagged.intValue(i), Tagged.intValue(t));
+            return;
+        }
+
+        Value<?> ivalue = Tagged.value(i);
+        if (ivalue instanceof NullValue)
+            Utils.abort(super.getLine());
+        map.put(ivalue, NumberValue.of(Tagged.intValue(t)));
+    }
+
+    private void specialize(Value<?> bvalue) {
+        if (bvalue instanceof ListValue) {
+            state = LIST;
+        } else if (bvalue instanceof MapValue) {
+            state = MAP;
+        } else {
+            state = GENERIC;
+            return;
+        }
+
+        Specializations.specialized();
+    }
+
+    private void deoptimize() {
+        state = GENERIC;
+        Specializations.deoptimized();
+    }
+
+    private Value<?> genericGet(Value<?> bvalue) {
+        if (bvalue instanceof ListValue lv) {
+            return listGet(lv);
+        } else if (bvalue instanceof MapValue mv) {
+            return mapGet(mv);
         } else {
             Utils.abort(super.getLine());
         }
@@ -51,33 +236,88 @@ public class AccessExpr extends SetExpr {
         return null;
     }
 
-    @Override
-    public void setValue(Value<?> value) {
-        Value<?> bvalue = base.expr();
+    private Value<?> listGet(ListValue lv) {
+        var list = lv.value();
+        var i = index.expr();
+        if (!(i instanceof NumberValue nv)) {
+            Utils.abort(super.getLine());
+            return null;
+        }
+        int index = nv.intValue();
+        if (index >= list.size() || index < 0) {
+            return NullValue.NULL;
+        }
+
+        return list.get(index);
+    }
+
+    private Value<?> mapGet(MapValue mv) {
+        Map<Value<?>, Value<?>> map = mv.value();
+        if (key != null && map instanceof ShapedMap sm) {
+            int s = slotOf(sm);
+            if (s >= 0)
+                return sm.slotValue(s);
+        }
+
+        Value<?> ivalue = index.expr();
+        if (ivalue instanceof NullValue)
+            Utils.abort(super.getLine());
+
+        return map.getOrDefault(ivalue, NullValue.NULL);
+    }
+
+    private void genericSet(Value<?> bvalue, Value<?> value) {
         if (bvalue instanceof ListValue lv) {
-            var list = lv.value();
-            var i = index.expr();
-            if (!(i instanceof NumberValue nv)) {
-                Utils.abort(super.getLine());
-                return;
-            }
-            int index = nv.value();
-            if (index >= list.size() || index < 0) {
+            listSet(lv, value);
+        } else if (bvalue instanceof MapValue mv) {
+            mapSet(mv, value);
+        } else {
+            Utils.abort(super.getLine());
+        }
+    }
+
+    private void listSet(ListValue lv, Value<?> value) {
+        var list = lv.value();
+        var i = index.expr();
+        if (!(i instanceof NumberValue nv)) {
+            Utils.abort(super.getLine());
+            return;
+        }
+        int index = nv.intValue();
+        if (index >= list.size() || index < 0) {
+            return;
+        }
+        list.set(index, value);
+    }
+
+    private void mapSet(MapValue mv, Value<?> value) {
+        Map<Value<?>, Value<?>> map = mv.value();
+        if (key != null && map instanceof ShapedMap sm) {
+            int s = slotOf(sm);
+            if (s >= 0) {
+                sm.setSlot(s, value);
                 return;
             }
-            list.set(index, value);
+        }
 
-        } else if (bvalue instanceof MapValue mv) {
-            Map<Value<?>, Value<?>> map = mv.value();
+        Value<?> ivalue = index.expr();
+        if (ivalue instanceof NullValue)
+            Utils.abort(super.getLine());
 
-            Value<?> ivalue = index.expr();
-            if (ivalue == null)
-                Utils.abort(super.getLine());
+        map.put(ivalue, value);
+    }
 
-            map.put(ivalue, value);
-        } else {
-            Utils.abort(super.getLine());
+    // A posição da chave constante na forma do mapa, consultada só quando a
+    // forma muda; -1 se o mapa já não tem forma ou a chave não está nela.
+    private int slotOf(ShapedMap sm) {
+        Shape s = sm.shape();
+        if (s == null)
+            return -1;
+        if (s != shape) {
+            shape = s;
+            slot = s.slot(key);
         }
+        return slot;
     }
 
 }
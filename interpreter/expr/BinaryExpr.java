@@ -2,16 +2,37 @@ package interpreter.expr;
 
 import interpreter.util.Utils;
 import interpreter.value.BoolValue;
+import interpreter.value.NullValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
-import org.w3c.dom.Text;
 
 public class BinaryExpr extends Expr {
 
+    // Depois da primeira avaliação o nó se especializa para os tipos que viu
+    // (por exemplo, soma de inteiros), protegido por um teste barato. Se o
+    // teste falhar, volta de vez para o caso genérico.
+    private static final int UNINITIALIZED = 0;
+    private static final int GENERIC = 1;
+    private static final int INT_ADD = 2;
+    private static final int INT_SUB = 3;
+    private static final int INT_MUL = 4;
+    private static final int INT_DIV = 5;
+    private static final int INT_MOD = 6;
+    private static final int INT_EQUAL = 7;
+    private static final int INT_NOT_EQUAL = 8;
+    private static final int INT_LOWER_THAN = 9;
+    private static final int INT_LOWER_EQUAL = 10;
+    private static final int INT_GREATER_THAN = 11;
+    private static final int INT_GREATER_EQUAL = 12;
+    private static final int TEXT_ADD = 13;
+    private static final int BOOL_AND = 14;
+    private static final int BOOL_OR = 15;
+
     private final Expr left;
     private final BinaryOp op;
     private final Expr right;
+    private int state;
 
     public BinaryExpr(int line, Expr left, BinaryOp op, Expr right) {
         super(line);
@@ -20,11 +41,233 @@ public class BinaryExpr extends Expr {
         this.right = right;
     }
 
+    public Expr getLeft() {
+        return left;
+    }
+
+    public BinaryOp getOp() {
+        return op;
+    }
+
+    public Expr getRight() {
+        return right;
+    }
+
+    // Se o nó está especializado para operandos inteiros.
+    public boolean isIntSpecialized() {
+        return state >= INT_ADD && state <= INT_GREATER_EQUAL;
+    }
+
     @Override
     public Value<?> expr() {
         Value<?> v1 = left.expr();
         Value<?> v2 = right.expr();
 
+        switch (state) {
+            case GENERIC:
+                return generic(v1, v2);
+            case UNINITIALIZED:
+                state = specialize(v1, v2);
+                if (state != GENERIC)
+                    Specializations.specialized();
+                return generic(v1, v2);
+            case TEXT_ADD:
+                if (v1 instanceof TextValue tv1 && v2 instanceof TextValue tv2)
+                    return TextValue.concat(tv1, tv2);
+                return deoptimize(v1, v2);
+            case BOOL_AND:
+            case BOOL_OR:
+                return boolOp(v1, v2);
+            case INT_ADD:
+            case INT_SUB:
+            case INT_MUL:
+            case INT_DIV:
+            case INT_MOD:
+                return intArith(v1, v2);
+            default:
+                return intCompare(v1, v2);
+        }
+    }
+
+    // Avaliação marcada: inteiros e booleanos sem criar objetos. Os demais
+    // casos passam pelo caminho genérico, com os mesmos erros.
+    @Override
+    public long tagged() {
+        long t1 = left.tagged();
+        Value<?> r1 = Tagged.ref;
+        long t2 = right.tagged();
+        Value<?> r2 = Tagged.ref;
+
+        if (Tagged.isInt(t1) && Tagged.isInt(t2)) {
+            int n1 = Tagged.intValue(t1);
+            int n2 = Tagged.intValue(t2);
+            switch (op) {
+                case ADD:
+                    return Tagged.ofInt(n1 + n2);
+                case SUB:
+                    return Tagged.ofInt(n1 - n2);
+                case MUL:
+                    return Tagged.ofInt(n1 * n2);
+                case DIV:
+                case MOD:
+                    if (n2 == 0) {
+                        Utils.abort(super.getLine());
+                        return Tagged.REF;
+                    }
+                    return Tagged.ofInt(op == BinaryOp.DIV ? n1 / n2 : n1 % n2);
+                case EQUAL:
+                    return Tagged.ofBool(n1 == n2);
+                case NOT_EQUAL:
+                    return Tagged.ofBool(n1 != n2);
+                case LOWER_THAN:
+                    return Tagged.ofBool(n1 < n2);
+                case LOWER_EQUAL:
+                    return Tagged.ofBool(n1 <= n2);
+                case GREATER_THAN:
+                    return Tagged.ofBool(n1 > n2);
+                case GREATER_EQUAL:
+                    return Tagged.ofBool(n1 >= n2);
+                case IF_NULL:
+                    return t1;
+                default:
+                    break;
+            }
+        } else if (Tagged.isBool(t1) && Tagged.isBool(t2)) {
+            boolean b1 = Tagged.boolValue(t1);
+            boolean b2 = Tagged.boolValue(t2);
+            switch (op) {
+                case AND:
+                    return Tagged.ofBool(b1 && b2);
+                case OR:
+                    return Tagged.ofBool(b1 || b2);
+                case EQUAL:
+                    return Tagged.ofBool(b1 == b2);
+                case NOT_EQUAL:
+                    return Tagged.ofBool(b1 != b2);
+                case IF_NULL:
+                    return t1;
+                default:
+                    break;
+            }
+        }
+
+        return Tagged.of(generic(Tagged.value(t1, r1), Tagged.value(t2, r2)));
+    }
+
+    private Value<?> intArith(Value<?> v1, Value<?> v2) {
+        if (!(v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2))
+            return deoptimize(v1, v2);
+
+        int n1 = nv1.intValue();
+        int n2 = nv2.intValue();
+        switch (state) {
+            case INT_ADD:
+                return NumberValue.of(n1 + n2);
+            case INT_SUB:
+                return NumberValue.of(n1 - n2);
+            case INT_MUL:
+                return NumberValue.of(n1 * n2);
+            default:
+                if (n2 == 0) {
+                    Utils.abort(super.getLine());
+                    return null;
+                }
+                return NumberValue.of(state == INT_DIV ? n1 / n2 : n1 % n2);
+        }
+    }
+
+    private Value<?> intCompare(Value<?> v1, Value<?> v2) {
+        if (!(v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2))
+            return deoptimize(v1, v2);
+
+        int n1 = nv1.intValue();
+        int n2 = nv2.intValue();
+        boolean res;
+        switch (state) {
+            case INT_EQUAL:
+                res = n1 == n2;
+                break;
+            case INT_NOT_EQUAL:
+                res = n1 != n2;
+                break;
+            case INT_LOWER_THAN:
+                res = n1 < n2;
+                break;
+            case INT_LOWER_EQUAL:
+                res = n1 <= n2;
+                break;
+            case INT_GREATER_THAN:
+                res = n1 > n2;
+                break;
+            default:
+                res = n1 >= n2;
+                break;
+        }
+
+        return BoolValue.of(res);
+    }
+
+    private Value<?> boolOp(Value<?> v1, Value<?> v2) {
+        if (!(v1 instanceof BoolValue b1 && v2 instanceof BoolValue b2))
+            return deoptimize(v1, v2);
+
+        if (state == BOOL_AND)
+            return BoolValue.of(b1.booleanValue() && b2.booleanValue());
+        return BoolValue.of(b1.booleanValue() || b2.booleanValue());
+    }
+
+    // O teste da especialização falhou: volta de vez para o caso genérico.
+    // Também usado pelo código compilado dos laços quentes.
+    public Value<?> deoptimize(Value<?> v1, Value<?> v2) {
+        state = GENERIC;
+        Specializations.deoptimized();
+        return generic(v1, v2);
+    }
+
+    private int specialize(Value<?> v1, Value<?> v2) {
+        if (v1 instanceof NumberValue && v2 instanceof NumberValue) {
+            switch (op) {
+                case ADD:
+                    return INT_ADD;
+                case SUB:
+                    return INT_SUB;
+                case MUL:
+                    return INT_MUL;
+                case DIV:
+                    return INT_DIV;
+                case MOD:
+                    return INT_MOD;
+                case EQUAL:
+                    return INT_EQUAL;
+                case NOT_EQUAL:
+                    return INT_NOT_EQUAL;
+                case LOWER_THAN:
+                    return INT_LOWER_THAN;
+                case LOWER_EQUAL:
+                    return INT_LOWER_EQUAL;
+                case GREATER_THAN:
+                    return INT_GREATER_THAN;
+                case GREATER_EQUAL:
+                    return INT_GREATER_EQUAL;
+                default:
+                    return GENERIC;
+            }
+        }
+
+        if (v1 instanceof TextValue && v2 instanceof TextValue && op == BinaryOp.ADD)
+            return TEXT_ADD;
+
+        if (v1 instanceof BoolValue && v2 instanceof BoolValue) {
+            if (op == BinaryOp.AND)
+                return BOOL_AND;
+            if (op == BinaryOp.OR)
+                return BOOL_OR;
+        }
+
+        return GENERIC;
+    }
+
+    private Value<?> generic(Value<?> v1, Value<?> v2) {
         switch (op) {
             case IF_NULL:
                 return ifNullOp(v1, v2);
@@ -61,13 +304,13 @@ public class BinaryExpr extends Expr {
     }
 
     private Value<?> ifNullOp(Value<?> v1, Value<?> v2) {
-        if (v1 != null) return v1;
+        if (!(v1 instanceof NullValue)) return v1;
         else return v2;
     }
 
     private Value<?> andOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof BoolValue b1 && v2 instanceof BoolValue b2) {
-            return new BoolValue(b1.value() && b2.value());
+            return BoolValue.of(b1.booleanValue() && b2.booleanValue());
         }
         Utils.abort(super.getLine());
         return null;
@@ -75,43 +318,35 @@ public class BinaryExpr extends Expr {
 
     private Value<?> orOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof BoolValue b1 && v2 instanceof BoolValue b2) {
-            return new BoolValue(b1.value() || b2.value());
+            return BoolValue.of(b1.booleanValue() || b2.booleanValue());
         }
         Utils.abort(super.getLine());
         return null;
     }
 
     private Value<?> equalOp(Value<?> v1, Value<?> v2) {
-        if (v1 != null && v2 != null) {
-            return new BoolValue(v1.value().equals(v2.value()));
-        }
-
-        if (v1 == null && v2 == null) {
-            return new BoolValue(true);
+        if (v1 instanceof NullValue || v2 instanceof NullValue) {
+            return BoolValue.of(v1 == v2);
         }
 
-        return new BoolValue(false);
+        return BoolValue.of(v1.value().equals(v2.value()));
     }
 
     private Value<?> notEqualOp(Value<?> v1, Value<?> v2) {
-        if (v1 != null && v2 != null) {
-            return new BoolValue(!v1.value().equals(v2.value()));
-        }
-
-        if (v1 == null && v2 == null) {
-            return new BoolValue(false);
+        if (v1 instanceof NullValue || v2 instanceof NullValue) {
+            return BoolValue.of(v1 != v2);
         }
 
-        return new BoolValue(true);
+        return BoolValue.of(!v1.value().equals(v2.value()));
     }
 
     private Value<?> lowerThanOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            int n1 = nv1.value();
-            int n2 = nv2.value();
+            int n1 = nv1.intValue();
+            int n2 = nv2.intValue();
             boolean res = n1 < n2;
 
-            return new BoolValue(res);
+            return BoolValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
@@ -120,11 +355,11 @@ public class BinaryExpr extends Expr {
 
     private Value<?> lowerEqualOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            int n1 = nv1.value();
-            int n2 = nv2.value();
+            int n1 = nv1.intValue();
+            int n2 = nv2.intValue();
             boolean res = n1 <= n2;
 
-            return new BoolValue(res);
+            return BoolValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
@@ -133,11 +368,11 @@ public class BinaryExpr extends Expr {
 
     private Value<?> greaterThanOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            int n1 = nv1.value();
-            int n2 = nv2.value();
+            int n1 = nv1.intValue();
+            int n2 = nv2.intValue();
             boolean res = n1 > n2;
 
-            return new BoolValue(res);
+            return BoolValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
@@ -146,11 +381,11 @@ public class BinaryExpr extends Expr {
 
     private Value<?> greaterEqualOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            int n1 = nv1.value();
-            int n2 = nv2.value();
+            int n1 = nv1.intValue();
+            int n2 = nv2.intValue();
             boolean res = n1 >= n2;
 
-            return new BoolValue(res);
+            return BoolValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
@@ -159,11 +394,11 @@ public class BinaryExpr extends Expr {
 
     private Value<?> addOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            return new NumberValue(nv1.value() + nv2.value());
+            return NumberValue.of(nv1.intValue() + nv2.intValue());
         }
 
         if (v1 instanceof TextValue tv1 && v2 instanceof TextValue tv2) {
-            return new TextValue(tv1.value() + tv2.value());
+            return TextValue.concat(tv1, tv2);
         }
 
         Utils.abort(super.getLine());
@@ -172,7 +407,7 @@ public class BinaryExpr extends Expr {
 
     private Value<?> subOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            return new NumberValue(nv1.value() - nv2.value());
+            return NumberValue.of(nv1.intValue() - nv2.intValue());
         } else {
             Utils.abort(super.getLine());
             return null;
@@ -181,7 +416,7 @@ public class BinaryExpr extends Expr {
 
     private Value<?> mulOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            return new NumberValue(nv1.value() * nv2.value());
+            return NumberValue.of(nv1.intValue() * nv2.intValue());
         } else {
             Utils.abort(super.getLine());
             return null;
@@ -190,11 +425,11 @@ public class BinaryExpr extends Expr {
 
     private Value<?> divOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            int n1 = nv1.value();
-            int n2 = nv2.value();
+            int n1 = nv1.intValue();
+            int n2 = nv2.intValue();
             if (n2 != 0) {
                 int res = n1 / n2;
-                return new NumberValue(res);
+                return NumberValue.of(res);
             }
         }
 
@@ -204,11 +439,11 @@ public class BinaryExpr extends Expr {
 
     private Value<?> modOp(Value<?> v1, Value<?> v2) {
         if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
-            int n1 = nv1.value();
-            int n2 = nv2.value();
+            int n1 = nv1.intValue();
+            int n2 = nv2.intValue();
             if (n2 != 0) {
                 int res = n1 % n2;
-                return new NumberValue(res);
+                return NumberValue.of(res);
             }
         }
 
@@ -5,14 +5,27 @@ import interpreter.value.Value;
 public class ConstExpr extends Expr {
 
     private Value<?> value;
+    private final long bits;
 
     public ConstExpr(int line, Value<?> value) {
         super(line);
         this.value = value;
+        this.bits = Tagged.of(value);
+    }
+
+    public Value<?> getValue() {
+        return value;
     }
 
     @Override
     public Value<?> expr() {
         return value;
     }
+
+    @Override
+    public long tagged() {
+        if (bits == Tagged.REF)
+            Tagged.ref = value;
+        return bits;
+    }
 }
@@ -16,4 +16,10 @@ public abstract class Expr {
 
     public abstract Value<?> expr();
 
+    // Avaliação marcada (Tagged). Por padrão cria o Value e o marca; os nós
+    // aritméticos, as constantes e as variáveis evitam o objeto.
+    public long tagged() {
+        return Tagged.of(expr());
+    }
+
 }
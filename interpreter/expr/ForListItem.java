@@ -1,11 +1,14 @@
 package interpreter.expr;
 
 import interpreter.util.Utils;
+import interpreter.value.CompactList;
 import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.RangeList;
 import interpreter.value.Value;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ForListItem extends ListItem {
 
@@ -20,21 +23,75 @@ public class ForListItem extends ListItem {
         this.item = item;
     }
 
+    public Variable getVar() {
+        return var;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public ListItem getItem() {
+        return item;
+    }
+
+    // Os valores do item interno vão direto para sink, em qualquer nível de
+    // aninhamento; quando o item interno tem tamanho fixo, o espaço para
+    // todos é reservado de uma vez.
     @Override
-    public List<Value<?>> items() {
+    public void emit(List<Value<?>> sink) {
         var v = expr.expr();
         if (!(v instanceof ListValue lv)) {
             Utils.abort(super.getLine());
-            return null;
+            return;
         }
 
         var list = lv.value();
-        List<Value<?>> l = new ArrayList<>();
+        int width = item.sizeHint();
+        if (width > 0 && sink instanceof CompactList c)
+            c.reserve(c.size() + list.size() * width);
+        if (list instanceof RangeList r) {
+            for (int i = 0; i < r.size(); i++) {
+                next(r, i);
+                item.emit(sink);
+            }
+            return;
+        }
         for (var i : list) {
             var.setValue(i);
-            l.addAll(item.items());
+            item.emit(sink);
         }
+    }
+
+    @Override
+    public void each(Consumer<Value<?>> action) {
+        var v = expr.expr();
+        if (!(v instanceof ListValue lv)) {
+            Utils.abort(super.getLine());
+            return;
+        }
+
+        if (lv.value() instanceof RangeList r) {
+            for (int i = 0; i < r.size(); i++) {
+                next(r, i);
+                item.each(action);
+            }
+            return;
+        }
+        for (var i : lv.value()) {
+            var.setValue(i);
+            item.each(action);
+        }
+    }
 
-        return l;
+    // Um range ainda não escrito é percorrido só com o contador, sem
+    // iterador; com --tagged, o elemento nem vira NumberValue.
+    private void next(RangeList r, int i) {
+        if (!r.isLazy())
+            var.setValue(r.get(i));
+        else if (Tagged.isEnabled())
+            var.setTagged(Tagged.ofInt(r.intAt(i)));
+        else
+            var.setValue(NumberValue.of(r.intAt(i)));
     }
 }
@@ -1,6 +1,5 @@
 package interpreter.expr;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
@@ -9,8 +8,11 @@ import org.w3c.dom.Text;
 
 import interpreter.util.Utils;
 import interpreter.value.BoolValue;
+import interpreter.value.CompactList;
+import interpreter.value.IndexedMap;
 import interpreter.value.ListValue;
 import interpreter.value.MapValue;
+import interpreter.value.NullValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
@@ -29,10 +31,26 @@ public class FunctionExpr extends Expr {
         this.expr = expr;
     }
 
+    public FunctionOp getOp() {
+        return op;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
     @Override
     public Value<?> expr() {
+        // length de uma compreensão conta os valores sem montar a lista.
+        if (op == FunctionOp.LENGTH && expr instanceof ListExpr l)
+            return NumberValue.of(l.count());
+
         Value<?> v = expr.expr();
+        return apply(op, v, super.getLine());
+    }
 
+    // Também usado pela máquina virtual, para as duas execuções se comportarem igual.
+    public static Value<?> apply(FunctionOp op, Value<?> v, int line) {
         switch (op) {
             case READ:
                 return readOp(v);
@@ -51,60 +69,64 @@ public class FunctionExpr extends Expr {
             case TOSTR:
                 return toStrOp(v);
             default:
-                Utils.abort(super.getLine());
+                Utils.abort(line);
                 return null;
         }
     }
 
-    private TextValue readOp(Value<?> v) {
+    private static Value<?> readOp(Value<?> v) {
         System.out.print(v);
 
         String text = input.nextLine().trim();
-        return text.isEmpty() ? null : new TextValue(text);
+        return text.isEmpty() ? NullValue.NULL : new TextValue(text);
     }
 
-    private NumberValue randomOp(Value<?> v) {
+    private static NumberValue randomOp(Value<?> v) {
         if (v instanceof NumberValue n) {
-            return new NumberValue((int) (Math.random() * n.value()));
+            return NumberValue.of((int) (Math.random() * n.intValue()));
         }
 
         throw new RuntimeException("Invalid operand type");
     }
 
-    private NumberValue lengthOp(Value<?> v) {
+    private static NumberValue lengthOp(Value<?> v) {
         if (v instanceof ListValue l) {
-            return new NumberValue(l.value().size());
+            return NumberValue.of(l.value().size());
         }
 
         throw new RuntimeException("Invalid operand type");
     }
 
-    private ListValue keysOp(Value<?> v) {
+    private static ListValue keysOp(Value<?> v) {
         if (v instanceof MapValue m) {
-            List<Value<?>> keys = new ArrayList<>(m.value().keySet());
-            return new ListValue(keys);
+            // Uma visão sobre o mapa, copiada só se alguém escrever nela.
+            if (m.value() instanceof IndexedMap im)
+                return new ListValue(im.keyList());
+            return new ListValue(new CompactList(m.value().keySet()));
         }
 
         throw new RuntimeException("Invalid operand type");
     }
 
-    private ListValue valuesOp(Value<?> v) {
+    private static ListValue valuesOp(Value<?> v) {
         if (v instanceof MapValue m) {
-            List<Value<?>> values = new ArrayList<>(m.value().values());
-            return new ListValue(values);
+            // Uma visão sobre o mapa, copiada só se alguém escrever nela.
+            if (m.value() instanceof IndexedMap im)
+                return new ListValue(im.valueList());
+            return new ListValue(new CompactList(m.value().values()));
         }
 
         throw new RuntimeException("Invalid operand type");
     }
 
-    private BoolValue toBoolOp(Value<?> v) {
+    private static BoolValue toBoolOp(Value<?> v) {
         boolean b;
-        if (v == null) {
+        if (v instanceof NullValue) {
             b = false;
         } else if (v instanceof BoolValue bv) {
-            b = bv.value();
+            b = bv.booleanValue();
         } else if (v instanceof NumberValue nv) {
-            b = nv.value() != 0;
+            b = nv.intValue() != 0;
         } else if (v instanceof TextValue tv) {
             b = !tv.value().isEmpty();
         } else if (v instanceof ListValue lv) {
@@ -115,19 +137,19 @@ public class FunctionExpr extends Expr {
             b = true;
         }
 
-        return new BoolValue(b);
+        return BoolValue.of(b);
     }
 
-    private NumberValue toIntOp(Value<?> v) {
+    private static NumberValue toIntOp(Value<?> v) {
         int n;
-        if (v == null) {
+        if (v instanceof NullValue) {
             n = 0;
         } else if (v instanceof BoolValue bv) {
-            boolean b = bv.value();
+            boolean b = bv.booleanValue();
 
             n = b ? 1 : 0;
         } else if (v instanceof NumberValue nv) {
-            n = nv.value();
+            n = nv.intValue();
         } else if (v instanceof TextValue sv) {
             String s = sv.value();
 
@@ -140,10 +162,10 @@ public class FunctionExpr extends Expr {
             n = 0;
         }
 
-        return new NumberValue(n);
+        return NumberValue.of(n);
     }
 
-    private TextValue toStrOp(Value<?> v) {
+    private static TextValue toStrOp(Value<?> v) {
         return new TextValue(v.value().toString());
     }
 
@@ -5,6 +5,7 @@ import interpreter.value.BoolValue;
 import interpreter.value.Value;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public class IfListItem extends ListItem {
 
@@ -19,21 +20,54 @@ public class IfListItem extends ListItem {
         this.elseItem = elseItem;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public ListItem getThen() {
+        return thenItem;
+    }
+
+    public ListItem getElse() {
+        return elseItem;
+    }
+
     @Override
-    public List<Value<?>> items() {
+    public void emit(List<Value<?>> sink) {
         var v = expr.expr();
         if (!(v instanceof BoolValue bv)) {
             Utils.abort(super.getLine());
-            return null;
+            return;
         }
 
-        if (bv.value()) {
-            return thenItem.items();
+        if (bv.booleanValue()) {
+            thenItem.emit(sink);
         } else {
             if (elseItem != null)
-                return elseItem.items();
+                elseItem.emit(sink);
         }
+    }
 
-        return List.of();
+    @Override
+    public void each(Consumer<Value<?>> action) {
+        var v = expr.expr();
+        if (!(v instanceof BoolValue bv)) {
+            Utils.abort(super.getLine());
+            return;
+        }
+
+        if (bv.booleanValue()) {
+            thenItem.each(action);
+        } else {
+            if (elseItem != null)
+                elseItem.each(action);
+        }
+    }
+
+    // Com else, os dois ramos do mesmo tamanho fixo dão o tamanho do item.
+    @Override
+    public int sizeHint() {
+        int n = thenItem.sizeHint();
+        return elseItem != null && elseItem.sizeHint() == n ? n : 0;
     }
 }
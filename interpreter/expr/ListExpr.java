@@ -1,30 +1,101 @@
 package interpreter.expr;
 
+import interpreter.value.CompactList;
 import interpreter.value.ListValue;
+import interpreter.value.PersistentList;
 import interpreter.value.Value;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ListExpr extends Expr {
 
     private final List<ListItem> list;
 
+    // Um literal que começa espalhando uma variável final, ou uma que nunca
+    // é escrita por índice, e depois só tem itens simples e outros spreads
+    // (o acúmulo l = [...l, x] e a junção [...a, ...b]) monta uma
+    // PersistentList a partir da primeira lista, sem copiá-la. Decidido na
+    // primeira avaliação, quando a árvore toda já marcou suas variáveis.
+    private boolean resolved;
+    private boolean persistent;
+    // Soma dos tamanhos fixos dos itens, reservada antes de avaliá-los.
+    private int hint;
+
     public ListExpr(int line) {
         super(line);
         this.list = new ArrayList<>();
     }
 
+    public List<ListItem> getItems() {
+        return list;
+    }
+
     public void addItem(ListItem item){
         this.list.add(item);
     }
 
     @Override
     public Value<?> expr() {
-        List<Value<?>> l = new ArrayList<>();
+        if (!resolved)
+            resolve();
+        if (persistent)
+            return extend();
+
+        CompactList l = new CompactList();
+        emit(l);
+        return new ListValue(l);
+    }
+
+    // Os valores do literal direto no fim de sink, como um spread dele.
+    public void emit(List<Value<?>> sink) {
+        if (!resolved)
+            resolve();
+        if (sink instanceof CompactList c)
+            c.reserve(c.size() + hint);
+        for (ListItem item : list) {
+            item.emit(sink);
+        }
+    }
+
+    // Os valores do literal um a um, sem montar a lista; usado pelos laços
+    // fundidos (LoopFusion).
+    public void each(Consumer<Value<?>> action) {
         for (ListItem item : list) {
-            l.addAll(item.items());
+            item.each(action);
         }
+    }
+
+    // O tamanho que a lista teria, avaliando tudo como expr() mas sem
+    // guardar os valores; é o length() de um literal.
+    public int count() {
+        int[] n = new int[1];
+        each(v -> n[0]++);
+        return n[0];
+    }
+
+    private Value<?> extend() {
+        PersistentList l = PersistentList.of(((SpreadListItem) list.get(0)).list());
+        for (int i = 1; i < list.size(); i++)
+            list.get(i).emit(l);
         return new ListValue(l);
     }
+
+    private void resolve() {
+        resolved = true;
+        for (ListItem item : list)
+            hint += item.sizeHint();
+
+        if (list.isEmpty() || !(list.get(0) instanceof SpreadListItem s) || !(s.getExpr() instanceof Variable v))
+            return;
+        if (!v.isConstant() && v.isIndexed())
+            return;
+
+        for (ListItem item : list) {
+            if (!(item instanceof SingleListItem) && !(item instanceof SpreadListItem))
+                return;
+        }
+        persistent = true;
+    }
 }
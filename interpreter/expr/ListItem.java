@@ -1,6 +1,7 @@
 package interpreter.expr;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import interpreter.value.Value;
 
@@ -16,5 +17,18 @@ public abstract class ListItem {
     return line;
   }
 
-  public abstract List<Value<?>> items();
+  // Acrescenta os valores do item direto no fim da lista em construção,
+  // sem lista intermediária.
+  public abstract void emit(List<Value<?>> sink);
+
+  // Entrega os valores do item um a um, na mesma ordem e com as mesmas
+  // avaliações de emit, mas sem lista nenhuma: é o produtor dos laços
+  // fundidos com a compreensão que percorrem.
+  public abstract void each(Consumer<Value<?>> action);
+
+  // Quantos valores o item acrescenta a cada avaliação, quando é sempre o
+  // mesmo número; 0 quando só se sabe ao avaliar.
+  public int sizeHint() {
+    return 0;
+  }
 }
@@ -1,34 +1,54 @@
 package interpreter.expr;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import interpreter.util.Utils;
+import interpreter.value.CompactMap;
 import interpreter.value.MapValue;
+import interpreter.value.NullValue;
+import interpreter.value.Shape;
+import interpreter.value.ShapedMap;
+import interpreter.value.TextValue;
 import interpreter.value.Value;
 
 public class MapExpr extends Expr {
     
     private final List<MapItem> map;
+
+    // Com todas as chaves textos constantes, o literal é um registro: a
+    // forma é calculada na primeira avaliação e slots[i] é a posição do
+    // item i nela. Sem forma, shape fica null depois dessa avaliação.
+    private boolean resolved;
+    private Shape shape;
+    private int[] slots;
     
     public MapExpr(int line) {
         super(line);
         map = new ArrayList<>();
     }
 
+    public List<MapItem> getItems() {
+        return map;
+    }
+
     public void addItem(MapItem item) {
         map.add(item);
     }
 
     @Override
     public Value<?> expr() {
-        Map<Value<?>, Value<?>> m = new HashMap<>();
+        if (!resolved)
+            resolve();
+        if (shape != null)
+            return record();
+
+        Map<Value<?>, Value<?>> m = new CompactMap();
             
         for (MapItem item : map) {
             Value<?> key = item.key.expr();
-            if (key == null)
+            if (key instanceof NullValue)
                 Utils.abort(super.getLine());
                 
             Value<?> value = item.value.expr();
@@ -39,4 +59,30 @@ public class MapExpr extends Expr {
         return new MapValue(m);
     }
 
+    private Value<?> record() {
+        ShapedMap m = new ShapedMap(shape);
+        for (int i = 0; i < slots.length; i++)
+            m.setSlot(slots[i], map.get(i).value.expr());
+
+        return new MapValue(m);
+    }
+
+    private void resolve() {
+        resolved = true;
+        if (map.isEmpty())
+            return;
+
+        Shape s = Shape.EMPTY;
+        int[] pos = new int[map.size()];
+        for (int i = 0; i < pos.length; i++) {
+            if (!(map.get(i).key instanceof ConstExpr c) || !(c.getValue() instanceof TextValue tv))
+                return;
+            s = s.with(tv);
+            pos[i] = s.slot(tv);
+        }
+
+        shape = s;
+        slots = pos;
+    }
+
 }
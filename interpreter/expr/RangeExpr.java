@@ -0,0 +1,68 @@
+package interpreter.expr;
+
+import interpreter.util.Utils;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.RangeList;
+import interpreter.value.Value;
+
+// range(n) ou range(a, b): a lista dos inteiros de [0, n) ou [a, b), sem
+// nenhum valor guardado (RangeList). Um intervalo com mais de
+// Integer.MAX_VALUE elementos é um erro na linha do range.
+public class RangeExpr extends Expr {
+
+    // null em range(n).
+    private final Expr from;
+    private final Expr to;
+
+    public RangeExpr(int line, Expr from, Expr to) {
+        super(line);
+
+        this.from = from;
+        this.to = to;
+    }
+
+    public Expr getFrom() {
+        return from;
+    }
+
+    public Expr getTo() {
+        return to;
+    }
+
+    @Override
+    public Value<?> expr() {
+        int a = from == null ? 0 : bound(from);
+        int b = bound(to);
+        return of(a, b, getLine());
+    }
+
+    // Com --tagged, os limites não viram NumberValue.
+    private static int bound(Expr e) {
+        if (!Tagged.isEnabled())
+            return bound(e.expr());
+
+        long t = e.tagged();
+        return Tagged.isInt(t) ? Tagged.intValue(t) : bound(Tagged.value(t));
+    }
+
+    // Também usado pela máquina virtual, para as duas execuções se comportarem igual.
+    public static ListValue apply(Value<?> from, Value<?> to, int line) {
+        return of(bound(from), bound(to), line);
+    }
+
+    private static ListValue of(int a, int b, int line) {
+        if (!RangeList.fits(a, b))
+            Utils.abort(line);
+
+        return new ListValue(new RangeList(a, b));
+    }
+
+    private static int bound(Value<?> v) {
+        if (v instanceof NumberValue n)
+            return n.intValue();
+
+        throw new RuntimeException("Invalid operand type");
+    }
+
+}
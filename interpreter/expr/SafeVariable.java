@@ -1,17 +1,22 @@
 package interpreter.expr;
 
 import interpreter.util.Utils;
+import interpreter.value.NullValue;
 import interpreter.value.Value;
 
 public class SafeVariable extends Variable {
 
     private boolean initialized;
     private Value<?> value;
+    // Com boxed falso, o valor está só em bits, marcado (Tagged).
+    private long bits;
+    private boolean boxed;
 
     public SafeVariable(int line, String name, boolean constant) {
         super(line, name, constant);
         this.initialized = false;
         this.value = null;
+        this.boxed = true;
     }
 
     public Value<?> expr() {
@@ -20,7 +25,12 @@ public class SafeVariable extends Variable {
             return null;
         }
 
-        if (value == null) {
+        if (!boxed) {
+            value = Tagged.value(bits, null);
+            boxed = true;
+        }
+
+        if (value instanceof NullValue) {
             Utils.abort(super.getLine());
             return null;
         }
@@ -32,12 +42,44 @@ public class SafeVariable extends Variable {
         if (initialized && super.isConstant())
             Utils.abort(super.getLine());
 
-        if (value == null) {
+        if (value instanceof NullValue) {
             Utils.abort(super.getLine());
             return;
         }
 
         this.value = value;
+        this.boxed = true;
+        this.initialized = true;
+    }
+
+    public long tagged() {
+        if (!initialized) {
+            Utils.abort(super.getLine());
+            return Tagged.REF;
+        }
+
+        if (!boxed)
+            return bits;
+
+        if (value instanceof NullValue) {
+            Utils.abort(super.getLine());
+            return Tagged.REF;
+        }
+
+        return Tagged.of(value);
+    }
+
+    public void setTagged(long t) {
+        if (t == Tagged.REF) {
+            setValue(Tagged.ref);
+            return;
+        }
+
+        if (initialized && super.isConstant())
+            Utils.abort(super.getLine());
+
+        this.bits = t;
+        this.boxed = false;
         this.initialized = true;
     }
 }
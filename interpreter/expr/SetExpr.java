@@ -10,5 +10,11 @@ public abstract class SetExpr extends Expr {
     
     public abstract Value<?> expr();
     public abstract void setValue(Value<?> value);
+
+    // Escrita marcada (Tagged). Por padrão cria o Value; as variáveis e o
+    // acesso a mapas de chaves numéricas guardam o inteiro direto.
+    public void setTagged(long t) {
+        setValue(Tagged.value(t));
+    }
     
 }
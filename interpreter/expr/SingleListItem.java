@@ -1,8 +1,9 @@
 package interpreter.expr;
 
 import java.util.List;
+import java.util.function.Consumer;
 
-import interpreter.value.ListValue;
+import interpreter.value.NullValue;
 import interpreter.value.Value;
 
 public class SingleListItem extends ListItem {
@@ -14,10 +15,31 @@ public class SingleListItem extends ListItem {
         this.expr = expr;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
     @Override
-    public List<Value<?>> items() {
+    public void emit(List<Value<?>> sink) {
         var v = expr.expr();
-        return List.of(v);
+        // O null num item de lista sempre derrubou o interpretador, como o
+        // antigo List.of(null).
+        if (v instanceof NullValue)
+            throw new NullPointerException();
+        sink.add(v);
+    }
+
+    @Override
+    public void each(Consumer<Value<?>> action) {
+        var v = expr.expr();
+        if (v instanceof NullValue)
+            throw new NullPointerException();
+        action.accept(v);
+    }
+
+    @Override
+    public int sizeHint() {
+        return 1;
     }
 
 }
@@ -0,0 +1,34 @@
+package interpreter.expr;
+
+// Contadores de nós que se especializaram para os tipos observados na
+// primeira avaliação e de nós que depois voltaram ao caso genérico porque o
+// teste da especialização falhou.
+public final class Specializations {
+
+    private static int specialized;
+    private static int deoptimized;
+
+    private Specializations() {
+    }
+
+    static void specialized() {
+        specialized++;
+    }
+
+    static void deoptimized() {
+        deoptimized++;
+    }
+
+    public static int getSpecialized() {
+        return specialized;
+    }
+
+    public static int getDeoptimized() {
+        return deoptimized;
+    }
+
+    public static String report() {
+        return String.format("nós especializados: %d, desespecializados: %d", specialized, deoptimized);
+    }
+
+}
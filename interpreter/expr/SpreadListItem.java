@@ -1,8 +1,10 @@
 package interpreter.expr;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import interpreter.util.Utils;
+import interpreter.value.CompactList;
 import interpreter.value.ListValue;
 import interpreter.value.Value;
 
@@ -15,8 +17,12 @@ public class SpreadListItem extends ListItem {
         this.expr = expr;
     }
 
-    @Override
-    public List<Value<?>> items() {
+    public Expr getExpr() {
+        return expr;
+    }
+
+    // A lista espalhada, sem cópia.
+    public List<Value<?>> list() {
         var v = expr.expr();
         if (!(v instanceof ListValue lv)) {
             Utils.abort(super.getLine());
@@ -26,4 +32,30 @@ public class SpreadListItem extends ListItem {
         return lv.value();
     }
 
+    // Espalhar um literal ou uma compreensão põe os itens dela direto em
+    // sink, sem montar a lista do meio.
+    @Override
+    public void emit(List<Value<?>> sink) {
+        if (expr instanceof ListExpr inner) {
+            inner.emit(sink);
+            return;
+        }
+
+        var l = list();
+        if (sink instanceof CompactList c)
+            c.reserve(c.size() + l.size());
+        sink.addAll(l);
+    }
+
+    @Override
+    public void each(Consumer<Value<?>> action) {
+        if (expr instanceof ListExpr inner) {
+            inner.each(action);
+            return;
+        }
+
+        for (var v : list())
+            action.accept(v);
+    }
+
 }
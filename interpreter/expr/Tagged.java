@@ -0,0 +1,86 @@
+package interpreter.expr;
+
+import interpreter.value.BoolValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Valores marcados da avaliação sem alocação (mdi --tagged). Inteiros e
+// booleanos viajam num long: os 32 bits altos são a marca e os baixos o
+// valor. Os demais (texto, lista, mapa e null) ficam no registrador ref, com
+// a marca REF; quem recebe um REF lê o registrador antes de avaliar outra
+// expressão. Os objetos Value só são criados quando o valor sai para uma
+// lista, um mapa ou um print.
+public final class Tagged {
+
+    public static final long REF = 0;
+
+    private static final long TAG = 0xffffffff00000000L;
+    private static final long INT = 1L << 32;
+    private static final long BOOL = 2L << 32;
+
+    static Value<?> ref;
+    private static boolean enabled;
+
+    private Tagged() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static long ofInt(int n) {
+        return INT | (n & 0xffffffffL);
+    }
+
+    public static long ofBool(boolean b) {
+        return b ? BOOL | 1 : BOOL;
+    }
+
+    public static boolean isInt(long t) {
+        return (t & TAG) == INT;
+    }
+
+    public static boolean isBool(long t) {
+        return (t & TAG) == BOOL;
+    }
+
+    public static int intValue(long t) {
+        return (int) t;
+    }
+
+    public static boolean boolValue(long t) {
+        return (t & 1) != 0;
+    }
+
+    public static long of(Value<?> v) {
+        if (v instanceof NumberValue nv)
+            return ofInt(nv.intValue());
+        if (v instanceof BoolValue bv)
+            return ofBool(bv.booleanValue());
+        ref = v;
+        return REF;
+    }
+
+    // O Value de um valor marcado; para REF, o que estava no registrador
+    // quando o valor foi produzido.
+    public static Value<?> value(long t, Value<?> ref) {
+        if (isInt(t))
+            return NumberValue.of(intValue(t));
+        if (isBool(t))
+            return BoolValue.of(boolValue(t));
+        return ref;
+    }
+
+    public static Value<?> value(long t) {
+        return value(t, ref);
+    }
+
+}
@@ -7,89 +7,204 @@ import interpreter.value.Value;
 
 public class UnaryExpr extends Expr {
 
+    // Como em BinaryExpr: o nó se especializa para o tipo do operando visto
+    // na primeira avaliação. Para ++ e --, a especialização já guarda o passo
+    // e o destino da escrita.
+    private static final int UNINITIALIZED = 0;
+    private static final int GENERIC = 1;
+    private static final int INT_NEG = 2;
+    private static final int BOOL_NOT = 3;
+    private static final int INT_STEP = 4;
+
     private final Expr expr;
     private final UnaryOp op;
+    private int state;
+    private int delta;
+    private boolean post;
+    private SetExpr target;
 
     public UnaryExpr(int line, Expr expr, UnaryOp op) {
         super(line);
         this.expr = expr;
         this.op = op;
+        if (op != UnaryOp.NEG && op != UnaryOp.NOT && expr instanceof AccessExpr a)
+            a.markWritten();
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public UnaryOp getOp() {
+        return op;
+    }
+
+    // Se o nó está especializado para ++ ou -- sobre inteiros.
+    public boolean isIntStep() {
+        return state == INT_STEP;
     }
 
     @Override
     public Value<?> expr() {
+        Value<?> v = expr.expr();
+        switch (state) {
+            case INT_NEG:
+                if (v instanceof NumberValue nv)
+                    return NumberValue.of(-nv.intValue());
+                break;
+            case BOOL_NOT:
+                if (v instanceof BoolValue bv)
+                    return BoolValue.of(!bv.booleanValue());
+                break;
+            case INT_STEP:
+                if (v instanceof NumberValue nv) {
+                    NumberValue res = NumberValue.of(nv.intValue() + delta);
+                    if (target != null)
+                        target.setValue(res);
+                    return post ? nv : res;
+                }
+                break;
+            case UNINITIALIZED:
+                specialize(v);
+                return generic(v);
+            default:
+                return generic(v);
+        }
+
+        return deoptimize(v);
+    }
+
+    // Avaliação marcada. ++ e -- sobre uma variável ou um acesso por índice
+    // leem e gravam o inteiro marcado, sem criar objetos onde o destino
+    // guarda o inteiro direto.
+    @Override
+    public long tagged() {
+        switch (op) {
+            case NEG: {
+                long t = expr.tagged();
+                if (Tagged.isInt(t))
+                    return Tagged.ofInt(-Tagged.intValue(t));
+                return Tagged.of(generic(Tagged.value(t)));
+            }
+            case NOT: {
+                long t = expr.tagged();
+                if (Tagged.isBool(t))
+                    return Tagged.ofBool(!Tagged.boolValue(t));
+                return Tagged.of(generic(Tagged.value(t)));
+            }
+            default:
+                break;
+        }
+
+        if (!(expr instanceof SetExpr target))
+            return Tagged.of(expr());
+
+        long t = target.tagged();
+        if (!Tagged.isInt(t))
+            return Tagged.of(generic(Tagged.value(t)));
+
+        int step = op == UnaryOp.PRE_INC || op == UnaryOp.POS_INC ? 1 : -1;
+        long res = Tagged.ofInt(Tagged.intValue(t) + step);
+        target.setTagged(res);
+        return op == UnaryOp.POS_INC || op == UnaryOp.POS_DEC ? t : res;
+    }
+
+    // O teste da especialização falhou: volta de vez para o caso genérico.
+    // Também usado pelo código compilado dos laços quentes.
+    public Value<?> deoptimize(Value<?> v) {
+        state = GENERIC;
+        Specializations.deoptimized();
+        return generic(v);
+    }
+
+    private void specialize(Value<?> v) {
+        if (op == UnaryOp.NEG && v instanceof NumberValue) {
+            state = INT_NEG;
+        } else if (op == UnaryOp.NOT && v instanceof BoolValue) {
+            state = BOOL_NOT;
+        } else if (op != UnaryOp.NEG && op != UnaryOp.NOT && v instanceof NumberValue) {
+            state = INT_STEP;
+            delta = op == UnaryOp.PRE_INC || op == UnaryOp.POS_INC ? 1 : -1;
+            post = op == UnaryOp.POS_INC || op == UnaryOp.POS_DEC;
+            if (expr instanceof Variable || expr instanceof AccessExpr)
+                target = (SetExpr) expr;
+        } else {
+            state = GENERIC;
+            return;
+        }
+
+        Specializations.specialized();
+    }
+
+    private Value<?> generic(Value<?> v) {
         switch (op) {
             case NEG:
-                return negOp();
+                return negOp(v);
             case NOT:
-                return notOp();
+                return notOp(v);
             case PRE_INC:
-                return preIncOp();
+                return preIncOp(v);
             case POS_INC:
-                return posIncOp();
+                return posIncOp(v);
             case PRE_DEC:
-                return preDecOp();
+                return preDecOp(v);
             case POS_DEC:
-                return posDecOp();
+                return posDecOp(v);
             default:
                 Utils.abort(super.getLine());
                 return null;
         }
     }
 
-    private Value<?> negOp() {
-        Value<?> v = expr.expr();
+    private Value<?> negOp(Value<?> v) {
         if (v instanceof NumberValue nv) {
-            int n = nv.value();
+            int n = nv.intValue();
             int res = -n;
-            return new NumberValue(res);
+            return NumberValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
         }
     }
 
-    private Value<?> notOp() {
-        Value<?> v = expr.expr();
+    private Value<?> notOp(Value<?> v) {
         if (v instanceof BoolValue bv) {
-            boolean b = bv.value();
+            boolean b = bv.booleanValue();
             boolean res = !b;
-            return new BoolValue(res);
+            return BoolValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
         }
     }
 
-    private Value<?> preIncOp() {
-        var v = expr.expr();
+    private Value<?> preIncOp(Value<?> v) {
         if (v instanceof NumberValue nv) {
-            int n = nv.value();
+            int n = nv.intValue();
             int res = n + 1;
 
             if (expr instanceof Variable v1) {
-                v1.setValue(new NumberValue(res));
+                v1.setValue(NumberValue.of(res));
             } else if (expr instanceof AccessExpr a) {
-                a.setValue(new NumberValue(res));
+                a.setValue(NumberValue.of(res));
             }
 
-            return new NumberValue(res);
+            return NumberValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
         }
     }
 
-    private Value<?> posIncOp() {
-        var v = expr.expr();
+    private Value<?> posIncOp(Value<?> v) {
         if (v instanceof NumberValue nv) {
-            int n = nv.value();
+            int n = nv.intValue();
             int res = n + 1;
 
             if (expr instanceof Variable var) {
-                var.setValue(new NumberValue(res));
+                var.setValue(NumberValue.of(res));
             } else if (expr instanceof AccessExpr ae) {
-                ae.setValue(new NumberValue(res));
+                ae.setValue(NumberValue.of(res));
             }
 
             return nv;
@@ -99,35 +214,33 @@ public class UnaryExpr extends Expr {
         }
     }
 
-    private Value<?> preDecOp() {
-        var v = expr.expr();
+    private Value<?> preDecOp(Value<?> v) {
         if (v instanceof NumberValue nv) {
-            int n = nv.value();
+            int n = nv.intValue();
             int res = n - 1;
 
             if (expr instanceof Variable v1) {
-                v1.setValue(new NumberValue(res));
+                v1.setValue(NumberValue.of(res));
             } else if (expr instanceof AccessExpr a) {
-                a.setValue(new NumberValue(res));
+                a.setValue(NumberValue.of(res));
             }
 
-            return new NumberValue(res);
+            return NumberValue.of(res);
         } else {
             Utils.abort(super.getLine());
             return null;
         }
     }
 
-    private Value<?> posDecOp() {
-        var v = expr.expr();
+    private Value<?> posDecOp(Value<?> v) {
         if (v instanceof NumberValue nv) {
-            int n = nv.value();
+            int n = nv.intValue();
             int res = n - 1;
 
             if (expr instanceof Variable var) {
-                var.setValue(new NumberValue(res));
+                var.setValue(NumberValue.of(res));
             } else if (expr instanceof AccessExpr ae) {
-                ae.setValue(new NumberValue(res));
+                ae.setValue(NumberValue.of(res));
             }
 
             return nv;
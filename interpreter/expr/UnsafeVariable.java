@@ -7,17 +7,26 @@ public class UnsafeVariable extends Variable {
 
     private boolean initialized;
     private Value<?> value;
+    // Com boxed falso, o valor está só em bits, marcado (Tagged).
+    private long bits;
+    private boolean boxed;
 
     public UnsafeVariable(int line, String name, boolean constant) {
         super(line, name, constant);
         this.initialized = false;
         this.value = null;
+        this.boxed = true;
     }
 
     public Value<?> expr() {
         if (!initialized)
             Utils.abort(super.getLine());
 
+        if (!boxed) {
+            value = Tagged.value(bits, null);
+            boxed = true;
+        }
+
         return value;
     }
 
@@ -26,6 +35,31 @@ public class UnsafeVariable extends Variable {
             Utils.abort(super.getLine());
 
         this.value = value;
+        this.boxed = true;
+        this.initialized = true;
+    }
+
+    public long tagged() {
+        if (!initialized)
+            Utils.abort(super.getLine());
+
+        if (!boxed)
+            return bits;
+
+        return Tagged.of(value);
+    }
+
+    public void setTagged(long t) {
+        if (t == Tagged.REF) {
+            setValue(Tagged.ref);
+            return;
+        }
+
+        if (initialized && super.isConstant())
+            Utils.abort(super.getLine());
+
+        this.bits = t;
+        this.boxed = false;
         this.initialized = true;
     }
 
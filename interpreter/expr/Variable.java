@@ -6,6 +6,9 @@ public abstract class Variable extends SetExpr {
 
     private final String name;
     private final boolean constant;
+    // Se a variável é a base de algum acesso por índice que é escrito
+    // (atribuição, ++ ou --); marcado na construção da árvore.
+    private boolean indexed;
 
     protected Variable(int line, String name, boolean constant) {
         super(line);
@@ -21,7 +24,20 @@ public abstract class Variable extends SetExpr {
         return constant;
     }
 
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    void markIndexed() {
+        indexed = true;
+    }
+
     public abstract Value<?> expr();
     public abstract void setValue(Value<?> value);
+
+    // Leitura e escrita marcadas (Tagged): inteiros e booleanos ficam na
+    // variável sem virar Value até alguém pedir o objeto.
+    public abstract long tagged();
+    public abstract void setTagged(long t);
     
 }
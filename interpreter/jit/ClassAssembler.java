@@ -0,0 +1,366 @@
+package interpreter.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Monta um arquivo .class mínimo: pool de constantes, sem campos próprios e
+// com métodos de corpo gerado. Usa a versão 49 do formato, que ainda não
+// exige a tabela StackMapTable; a JVM verifica o código por inferência de
+// tipos, então basta acertar a pilha e os desvios.
+final class ClassAssembler {
+
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_M1 = 0x02;
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD = 0x19;
+    static final int AALOAD = 0x32;
+    static final int ISTORE = 0x36;
+    static final int ASTORE = 0x3a;
+    static final int POP = 0x57;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int IMUL = 0x68;
+    static final int IINC = 0x84;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int IF_ICMPGT = 0xa3;
+    static final int IF_ICMPLE = 0xa4;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac;
+    static final int RETURN = 0xb1;
+    static final int GETFIELD = 0xb4;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int INVOKEINTERFACE = 0xb9;
+    static final int CHECKCAST = 0xc0;
+    static final int INSTANCEOF = 0xc1;
+    static final int WIDE = 0xc4;
+
+    private static final int VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int poolSize = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final List<Code> methods = new ArrayList<>();
+
+    ClassAssembler(String name, Class<?> superclass) {
+        this.thisClass = classRef(name);
+        this.superClass = classRef(internal(superclass));
+    }
+
+    Code method(String name, MethodType type) {
+        Code c = new Code(utf8(name), utf8(type.toMethodDescriptorString()), type.parameterCount());
+        methods.add(c);
+        return c;
+    }
+
+    byte[] toByteArray() {
+        try {
+            int code = utf8("Code");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(0);
+
+            out.writeShort(methods.size());
+            for (Code m : methods) {
+                byte[] body = m.finish();
+                out.writeShort(ACC_PUBLIC);
+                out.writeShort(m.name);
+                out.writeShort(m.descriptor);
+                out.writeShort(1);
+                out.writeShort(code);
+                out.writeInt(12 + body.length);
+                out.writeShort(m.maxStack);
+                out.writeShort(m.maxLocals);
+                out.writeInt(body.length);
+                out.write(body);
+                out.writeShort(0);
+                out.writeShort(0);
+            }
+
+            out.writeShort(0);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String internal(Class<?> c) {
+        return c.getName().replace('.', '/');
+    }
+
+    // Pool de constantes. Cada entrada é criada uma vez só.
+
+    private int entry(String key, int tag, Object... parts) {
+        Integer index = entries.get(key);
+        if (index != null)
+            return index;
+
+        try {
+            pool.writeByte(tag);
+            for (Object p : parts) {
+                if (p instanceof String s)
+                    pool.writeUTF(s);
+                else if (tag == 3)
+                    pool.writeInt((Integer) p);
+                else
+                    pool.writeShort((Integer) p);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (poolSize >= 0xffff)
+            throw new IllegalStateException("pool de constantes cheio");
+
+        entries.put(key, poolSize);
+        return poolSize++;
+    }
+
+    private int utf8(String s) {
+        return entry("U" + s, 1, s);
+    }
+
+    private int integer(int n) {
+        return entry("I" + n, 3, n);
+    }
+
+    private int classRef(String name) {
+        return entry("C" + name, 7, utf8(name));
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return entry("N" + name + ":" + descriptor, 12, utf8(name), utf8(descriptor));
+    }
+
+    private int memberRef(int tag, Class<?> owner, String name, String descriptor) {
+        String o = internal(owner);
+        return entry(tag + o + "." + name + ":" + descriptor, tag, classRef(o), nameAndType(name, descriptor));
+    }
+
+    // Um destino de desvio. Guarda a altura da pilha no desvio para
+    // retomá-la quando o rótulo é posto depois de um goto.
+    static final class Label {
+        private int position = -1;
+        private int depth = -1;
+        private final List<Integer> fixups = new ArrayList<>();
+    }
+
+    // Corpo de um método, com o controle da altura da pilha e dos locais.
+    final class Code {
+
+        private final int name;
+        private final int descriptor;
+        private byte[] code = new byte[256];
+        private int pc;
+        private int depth;
+        private int maxStack;
+        private int maxLocals;
+        private boolean reachable = true;
+        private final List<Label> labels = new ArrayList<>();
+
+        private Code(int name, int descriptor, int parameters) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = parameters + 1;
+        }
+
+        // Reserva uma posição nova para variável local.
+        int local() {
+            return maxLocals++;
+        }
+
+        void op(int opcode, int effect) {
+            u1(opcode);
+            stack(effect);
+            if (opcode == GOTO || opcode == IRETURN || opcode == RETURN)
+                reachable = false;
+        }
+
+        void iconst(int n) {
+            if (n >= -1 && n <= 5) {
+                u1(ICONST_0 + n);
+            } else if (n >= Byte.MIN_VALUE && n <= Byte.MAX_VALUE) {
+                u1(BIPUSH);
+                u1(n);
+            } else if (n >= Short.MIN_VALUE && n <= Short.MAX_VALUE) {
+                u1(SIPUSH);
+                u2(n);
+            } else {
+                u1(LDC_W);
+                u2(integer(n));
+            }
+            stack(1);
+        }
+
+        void aload(int local) {
+            var(ALOAD, local);
+            stack(1);
+        }
+
+        void astore(int local) {
+            var(ASTORE, local);
+            stack(-1);
+        }
+
+        void iload(int local) {
+            var(ILOAD, local);
+            stack(1);
+        }
+
+        void istore(int local) {
+            var(ISTORE, local);
+            stack(-1);
+        }
+
+        void iinc(int local, int delta) {
+            u1(WIDE);
+            u1(IINC);
+            u2(local);
+            u2(delta);
+        }
+
+        // checkcast e instanceof, que não mudam a altura da pilha.
+        void type(int opcode, Class<?> c) {
+            u1(opcode);
+            u2(classRef(internal(c)));
+        }
+
+        void getfield(Class<?> owner, String field, Class<?> type) {
+            u1(GETFIELD);
+            u2(memberRef(9, owner, field, type.descriptorString()));
+        }
+
+        void invoke(int opcode, Class<?> owner, String method, MethodType type) {
+            String d = type.toMethodDescriptorString();
+            if (opcode == INVOKEINTERFACE) {
+                u1(opcode);
+                u2(memberRef(11, owner, method, d));
+                u1(type.parameterCount() + 1);
+                u1(0);
+            } else {
+                u1(opcode);
+                u2(memberRef(10, owner, method, d));
+            }
+
+            int effect = -type.parameterCount() + (type.returnType() == void.class ? 0 : 1);
+            if (opcode != INVOKESTATIC)
+                effect--;
+            stack(effect);
+        }
+
+        // Desvio para um rótulo, ainda que o rótulo só seja posto depois.
+        void jump(int opcode, Label target) {
+            int start = pc;
+            u1(opcode);
+            u2(0);
+            if (opcode != GOTO)
+                stack(opcode >= IF_ICMPEQ ? -2 : -1);
+
+            if (target.depth < 0)
+                target.depth = depth;
+            target.fixups.add(start);
+            if (!labels.contains(target))
+                labels.add(target);
+            if (opcode == GOTO)
+                reachable = false;
+        }
+
+        void place(Label label) {
+            if (!reachable && label.depth >= 0)
+                depth = label.depth;
+            else if (label.depth < 0)
+                label.depth = depth;
+            reachable = true;
+            label.position = pc;
+            if (!labels.contains(label))
+                labels.add(label);
+        }
+
+        private byte[] finish() {
+            for (Label l : labels) {
+                for (int start : l.fixups) {
+                    int offset = l.position - start;
+                    if (l.position < 0 || offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                        throw new IllegalStateException("desvio fora do alcance");
+                    code[start + 1] = (byte) (offset >> 8);
+                    code[start + 2] = (byte) offset;
+                }
+            }
+
+            if (pc > 0xffff || maxLocals > 0xffff)
+                throw new IllegalStateException("método grande demais");
+
+            byte[] body = new byte[pc];
+            System.arraycopy(code, 0, body, 0, pc);
+            return body;
+        }
+
+        private void var(int opcode, int local) {
+            if (local <= 0xff) {
+                u1(opcode);
+                u1(local);
+            } else {
+                u1(WIDE);
+                u1(opcode);
+                u2(local);
+            }
+        }
+
+        private void stack(int effect) {
+            depth += effect;
+            if (depth > maxStack)
+                maxStack = depth;
+        }
+
+        private void u1(int b) {
+            if (pc == code.length) {
+                byte[] bigger = new byte[code.length * 2];
+                System.arraycopy(code, 0, bigger, 0, pc);
+                code = bigger;
+            }
+            code[pc++] = (byte) b;
+        }
+
+        private void u2(int s) {
+            u1(s >> 8);
+            u1(s);
+        }
+
+    }
+
+}
@@ -0,0 +1,21 @@
+package interpreter.jit;
+
+import interpreter.command.CompiledLoop;
+
+// Superclasse das classes geradas. Guarda os objetos da árvore que o código
+// compilado usa (variáveis, nós e constantes) e a marca de que algum teste
+// de tipo falhou, conferida a cada volta do laço mais externo.
+public abstract class CompiledCode implements CompiledLoop {
+
+    protected final Object[] k;
+    protected boolean deoptimized;
+
+    protected CompiledCode(Object[] k) {
+        this.k = k;
+    }
+
+    public void deoptimize() {
+        deoptimized = true;
+    }
+
+}
@@ -0,0 +1,49 @@
+package interpreter.jit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+import interpreter.command.Command;
+import interpreter.command.CompiledLoop;
+import interpreter.command.DoWhileCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.LoopCompiler;
+import interpreter.command.WhileCommand;
+
+// Compila um laço quente para uma classe oculta (hidden class) da JVM, que
+// pode ser descartada com o laço e que o HotSpot trata como código comum:
+// embute as chamadas e põe os int do laço em registradores.
+public class JitCompiler implements LoopCompiler {
+
+    private static final String NAME = ClassAssembler.internal(JitCompiler.class).replace("JitCompiler", "HotLoop");
+
+    @Override
+    public CompiledLoop compile(Command loop) {
+        if (!(loop instanceof WhileCommand || loop instanceof DoWhileCommand || loop instanceof ForCommand))
+            return null;
+
+        ClassAssembler c = new ClassAssembler(NAME, CompiledCode.class);
+
+        ClassAssembler.Code init = c.method("<init>", MethodType.methodType(void.class, Object[].class));
+        init.aload(0);
+        init.aload(1);
+        init.invoke(ClassAssembler.INVOKESPECIAL, CompiledCode.class, "<init>",
+                MethodType.methodType(void.class, Object[].class));
+        init.op(ClassAssembler.RETURN, 0);
+
+        LoopTranslator t = new LoopTranslator(c.method("resume", MethodType.methodType(int.class, List.class, int.class)));
+        t.translate(loop);
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(c.toByteArray(), true);
+            return (CompiledLoop) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, Object[].class)).invoke(t.constants());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
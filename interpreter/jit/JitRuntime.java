@@ -0,0 +1,82 @@
+package interpreter.jit;
+
+import java.util.List;
+
+import interpreter.util.Operations;
+import interpreter.util.Utils;
+import interpreter.value.BoolValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Operações chamadas pelo código compilado. Repetem o que os comandos e
+// expressões fazem no interpretador, inclusive as mensagens de erro.
+public final class JitRuntime {
+
+    private JitRuntime() {
+    }
+
+    public static NumberValue number(int n) {
+        return NumberValue.of(n);
+    }
+
+    public static BoolValue bool(boolean b) {
+        return BoolValue.of(b);
+    }
+
+    // Só é chamada depois do teste instanceof NumberValue.
+    public static int intValue(Value<?> v) {
+        return ((NumberValue) v).intValue();
+    }
+
+    public static int div(int n1, int n2, int line) {
+        if (n2 == 0)
+            Utils.abort(line);
+        return n1 / n2;
+    }
+
+    public static int mod(int n1, int n2, int line) {
+        if (n2 == 0)
+            Utils.abort(line);
+        return n1 % n2;
+    }
+
+    public static boolean truth(Value<?> v, int line) {
+        if (!(v instanceof BoolValue bv)) {
+            Utils.abort(line);
+            return false;
+        }
+        return bv.booleanValue();
+    }
+
+    public static List<Value<?>> list(Value<?> v, int line) {
+        if (!(v instanceof ListValue lv)) {
+            System.out.println("Error: " + " expression is not a list");
+            Utils.abort(line);
+            return List.of();
+        }
+        return lv.value();
+    }
+
+    public static void print(Value<?> v) {
+        Operations.print(v);
+        System.out.println();
+    }
+
+    public static void println() {
+        System.out.println();
+    }
+
+    public static void assertFailed(Value<?> m) {
+        System.out.println("assert: " + m);
+    }
+
+    public static void assertFailed() {
+        System.out.println("assert: not true");
+    }
+
+    public static void abort(int line) {
+        Utils.abort(line);
+    }
+
+}
@@ -0,0 +1,464 @@
+package interpreter.jit;
+
+import static interpreter.jit.ClassAssembler.*;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.command.AssertCommand;
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DoWhileCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.BinaryOp;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.UnaryOp;
+import interpreter.expr.Variable;
+import interpreter.jit.ClassAssembler.Code;
+import interpreter.value.BoolValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Traduz a subárvore de um laço quente para o método resume da classe gerada.
+//
+// O fluxo de controle (laços, if, condições) vira desvios da JVM. As
+// variáveis e os nós são chamados pela classe concreta, então cada chamada
+// tem um único destino e o HotSpot consegue embuti-la. Os nós que estavam
+// especializados para inteiros viram aritmética e comparações de int,
+// protegidas por um teste instanceof; se o teste falhar, o valor sai do caso
+// genérico do próprio nó e, ao fim da volta, o laço é devolvido ao
+// interpretador. Os demais nós são avaliados pelo próprio expr().
+final class LoopTranslator {
+
+    private static final MethodType EXPR = MethodType.methodType(Value.class);
+    private static final MethodType SET_VALUE = MethodType.methodType(void.class, Value.class);
+    private static final MethodType TO_VALUE = MethodType.methodType(Value.class, Value.class);
+    private static final MethodType TO_VALUE2 = MethodType.methodType(Value.class, Value.class, Value.class);
+
+    // Os dois parâmetros de resume: a lista do for e a posição do próximo item.
+    private static final int LIST = 1;
+    private static final int NEXT = 2;
+
+    private final Code code;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> locals = new IdentityHashMap<>();
+    private final Label prologue = new Label();
+    private final Label start = new Label();
+
+    LoopTranslator(Code code) {
+        this.code = code;
+    }
+
+    Object[] constants() {
+        return constants.toArray();
+    }
+
+    // Os objetos da árvore só são conhecidos no fim da tradução. Por isso o
+    // método começa desviando para um prólogo, posto no fim, que os copia
+    // de k para variáveis locais e volta para o começo do laço.
+    void translate(Command loop) {
+        code.jump(GOTO, prologue);
+        code.place(start);
+
+        Label head = new Label();
+        Label done = new Label();
+        if (loop instanceof ForCommand f) {
+            code.place(head);
+            code.iload(NEXT);
+            code.aload(LIST);
+            code.invoke(INVOKEINTERFACE, List.class, "size", MethodType.methodType(int.class));
+            code.jump(IF_ICMPGE, done);
+            code.aload(local(f.getVar()));
+            code.aload(LIST);
+            code.iload(NEXT);
+            code.invoke(INVOKEINTERFACE, List.class, "get", MethodType.methodType(Object.class, int.class));
+            code.type(CHECKCAST, Value.class);
+            setValue(f.getVar());
+            code.iinc(NEXT, 1);
+            command(f.getCommands());
+            backEdge(true);
+        } else {
+            Expr cond = loop instanceof WhileCommand w ? w.getExpr() : ((DoWhileCommand) loop).getExpr();
+            Command body = loop instanceof WhileCommand w ? w.getCommands() : ((DoWhileCommand) loop).getCommands();
+            code.place(head);
+            condition(cond, done, false, loop.getLine());
+            command(body);
+            backEdge(false);
+        }
+        code.jump(GOTO, head);
+
+        code.place(done);
+        code.iconst(-1);
+        code.op(IRETURN, -1);
+
+        code.place(prologue);
+        for (int i = 0; i < constants.size(); i++) {
+            Object c = constants.get(i);
+            code.aload(0);
+            code.getfield(CompiledCode.class, "k", Object[].class);
+            code.iconst(i);
+            code.op(AALOAD, -1);
+            code.type(CHECKCAST, visible(c.getClass()));
+            code.astore(locals.get(c));
+        }
+        code.jump(GOTO, start);
+    }
+
+    // Ao fim de cada volta do laço externo: se algum teste de tipo falhou,
+    // devolve ao interpretador a posição em que ele deve continuar.
+    private void backEdge(boolean forLoop) {
+        Label go = new Label();
+        code.aload(0);
+        code.getfield(CompiledCode.class, "deoptimized", boolean.class);
+        code.jump(IFEQ, go);
+        if (forLoop)
+            code.iload(NEXT);
+        else
+            code.iconst(0);
+        code.op(IRETURN, -1);
+        code.place(go);
+    }
+
+    private void command(Command c) {
+        if (c instanceof BlocksCommand b) {
+            for (Command cmd : b.getCommands())
+                command(cmd);
+        } else if (c instanceof AssignCommand a) {
+            assign(a);
+        } else if (c instanceof IfCommand i) {
+            ifCommand(i);
+        } else if (c instanceof WhileCommand w) {
+            Label head = new Label();
+            Label done = new Label();
+            code.place(head);
+            condition(w.getExpr(), done, false, w.getLine());
+            command(w.getCommands());
+            code.jump(GOTO, head);
+            code.place(done);
+        } else if (c instanceof DoWhileCommand d) {
+            Label body = new Label();
+            code.place(body);
+            command(d.getCommands());
+            condition(d.getExpr(), body, true, d.getLine());
+        } else if (c instanceof ForCommand f) {
+            forCommand(f);
+        } else if (c instanceof PrintCommand p) {
+            if (p.getExpr() != null) {
+                expr(p.getExpr());
+                code.invoke(INVOKESTATIC, JitRuntime.class, "print", MethodType.methodType(void.class, Value.class));
+            } else {
+                code.invoke(INVOKESTATIC, JitRuntime.class, "println", MethodType.methodType(void.class));
+            }
+        } else if (c instanceof AssertCommand a) {
+            assertCommand(a);
+        } else {
+            code.aload(local(c));
+            code.invoke(INVOKEVIRTUAL, visible(c.getClass()), "execute", MethodType.methodType(void.class));
+        }
+    }
+
+    private void assign(AssignCommand a) {
+        if (a.getLhs() == null) {
+            expr(a.getRhs());
+            code.op(POP, -1);
+        } else if (a.getLhs() instanceof Variable var) {
+            code.aload(local(var));
+            expr(a.getRhs());
+            setValue(var);
+        } else {
+            code.aload(local(a.getLhs()));
+            expr(a.getRhs());
+            code.invoke(INVOKEVIRTUAL, visible(a.getLhs().getClass()), "setValue", SET_VALUE);
+        }
+    }
+
+    private void ifCommand(IfCommand i) {
+        if (i.getExpr() == null) {
+            abort(i.getLine());
+            return;
+        }
+
+        Label otherwise = new Label();
+        Label end = new Label();
+        condition(i.getExpr(), otherwise, false, i.getLine());
+        command(i.getThen());
+        code.jump(GOTO, end);
+        code.place(otherwise);
+        if (i.getElse() != null)
+            command(i.getElse());
+        code.place(end);
+    }
+
+    private void forCommand(ForCommand f) {
+        int list = code.local();
+        int next = code.local();
+        Label head = new Label();
+        Label done = new Label();
+
+        expr(f.getExpr());
+        code.iconst(f.getLine());
+        code.invoke(INVOKESTATIC, JitRuntime.class, "list", MethodType.methodType(List.class, Value.class, int.class));
+        code.astore(list);
+        code.iconst(0);
+        code.istore(next);
+
+        code.place(head);
+        code.iload(next);
+        code.aload(list);
+        code.invoke(INVOKEINTERFACE, List.class, "size", MethodType.methodType(int.class));
+        code.jump(IF_ICMPGE, done);
+        code.aload(local(f.getVar()));
+        code.aload(list);
+        code.iload(next);
+        code.invoke(INVOKEINTERFACE, List.class, "get", MethodType.methodType(Object.class, int.class));
+        code.type(CHECKCAST, Value.class);
+        setValue(f.getVar());
+        code.iinc(next, 1);
+        command(f.getCommands());
+        code.jump(GOTO, head);
+        code.place(done);
+    }
+
+    private void assertCommand(AssertCommand a) {
+        if (a.getExpr() == null)
+            return;
+
+        Label end = new Label();
+        condition(a.getExpr(), end, true, a.getLine());
+        if (a.getMsg() != null) {
+            expr(a.getMsg());
+            code.invoke(INVOKESTATIC, JitRuntime.class, "assertFailed", MethodType.methodType(void.class, Value.class));
+        } else {
+            code.invoke(INVOKESTATIC, JitRuntime.class, "assertFailed", MethodType.methodType(void.class));
+        }
+        code.place(end);
+    }
+
+    // Desvia para target se a condição for igual a when. Comparações de
+    // inteiros viram um if_icmp direto, sem criar o BoolValue.
+    private void condition(Expr e, Label target, boolean when, int line) {
+        if (e instanceof BinaryExpr b && b.isIntSpecialized() && compare(b) != 0) {
+            int v1 = code.local();
+            int v2 = code.local();
+            Label slow = new Label();
+            Label next = new Label();
+
+            operands(b, v1, v2, slow);
+            code.jump(when ? compare(b) : negate(compare(b)), target);
+            code.jump(GOTO, next);
+
+            code.place(slow);
+            deoptimize(b, v1, v2);
+            truth(line);
+            code.jump(when ? IFNE : IFEQ, target);
+            code.place(next);
+            return;
+        }
+
+        expr(e);
+        truth(line);
+        code.jump(when ? IFNE : IFEQ, target);
+    }
+
+    // Empilha o valor da expressão.
+    private void expr(Expr e) {
+        if (e instanceof ConstExpr c) {
+            code.aload(local(c.getValue()));
+        } else if (e instanceof Variable var) {
+            code.aload(local(var));
+            code.invoke(INVOKEVIRTUAL, visible(var.getClass()), "expr", EXPR);
+        } else if (e instanceof BinaryExpr b && b.isIntSpecialized()) {
+            binary(b);
+        } else if (e instanceof UnaryExpr u && u.isIntStep() && u.getExpr() instanceof Variable var) {
+            step(u, var);
+        } else {
+            code.aload(local(e));
+            code.invoke(INVOKEVIRTUAL, visible(e.getClass()), "expr", EXPR);
+        }
+    }
+
+    private void binary(BinaryExpr b) {
+        int v1 = code.local();
+        int v2 = code.local();
+        Label slow = new Label();
+        Label end = new Label();
+
+        operands(b, v1, v2, slow);
+        int cmp = compare(b);
+        if (cmp != 0) {
+            Label yes = new Label();
+            Label bool = new Label();
+            code.jump(cmp, yes);
+            code.iconst(0);
+            code.jump(GOTO, bool);
+            code.place(yes);
+            code.iconst(1);
+            code.place(bool);
+            code.invoke(INVOKESTATIC, JitRuntime.class, "bool", MethodType.methodType(BoolValue.class, boolean.class));
+        } else {
+            switch (b.getOp()) {
+                case ADD -> code.op(IADD, -1);
+                case SUB -> code.op(ISUB, -1);
+                case MUL -> code.op(IMUL, -1);
+                default -> {
+                    code.iconst(b.getLine());
+                    code.invoke(INVOKESTATIC, JitRuntime.class, b.getOp() == BinaryOp.DIV ? "div" : "mod",
+                            MethodType.methodType(int.class, int.class, int.class, int.class));
+                }
+            }
+            code.invoke(INVOKESTATIC, JitRuntime.class, "number", MethodType.methodType(NumberValue.class, int.class));
+        }
+        code.jump(GOTO, end);
+
+        code.place(slow);
+        deoptimize(b, v1, v2);
+        code.place(end);
+    }
+
+    // Avalia os dois operandos, guarda-os em v1 e v2 e, se ambos forem
+    // números, deixa os dois int na pilha; senão desvia para slow.
+    private void operands(BinaryExpr b, int v1, int v2, Label slow) {
+        expr(b.getLeft());
+        code.astore(v1);
+        expr(b.getRight());
+        code.astore(v2);
+        guard(v1, slow);
+        guard(v2, slow);
+        unbox(v1);
+        unbox(v2);
+    }
+
+    // ++ e -- sobre uma variável que até aqui só guardou números.
+    private void step(UnaryExpr u, Variable var) {
+        int old = code.local();
+        int res = code.local();
+        Label slow = new Label();
+        Label end = new Label();
+        boolean inc = u.getOp() == UnaryOp.PRE_INC || u.getOp() == UnaryOp.POS_INC;
+        boolean post = u.getOp() == UnaryOp.POS_INC || u.getOp() == UnaryOp.POS_DEC;
+
+        expr(var);
+        code.astore(old);
+        guard(old, slow);
+        unbox(old);
+        code.iconst(inc ? 1 : -1);
+        code.op(IADD, -1);
+        code.invoke(INVOKESTATIC, JitRuntime.class, "number", MethodType.methodType(NumberValue.class, int.class));
+        code.astore(res);
+        code.aload(local(var));
+        code.aload(res);
+        setValue(var);
+        code.aload(post ? old : res);
+        code.jump(GOTO, end);
+
+        code.place(slow);
+        code.aload(0);
+        code.invoke(INVOKEVIRTUAL, CompiledCode.class, "deoptimize", MethodType.methodType(void.class));
+        code.aload(local(u));
+        code.aload(old);
+        code.invoke(INVOKEVIRTUAL, UnaryExpr.class, "deoptimize", TO_VALUE);
+        code.place(end);
+    }
+
+    private void deoptimize(BinaryExpr b, int v1, int v2) {
+        code.aload(0);
+        code.invoke(INVOKEVIRTUAL, CompiledCode.class, "deoptimize", MethodType.methodType(void.class));
+        code.aload(local(b));
+        code.aload(v1);
+        code.aload(v2);
+        code.invoke(INVOKEVIRTUAL, BinaryExpr.class, "deoptimize", TO_VALUE2);
+    }
+
+    private void guard(int v, Label slow) {
+        code.aload(v);
+        code.type(INSTANCEOF, NumberValue.class);
+        code.jump(IFEQ, slow);
+    }
+
+    private void unbox(int v) {
+        code.aload(v);
+        code.invoke(INVOKESTATIC, JitRuntime.class, "intValue", MethodType.methodType(int.class, Value.class));
+    }
+
+    private void truth(int line) {
+        code.iconst(line);
+        code.invoke(INVOKESTATIC, JitRuntime.class, "truth", MethodType.methodType(boolean.class, Value.class, int.class));
+    }
+
+    private void setValue(Variable var) {
+        code.invoke(INVOKEVIRTUAL, visible(var.getClass()), "setValue", SET_VALUE);
+    }
+
+    private void abort(int line) {
+        code.iconst(line);
+        code.invoke(INVOKESTATIC, JitRuntime.class, "abort", MethodType.methodType(void.class, int.class));
+    }
+
+    // Instrução if_icmp da comparação, ou 0 se o operador não compara.
+    private static int compare(BinaryExpr b) {
+        switch (b.getOp()) {
+            case EQUAL:
+                return IF_ICMPEQ;
+            case NOT_EQUAL:
+                return IF_ICMPNE;
+            case LOWER_THAN:
+                return IF_ICMPLT;
+            case LOWER_EQUAL:
+                return IF_ICMPLE;
+            case GREATER_THAN:
+                return IF_ICMPGT;
+            case GREATER_EQUAL:
+                return IF_ICMPGE;
+            default:
+                return 0;
+        }
+    }
+
+    private static int negate(int cmp) {
+        switch (cmp) {
+            case IF_ICMPEQ:
+                return IF_ICMPNE;
+            case IF_ICMPNE:
+                return IF_ICMPEQ;
+            case IF_ICMPLT:
+                return IF_ICMPGE;
+            case IF_ICMPGE:
+                return IF_ICMPLT;
+            case IF_ICMPGT:
+                return IF_ICMPLE;
+            default:
+                return IF_ICMPGT;
+        }
+    }
+
+    // A classe concreta do objeto ou, se a classe gerada não puder usá-la
+    // pelo nome, a superclasse pública mais próxima.
+    private static Class<?> visible(Class<?> c) {
+        while (!Modifier.isPublic(c.getModifiers()))
+            c = c.getSuperclass();
+        return c;
+    }
+
+    // Variável local com o objeto da árvore, carregada no prólogo.
+    private int local(Object o) {
+        Integer l = locals.get(o);
+        if (l == null) {
+            l = code.local();
+            locals.put(o, l);
+            constants.add(o);
+        }
+        return l;
+    }
+
+}
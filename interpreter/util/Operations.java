@@ -0,0 +1,323 @@
+package interpreter.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+import interpreter.value.BoolValue;
+import interpreter.value.CompactList;
+import interpreter.value.IndexedMap;
+import interpreter.value.ListValue;
+import interpreter.value.MapValue;
+import interpreter.value.NullValue;
+import interpreter.value.NumberValue;
+import interpreter.value.RangeList;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// As operações da linguagem sobre valores, com a mesma semântica (e os
+// mesmos erros) dos nós da árvore. É o que o código Java gerado pela
+// compilação antecipada chama quando os tipos não são conhecidos.
+public final class Operations {
+
+    private static final Scanner input = new Scanner(System.in);
+
+    private Operations() {
+    }
+
+    // Aritmética e comparações.
+
+    public static Value<?> add(Value<?> v1, Value<?> v2, int line) {
+        if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2)
+            return NumberValue.of(nv1.intValue() + nv2.intValue());
+
+        if (v1 instanceof TextValue tv1 && v2 instanceof TextValue tv2)
+            return TextValue.concat(tv1, tv2);
+
+        Utils.abort(line);
+        return null;
+    }
+
+    public static int sub(Value<?> v1, Value<?> v2, int line) {
+        return number(v1, line) - number(v2, line);
+    }
+
+    public static int mul(Value<?> v1, Value<?> v2, int line) {
+        return number(v1, line) * number(v2, line);
+    }
+
+    public static int div(Value<?> v1, Value<?> v2, int line) {
+        return div(number(v1, line), number(v2, line), line);
+    }
+
+    public static int div(int n1, int n2, int line) {
+        if (n2 == 0)
+            Utils.abort(line);
+        return n1 / n2;
+    }
+
+    public static int mod(Value<?> v1, Value<?> v2, int line) {
+        return mod(number(v1, line), number(v2, line), line);
+    }
+
+    public static int mod(int n1, int n2, int line) {
+        if (n2 == 0)
+            Utils.abort(line);
+        return n1 % n2;
+    }
+
+    public static int neg(Value<?> v, int line) {
+        return -number(v, line);
+    }
+
+    // ++ e --: o novo valor, que quem chama grava de volta.
+    public static int step(Value<?> v, int delta, int line) {
+        return number(v, line) + delta;
+    }
+
+    public static boolean lowerThan(Value<?> v1, Value<?> v2, int line) {
+        return number(v1, line) < number(v2, line);
+    }
+
+    public static boolean lowerEqual(Value<?> v1, Value<?> v2, int line) {
+        return number(v1, line) <= number(v2, line);
+    }
+
+    public static boolean greaterThan(Value<?> v1, Value<?> v2, int line) {
+        return number(v1, line) > number(v2, line);
+    }
+
+    public static boolean greaterEqual(Value<?> v1, Value<?> v2, int line) {
+        return number(v1, line) >= number(v2, line);
+    }
+
+    public static boolean equal(Value<?> v1, Value<?> v2) {
+        if (v1 instanceof NullValue || v2 instanceof NullValue)
+            return v1 == v2;
+
+        return v1.value().equals(v2.value());
+    }
+
+    public static boolean and(Value<?> v1, Value<?> v2, int line) {
+        return truth(v1, line) & truth(v2, line);
+    }
+
+    public static boolean or(Value<?> v1, Value<?> v2, int line) {
+        return truth(v1, line) | truth(v2, line);
+    }
+
+    public static boolean not(Value<?> v, int line) {
+        return !truth(v, line);
+    }
+
+    public static boolean truth(Value<?> v, int line) {
+        if (!(v instanceof BoolValue bv)) {
+            Utils.abort(line);
+            return false;
+        }
+        return bv.booleanValue();
+    }
+
+    private static int number(Value<?> v, int line) {
+        if (!(v instanceof NumberValue nv)) {
+            Utils.abort(line);
+            return 0;
+        }
+        return nv.intValue();
+    }
+
+    // Acesso por índice. A base é conferida antes de o índice ser avaliado.
+
+    public static void indexable(Value<?> base, int line) {
+        if (!(base instanceof ListValue || base instanceof MapValue))
+            Utils.abort(line);
+    }
+
+    public static Value<?> get(Value<?> base, Value<?> index, int line) {
+        if (base instanceof ListValue lv)
+            return get(lv, number(index, line));
+
+        Map<Value<?>, Value<?>> map = ((MapValue) base).value();
+        if (index instanceof NullValue)
+            Utils.abort(line);
+        return map.getOrDefault(index, NullValue.NULL);
+    }
+
+    public static Value<?> get(Value<?> base, int index, int line) {
+        if (base instanceof ListValue lv)
+            return get(lv, index);
+        return ((MapValue) base).value().getOrDefault(NumberValue.of(index), NullValue.NULL);
+    }
+
+    private static Value<?> get(ListValue lv, int index) {
+        var list = lv.value();
+        if (index >= list.size() || index < 0)
+            return NullValue.NULL;
+        return list.get(index);
+    }
+
+    public static void set(Value<?> base, Value<?> index, Value<?> value, int line) {
+        if (base instanceof ListValue lv) {
+            set(lv, number(index, line), value);
+            return;
+        }
+
+        Map<Value<?>, Value<?>> map = ((MapValue) base).value();
+        if (index instanceof NullValue)
+            Utils.abort(line);
+        map.put(index, value);
+    }
+
+    public static void set(Value<?> base, int index, Value<?> value, int line) {
+        if (base instanceof ListValue lv)
+            set(lv, index, value);
+        else
+            ((MapValue) base).value().put(NumberValue.of(index), value);
+    }
+
+    private static void set(ListValue lv, int index, Value<?> value) {
+        var list = lv.value();
+        if (index >= list.size() || index < 0)
+            return;
+        list.set(index, value);
+    }
+
+    // Listas.
+
+    public static void item(List<Value<?>> list, Value<?> v) {
+        if (v instanceof NullValue)
+            throw new NullPointerException();
+        list.add(v);
+    }
+
+    public static void spread(List<Value<?>> list, Value<?> v, int line) {
+        if (!(v instanceof ListValue lv)) {
+            Utils.abort(line);
+            return;
+        }
+        list.addAll(lv.value());
+    }
+
+    // A lista percorrida por um for dentro de uma lista.
+    public static List<Value<?>> items(Value<?> v, int line) {
+        if (!(v instanceof ListValue lv)) {
+            Utils.abort(line);
+            return List.of();
+        }
+        return lv.value();
+    }
+
+    // A lista percorrida pelo comando for, que avisa antes de abortar.
+    public static List<Value<?>> forList(Value<?> v, int line) {
+        if (!(v instanceof ListValue lv)) {
+            System.out.println("Error: " + " expression is not a list");
+            Utils.abort(line);
+            return List.of();
+        }
+        return lv.value();
+    }
+
+    // print escreve um texto em pedaços, sem criar a String inteira.
+    public static void print(Value<?> v) {
+        if (v instanceof TextValue tv)
+            tv.print(System.out);
+        else
+            System.out.print(v);
+    }
+
+    // Funções pré-definidas.
+
+    public static Value<?> read(Value<?> v) {
+        System.out.print(v);
+
+        String text = input.nextLine().trim();
+        return text.isEmpty() ? NullValue.NULL : new TextValue(text);
+    }
+
+    public static int random(Value<?> v) {
+        if (v instanceof NumberValue n)
+            return (int) (Math.random() * n.intValue());
+
+        throw new RuntimeException("Invalid operand type");
+    }
+
+    public static int length(Value<?> v) {
+        if (v instanceof ListValue l)
+            return l.value().size();
+
+        throw new RuntimeException("Invalid operand type");
+    }
+
+    public static Value<?> keys(Value<?> v) {
+        if (v instanceof MapValue m && m.value() instanceof IndexedMap im)
+            return new ListValue(im.keyList());
+        if (v instanceof MapValue m)
+            return new ListValue(new CompactList(m.value().keySet()));
+
+        throw new RuntimeException("Invalid operand type");
+    }
+
+    public static Value<?> values(Value<?> v) {
+        if (v instanceof MapValue m && m.value() instanceof IndexedMap im)
+            return new ListValue(im.valueList());
+        if (v instanceof MapValue m)
+            return new ListValue(new CompactList(m.value().values()));
+
+        throw new RuntimeException("Invalid operand type");
+    }
+
+    public static boolean toBool(Value<?> v) {
+        if (v instanceof NullValue)
+            return false;
+        if (v instanceof BoolValue bv)
+            return bv.booleanValue();
+        if (v instanceof NumberValue nv)
+            return nv.intValue() != 0;
+        if (v instanceof TextValue tv)
+            return !tv.value().isEmpty();
+        if (v instanceof ListValue lv)
+            return !lv.value().isEmpty();
+        if (v instanceof MapValue mv)
+            return !mv.value().isEmpty();
+        return true;
+    }
+
+    public static int toInt(Value<?> v) {
+        if (v instanceof BoolValue bv)
+            return bv.booleanValue() ? 1 : 0;
+        if (v instanceof NumberValue nv)
+            return nv.intValue();
+        if (v instanceof TextValue sv) {
+            try {
+                return Integer.parseInt(sv.value());
+            } catch (Exception e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    public static Value<?> toStr(Value<?> v) {
+        return new TextValue(v.value().toString());
+    }
+
+    public static Value<?> range(int from, int to, int line) {
+        span(from, to, line);
+        return new ListValue(new RangeList(from, to));
+    }
+
+    // O laço de int sobre range não cria a lista, mas aborta como ela.
+    public static void span(int from, int to, int line) {
+        if (!RangeList.fits(from, to))
+            Utils.abort(line);
+    }
+
+    // Um limite de range, que só pode ser número.
+    public static int bound(Value<?> v) {
+        if (v instanceof NumberValue n)
+            return n.intValue();
+
+        throw new RuntimeException("Invalid operand type");
+    }
+
+}
@@ -1,22 +1,33 @@
 
 package interpreter.value;
 
-public class BoolValue extends Value<Boolean> {
+public final class BoolValue implements Value<Boolean> {
 
-    private Boolean value;
+    public static final BoolValue TRUE = new BoolValue(true);
+    public static final BoolValue FALSE = new BoolValue(false);
 
-    public BoolValue(Boolean value) {
+    private final boolean value;
+
+    private BoolValue(boolean value) {
         this.value = value;
     }
 
+    public static BoolValue of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
     @Override
     public Boolean value() {
         return this.value;
     }
 
+    public boolean booleanValue() {
+        return this.value;
+    }
+
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Boolean.hashCode(this.value);
     }
 
     @Override
@@ -24,7 +35,7 @@ public class BoolValue extends Value<Boolean> {
         if (this == obj) {
             return true;
         } else if (obj instanceof BoolValue) {
-            return this.value.booleanValue() == ((BoolValue) obj).value.booleanValue();
+            return this.value == ((BoolValue) obj).value;
         } else {
             return false;
         }
@@ -32,7 +43,7 @@ public class BoolValue extends Value<Boolean> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return Boolean.toString(this.value);
     }
 
 }
@@ -0,0 +1,264 @@
+package interpreter.value;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+// Lista de valores que guarda listas homogêneas sem objetos por elemento:
+// só números vão num int[] e só booleanos num conjunto de bits. A primeira
+// escrita de um valor de outro tipo passa a lista, de uma vez e para sempre,
+// para um Value<?>[] comum. Por fora é uma List<Value<?>> como outra
+// qualquer; quem quiser evitar o NumberValue de cada leitura usa isInts e
+// intAt.
+public final class CompactList extends AbstractList<Value<?>> implements RandomAccess {
+
+    private static final int EMPTY = 0;
+    private static final int INTS = 1;
+    private static final int BOOLS = 2;
+    private static final int VALUES = 3;
+
+    private int kind;
+    private int size;
+    private int[] ints;
+    private long[] bits;
+    private Value<?>[] values;
+    // Capacidade pedida por reserve antes do primeiro valor, quando o tipo
+    // da lista ainda não se sabe.
+    private int reserved;
+
+    public CompactList() {
+        this.kind = EMPTY;
+    }
+
+    public CompactList(Collection<? extends Value<?>> c) {
+        this();
+        addAll(c);
+    }
+
+    // Garante espaço para capacity valores. Antes do primeiro valor o
+    // espaço é exato; depois cresce como em add, para que reservas
+    // seguidas (um for dentro de outro) não copiem a lista a cada vez.
+    public void reserve(int capacity) {
+        if (kind == EMPTY)
+            reserved = Math.max(reserved, capacity);
+        else
+            grow(capacity);
+    }
+
+    public boolean isInts() {
+        return kind == INTS;
+    }
+
+    // Só vale com isInts verdadeiro.
+    public int intAt(int index) {
+        return ints[index];
+    }
+
+    public void addInt(int n) {
+        if (kind == EMPTY)
+            start(INTS, 8);
+        if (kind != INTS) {
+            add(NumberValue.of(n));
+            return;
+        }
+
+        if (size == ints.length)
+            ints = Arrays.copyOf(ints, size * 2);
+        ints[size++] = n;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Value<?> get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        switch (kind) {
+            case INTS:
+                return NumberValue.of(ints[index]);
+            case BOOLS:
+                return BoolValue.of(bit(index));
+            default:
+                return values[index];
+        }
+    }
+
+    @Override
+    public Value<?> set(int index, Value<?> v) {
+        Value<?> old = get(index);
+        if (kind == INTS && v instanceof NumberValue nv) {
+            ints[index] = nv.intValue();
+        } else if (kind == BOOLS && v instanceof BoolValue bv) {
+            setBit(index, bv.booleanValue());
+        } else {
+            generalize();
+            values[index] = v;
+        }
+        return old;
+    }
+
+    @Override
+    public void add(int index, Value<?> v) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException(index);
+
+        if (kind == EMPTY)
+            start(v instanceof NumberValue ? INTS : v instanceof BoolValue ? BOOLS : VALUES, 8);
+        if ((kind == INTS && !(v instanceof NumberValue)) || (kind == BOOLS && !(v instanceof BoolValue)))
+            generalize();
+
+        grow(size + 1);
+        switch (kind) {
+            case INTS:
+                System.arraycopy(ints, index, ints, index + 1, size - index);
+                ints[index] = ((NumberValue) v).intValue();
+                break;
+            case BOOLS:
+                for (int i = size; i > index; i--)
+                    setBit(i, bit(i - 1));
+                setBit(index, ((BoolValue) v).booleanValue());
+                break;
+            default:
+                System.arraycopy(values, index, values, index + 1, size - index);
+                values[index] = v;
+                break;
+        }
+        size++;
+        modCount++;
+    }
+
+    // Copiar de outra CompactList do mesmo tipo, ou de um range para uma
+    // lista de números, não cria valor nenhum.
+    @Override
+    public boolean addAll(Collection<? extends Value<?>> c) {
+        if (c instanceof RangeList r && r.isLazy() && (kind == EMPTY || kind == INTS))
+            return addRange(r);
+        if (!(c instanceof CompactList other))
+            return super.addAll(c);
+        if (other.size == 0)
+            return false;
+
+        if (kind == EMPTY)
+            start(other.kind, other.size);
+        if (kind != other.kind)
+            generalize();
+
+        grow(size + other.size);
+        switch (kind) {
+            case INTS:
+                System.arraycopy(other.ints, 0, ints, size, other.size);
+                break;
+            case BOOLS:
+                for (int i = 0; i < other.size; i++)
+                    setBit(size + i, other.bit(i));
+                break;
+            default:
+                if (other.kind == VALUES) {
+                    System.arraycopy(other.values, 0, values, size, other.size);
+                } else {
+                    for (int i = 0; i < other.size; i++)
+                        values[size + i] = other.get(i);
+                }
+                break;
+        }
+        size += other.size;
+        modCount++;
+        return true;
+    }
+
+    private boolean addRange(RangeList r) {
+        int n = r.size();
+        if (n == 0)
+            return false;
+
+        if (kind == EMPTY)
+            start(INTS, n);
+        grow(size + n);
+        for (int i = 0; i < n; i++)
+            ints[size + i] = r.intAt(i);
+        size += n;
+        modCount++;
+        return true;
+    }
+
+    // O mesmo hash de uma ArrayList com os mesmos valores.
+    @Override
+    public int hashCode() {
+        if (kind != INTS)
+            return super.hashCode();
+
+        int h = 1;
+        for (int i = 0; i < size; i++)
+            h = 31 * h + Integer.hashCode(ints[i]);
+        return h;
+    }
+
+    private void start(int kind, int capacity) {
+        this.kind = kind;
+        capacity = Math.max(capacity, reserved);
+        switch (kind) {
+            case INTS:
+                ints = new int[Math.max(capacity, 8)];
+                break;
+            case BOOLS:
+                bits = new long[(Math.max(capacity, 64) + 63) >>> 6];
+                break;
+            case VALUES:
+                values = new Value<?>[Math.max(capacity, 8)];
+                break;
+        }
+    }
+
+    private void grow(int capacity) {
+        switch (kind) {
+            case INTS:
+                if (capacity > ints.length)
+                    ints = Arrays.copyOf(ints, Math.max(capacity, ints.length * 2));
+                break;
+            case BOOLS:
+                if (capacity > bits.length << 6)
+                    bits = Arrays.copyOf(bits, Math.max((capacity + 63) >>> 6, bits.length * 2));
+                break;
+            default:
+                if (capacity > values.length)
+                    values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+                break;
+        }
+    }
+
+    // Passa para a representação genérica, criando os valores uma vez só.
+    private void generalize() {
+        if (kind == VALUES)
+            return;
+
+        values = toValues();
+        kind = VALUES;
+        ints = null;
+        bits = null;
+    }
+
+    private Value<?>[] toValues() {
+        Value<?>[] a = new Value<?>[Math.max(size, 8)];
+        for (int i = 0; i < size; i++)
+            a[i] = get(i);
+        return a;
+    }
+
+    private boolean bit(int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void setBit(int index, boolean b) {
+        if (b)
+            bits[index >>> 6] |= 1L << index;
+        else
+            bits[index >>> 6] &= ~(1L << index);
+    }
+
+}
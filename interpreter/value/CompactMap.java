@@ -0,0 +1,413 @@
+package interpreter.value;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Dicionário compacto e ordenado, o armazenamento de todo MapValue: as
+// entradas ficam em arrays densos, na ordem de inserção, e uma tabela de
+// endereçamento aberto guarda só o índice de cada entrada. A iteração (print,
+// keys() e values()) segue a ordem de inserção e percorre os arrays direto,
+// sem um nó por entrada.
+//
+// Enquanto todas as chaves são números, elas ficam num int[] e a busca não
+// chama NumberValue.hashCode nem equals. A primeira chave de outro tipo passa
+// o mapa, de uma vez e para sempre, para chaves Value<?> com o hash guardado
+// ao lado, como no HashMap. Os valores numéricos também ficam num int[]: a
+// avaliação marcada lê e grava o inteiro direto (find, isInt, intAt e
+// putInt), e o Value<?>[] ao lado guarda o objeto, criado só quando alguém o
+// pede. keys() e values() são visões sobre esses arrays (IndexedMap).
+public final class CompactMap extends AbstractMap<Value<?>, Value<?>> implements IndexedMap {
+
+    // Entradas na ordem de inserção. Com chaves numéricas vale keys; depois,
+    // objects e hashes. values[i] nulo quer dizer o número ints[i] ainda sem
+    // objeto, e um NumberValue em values[i] tem o mesmo valor de ints[i].
+    private int[] keys;
+    private Value<?>[] objects;
+    private int[] hashes;
+    private int[] ints;
+    private Value<?>[] values;
+    private int size;
+
+    // slots guarda o índice + 1 da entrada (0 é vazio) e tem sempre menos da
+    // metade ocupada. A posição são os bits altos do hash multiplicado pela
+    // razão áurea (shift é 32 menos o log2 do tamanho de slots), que espalha
+    // bem tanto chaves seguidas quanto múltiplos de potências de dois.
+    private int[] slots;
+    private int shift;
+
+    // As visões de keys() e values() ligadas ao mapa, ou null.
+    private Views keyViews;
+    private Views valueViews;
+
+    public CompactMap() {
+        this.keys = new int[8];
+        this.ints = new int[8];
+        this.values = new Value<?>[8];
+        this.slots = new int[16];
+        this.shift = 28;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entry(key) >= 0;
+    }
+
+    @Override
+    public Value<?> get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    public Value<?> getOrDefault(Object key, Value<?> defaultValue) {
+        int e = entry(key);
+        return e < 0 ? defaultValue : valueAt(e);
+    }
+
+    @Override
+    public Value<?> put(Value<?> key, Value<?> value) {
+        int n = size;
+        int e;
+        if (keys != null && key instanceof NumberValue nv) {
+            e = intEntry(nv.intValue());
+        } else {
+            generalize();
+            e = objectEntry(key);
+        }
+
+        Value<?> old = null;
+        if (size == n) {
+            old = valueAt(e);
+            detachValues();
+        }
+        if (value instanceof NumberValue nv)
+            ints[e] = nv.intValue();
+        values[e] = value;
+        return old;
+    }
+
+    @Override
+    public Value<?> remove(Object key) {
+        int e = entry(key);
+        if (e < 0)
+            return null;
+
+        Value<?> old = valueAt(e);
+        detachAll();
+        int n = size - e - 1;
+        if (keys != null) {
+            System.arraycopy(keys, e + 1, keys, e, n);
+        } else {
+            System.arraycopy(objects, e + 1, objects, e, n);
+            System.arraycopy(hashes, e + 1, hashes, e, n);
+            objects[size - 1] = null;
+        }
+        System.arraycopy(ints, e + 1, ints, e, n);
+        System.arraycopy(values, e + 1, values, e, n);
+        values[--size] = null;
+        rehash(slots.length);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        detachAll();
+        Arrays.fill(values, 0, size, null);
+        if (objects != null)
+            Arrays.fill(objects, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    // O mesmo hash de um HashMap com as mesmas entradas.
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < size; i++)
+            h += keyHash(i) ^ (isInt(i) ? Integer.hashCode(ints[i]) : values[i].hashCode());
+        return h;
+    }
+
+    @Override
+    public Set<Entry<Value<?>, Value<?>>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<Value<?>, Value<?>>> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    Entry<Value<?>, Value<?>> at(int e) {
+                        return new SimpleImmutableEntry<>(keyAt(e), valueAt(e));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Set<Value<?>> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public Iterator<Value<?>> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    Value<?> at(int e) {
+                        return keyAt(e);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Collection<Value<?>> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Value<?>> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    Value<?> at(int e) {
+                        return valueAt(e);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public List<Value<?>> keyList() {
+        MapView v = new MapView(this, size, true);
+        if (keyViews == null)
+            keyViews = new Views();
+        keyViews.add(v);
+        return v;
+    }
+
+    @Override
+    public List<Value<?>> valueList() {
+        MapView v = new MapView(this, size, false);
+        if (valueViews == null)
+            valueViews = new Views();
+        valueViews.add(v);
+        return v;
+    }
+
+    // Se as chaves ainda são só números e find e putInt valem.
+    public boolean isIntKeyed() {
+        return keys != null;
+    }
+
+    // A entrada da chave numérica, ou -1.
+    public int find(int key) {
+        return slots[intSlot(key)] - 1;
+    }
+
+    // Se o valor da entrada é um número.
+    public boolean isInt(int entry) {
+        return values[entry] == null || values[entry] instanceof NumberValue;
+    }
+
+    public int intAt(int entry) {
+        return ints[entry];
+    }
+
+    @Override
+    public Value<?> valueAt(int entry) {
+        Value<?> v = values[entry];
+        if (v == null) {
+            v = NumberValue.of(ints[entry]);
+            values[entry] = v;
+        }
+        return v;
+    }
+
+    @Override
+    public Value<?> keyAt(int entry) {
+        return keys != null ? NumberValue.of(keys[entry]) : objects[entry];
+    }
+
+    public void putInt(int key, int value) {
+        int n = size;
+        int e = intEntry(key);
+        if (size == n)
+            detachValues();
+        ints[e] = value;
+        values[e] = null;
+    }
+
+    // Antes de trocar um valor: entradas novas não mudam as visões.
+    private void detachValues() {
+        if (valueViews != null) {
+            valueViews.detach();
+            valueViews = null;
+        }
+    }
+
+    private void detachAll() {
+        detachValues();
+        if (keyViews != null) {
+            keyViews.detach();
+            keyViews = null;
+        }
+    }
+
+    private int entry(Object key) {
+        if (keys != null)
+            return key instanceof NumberValue nv ? find(nv.intValue()) : -1;
+
+        return key instanceof Value<?> v ? slots[objectSlot(v, v.hashCode())] - 1 : -1;
+    }
+
+    // A entrada da chave, criada se preciso.
+    private int intEntry(int key) {
+        int s = intSlot(key);
+        if (slots[s] != 0)
+            return slots[s] - 1;
+
+        int e = add();
+        keys[e] = key;
+        return place(s, e);
+    }
+
+    private int objectEntry(Value<?> key) {
+        int h = key.hashCode();
+        int s = objectSlot(key, h);
+        if (slots[s] != 0)
+            return slots[s] - 1;
+
+        int e = add();
+        objects[e] = key;
+        hashes[e] = h;
+        return place(s, e);
+    }
+
+    private int add() {
+        if (size == values.length) {
+            int n = size * 2;
+            if (keys != null) {
+                keys = Arrays.copyOf(keys, n);
+            } else {
+                objects = Arrays.copyOf(objects, n);
+                hashes = Arrays.copyOf(hashes, n);
+            }
+            ints = Arrays.copyOf(ints, n);
+            values = Arrays.copyOf(values, n);
+        }
+        return size++;
+    }
+
+    private int place(int s, int e) {
+        slots[s] = e + 1;
+        if (size * 2 > slots.length)
+            rehash(slots.length * 2);
+        return e;
+    }
+
+    // A posição da chave em slots, ou a do primeiro vazio da sondagem.
+    private int intSlot(int key) {
+        int mask = slots.length - 1;
+        int s = (key * 0x9E3779B9) >>> shift;
+        while (true) {
+            int e = slots[s];
+            if (e == 0 || keys[e - 1] == key)
+                return s;
+            s = (s + 1) & mask;
+        }
+    }
+
+    private int objectSlot(Value<?> key, int h) {
+        int mask = slots.length - 1;
+        int s = (h * 0x9E3779B9) >>> shift;
+        while (true) {
+            int e = slots[s];
+            if (e == 0)
+                return s;
+            Value<?> k = objects[e - 1];
+            if (hashes[e - 1] == h && (k == key || k.equals(key)))
+                return s;
+            s = (s + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        shift -= Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(slots.length);
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int s = (keyHash(i) * 0x9E3779B9) >>> shift;
+            while (slots[s] != 0)
+                s = (s + 1) & mask;
+            slots[s] = i + 1;
+        }
+    }
+
+    private int keyHash(int entry) {
+        return keys != null ? keys[entry] : hashes[entry];
+    }
+
+    // Passa para as chaves Value<?>. O hash de um NumberValue é o próprio
+    // inteiro, então as posições em slots continuam valendo.
+    private void generalize() {
+        if (keys == null)
+            return;
+
+        objects = new Value<?>[values.length];
+        hashes = new int[values.length];
+        for (int i = 0; i < size; i++) {
+            objects[i] = NumberValue.of(keys[i]);
+            hashes[i] = keys[i];
+        }
+        keys = null;
+    }
+
+    private abstract class Cursor<T> implements Iterator<T> {
+
+        private int next;
+
+        abstract T at(int e);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (next >= size)
+                throw new NoSuchElementException();
+            return at(next++);
+        }
+
+    }
+
+}
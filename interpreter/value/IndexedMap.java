@@ -0,0 +1,20 @@
+package interpreter.value;
+
+import java.util.List;
+
+// Mapa com as entradas numeradas na ordem de inserção, que dá keys() e
+// values() como visões (MapView) em vez de cópias. Uma entrada nova entra
+// sempre no fim, então não muda o que uma visão já vê; antes de trocar um
+// valor ou remover uma entrada, o mapa faz as visões afetadas copiarem o
+// que viam.
+public interface IndexedMap {
+
+    Value<?> keyAt(int entry);
+
+    Value<?> valueAt(int entry);
+
+    List<Value<?>> keyList();
+
+    List<Value<?>> valueList();
+
+}
@@ -2,9 +2,9 @@ package interpreter.value;
 
 import java.util.List;
 
-public class ListValue extends Value<List<Value<?>>> {
+public final class ListValue implements Value<List<Value<?>>> {
 
-    private List<Value<?>> value;
+    private final List<Value<?>> value;
 
     public ListValue(List<Value<?>> value) {
         this.value = value;
@@ -37,7 +37,7 @@ public class ListValue extends Value<List<Value<?>>> {
         sb.append("[");
 
         for (Value<?> v : this.value) {
-            sb.append(v == null ? "null" : v.toString());
+            sb.append(v.toString());
             sb.append(", ");
         }
 
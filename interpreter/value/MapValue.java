@@ -2,9 +2,9 @@ package interpreter.value;
 
 import java.util.Map;
 
-public class MapValue extends Value<Map<Value<?>, Value<?>>> {
+public final class MapValue implements Value<Map<Value<?>, Value<?>>> {
 
-    private Map<Value<?>, Value<?>> value;
+    private final Map<Value<?>, Value<?>> value;
 
     public MapValue(Map<Value<?>, Value<?>> value) {
         this.value = value;
@@ -42,7 +42,7 @@ public class MapValue extends Value<Map<Value<?>, Value<?>>> {
 
             sb.append(k.toString());
             sb.append(":");
-            sb.append(v == null ? "null" : v.toString());
+            sb.append(v.toString());
             sb.append(", ");
         }
 
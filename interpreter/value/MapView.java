@@ -0,0 +1,71 @@
+package interpreter.value;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Lista só de leitura com as chaves ou os valores das primeiras size
+// entradas de um IndexedMap, lidas direto do mapa. Quem escreve na lista
+// (AccessExpr.setValue) ganha antes uma cópia só dela, e o mapa pede a
+// mesma cópia (detach) antes de mudar o que a visão vê.
+public final class MapView extends AbstractList<Value<?>> implements RandomAccess {
+
+    private final IndexedMap map;
+    private final int size;
+    private final boolean keys;
+    private List<Value<?>> copy;
+
+    MapView(IndexedMap map, int size, boolean keys) {
+        this.map = map;
+        this.size = size;
+        this.keys = keys;
+    }
+
+    @Override
+    public int size() {
+        return copy != null ? copy.size() : size;
+    }
+
+    @Override
+    public Value<?> get(int index) {
+        if (copy != null)
+            return copy.get(index);
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        return keys ? map.keyAt(index) : map.valueAt(index);
+    }
+
+    @Override
+    public Value<?> set(int index, Value<?> v) {
+        detach();
+        return copy.set(index, v);
+    }
+
+    @Override
+    public void add(int index, Value<?> v) {
+        detach();
+        copy.add(index, v);
+        modCount++;
+    }
+
+    @Override
+    public Value<?> remove(int index) {
+        detach();
+        modCount++;
+        return copy.remove(index);
+    }
+
+    // Passa a guardar a própria cópia, desligada do mapa.
+    void detach() {
+        if (copy != null)
+            return;
+
+        CompactList c = new CompactList();
+        c.reserve(size);
+        for (int i = 0; i < size; i++)
+            c.add(keys ? map.keyAt(i) : map.valueAt(i));
+        copy = c;
+    }
+
+}
@@ -0,0 +1,30 @@
+package interpreter.value;
+
+public final class NullValue implements Value<Void> {
+
+    public static final NullValue NULL = new NullValue();
+
+    private NullValue() {
+    }
+
+    @Override
+    public Void value() {
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return "null";
+    }
+
+}
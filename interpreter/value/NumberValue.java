@@ -1,21 +1,42 @@
 package interpreter.value;
 
-public class NumberValue extends Value<Integer> {
+public final class NumberValue implements Value<Integer> {
 
-    private Integer value;
+    // Os inteiros pequenos, mais comuns em contadores e índices, são
+    // criados uma vez só.
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final NumberValue[] CACHE = new NumberValue[CACHE_HIGH - CACHE_LOW + 1];
 
-    public NumberValue(Integer value) {
+    static {
+        for (int i = 0; i < CACHE.length; i++)
+            CACHE[i] = new NumberValue(i + CACHE_LOW);
+    }
+
+    private final int value;
+
+    private NumberValue(int value) {
         this.value = value;
     }
 
+    public static NumberValue of(int value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH)
+            return CACHE[value - CACHE_LOW];
+        return new NumberValue(value);
+    }
+
     @Override
     public Integer value() {
         return this.value;
     }
 
+    public int intValue() {
+        return this.value;
+    }
+
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Integer.hashCode(this.value);
     }
 
     @Override
@@ -23,7 +44,7 @@ public class NumberValue extends Value<Integer> {
         if (this == obj) {
             return true;
         } else if (obj instanceof NumberValue) {
-            return this.value.intValue() == ((NumberValue) obj).value.intValue();
+            return this.value == ((NumberValue) obj).value;
         } else {
             return false;
         }
@@ -31,7 +52,7 @@ public class NumberValue extends Value<Integer> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return Integer.toString(this.value);
     }
 
 }
@@ -0,0 +1,233 @@
+package interpreter.value;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+// Vetor persistente: uma árvore de nós de 32 posições mais uma cauda com os
+// últimos até 32 valores, como o vetor do Clojure. Os nós da árvore nunca
+// mudam depois de prontos, então copy() é O(1) e as duas listas dividem a
+// estrutura; acrescentar no fim e gravar por índice copiam só o caminho até
+// a folha (O(log32 n)). A cauda só é escrita direto por quem é o seu dono,
+// e a outra lista a copia na primeira escrita.
+//
+// Por fora é uma List<Value<?>> mutável como outra qualquer: quem a escreve
+// troca a própria raiz e cauda, e as cópias continuam vendo as antigas.
+public final class PersistentList extends AbstractList<Value<?>> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    private int size;
+    private int shift;
+    private Object[] root;
+    private Object[] tail;
+    private boolean ownsTail;
+
+    public PersistentList() {
+        clear();
+    }
+
+    // Uma lista persistente com os valores de l: a estrutura dividida, se l
+    // já é persistente, ou os valores copiados uma vez.
+    public static PersistentList of(List<Value<?>> l) {
+        if (l instanceof PersistentList p)
+            return p.copy();
+
+        PersistentList p = new PersistentList();
+        for (Value<?> v : l)
+            p.add(v);
+        return p;
+    }
+
+    public PersistentList copy() {
+        PersistentList c = new PersistentList();
+        c.size = size;
+        c.shift = shift;
+        c.root = root;
+        c.tail = tail;
+        c.ownsTail = false;
+        ownsTail = false;
+        return c;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Value<?> get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        return (Value<?>) leaf(index)[index & MASK];
+    }
+
+    @Override
+    public Value<?> set(int index, Value<?> v) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        Value<?> old = get(index);
+        if (index >= tailOffset()) {
+            ownTail();
+            tail[index & MASK] = v;
+        } else {
+            root = assoc(shift, root, index, v);
+        }
+        return old;
+    }
+
+    @Override
+    public boolean add(Value<?> v) {
+        int t = size - tailOffset();
+        if (t < WIDTH) {
+            ownTail();
+            tail[t] = v;
+        } else {
+            // A cauda cheia vai para a árvore, que ganha um nível se a raiz
+            // também está cheia.
+            if ((size >>> BITS) > (1 << shift)) {
+                Object[] r = new Object[WIDTH];
+                r[0] = root;
+                r[1] = path(shift, tail);
+                root = r;
+                shift += BITS;
+            } else {
+                root = push(shift, root, tail);
+            }
+            tail = new Object[WIDTH];
+            tail[0] = v;
+            ownsTail = true;
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    // Inserir no meio e remover não aparecem na linguagem; refazem a lista.
+    @Override
+    public void add(int index, Value<?> v) {
+        if (index == size) {
+            add(v);
+            return;
+        }
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException(index);
+
+        Object[] a = toArray();
+        clear();
+        for (int i = 0; i < a.length; i++) {
+            if (i == index)
+                add(v);
+            add((Value<?>) a[i]);
+        }
+    }
+
+    @Override
+    public Value<?> remove(int index) {
+        Value<?> old = get(index);
+        Object[] a = toArray();
+        clear();
+        for (int i = 0; i < a.length; i++) {
+            if (i != index)
+                add((Value<?>) a[i]);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        shift = BITS;
+        root = EMPTY_NODE;
+        tail = new Object[WIDTH];
+        ownsTail = true;
+        modCount++;
+    }
+
+    // Percorre folha a folha, sem descer a árvore a cada valor.
+    @Override
+    public Iterator<Value<?>> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Value<?> next() {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                if ((next & MASK) == 0 || leaf == null)
+                    leaf = leaf(next);
+                return (Value<?>) leaf[next++ & MASK];
+            }
+        };
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leaf(int index) {
+        if (index >= tailOffset())
+            return tail;
+
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = (Object[]) node[(index >>> level) & MASK];
+        return node;
+    }
+
+    private void ownTail() {
+        if (!ownsTail) {
+            tail = tail.clone();
+            ownsTail = true;
+        }
+    }
+
+    // Cópia do caminho até a folha do índice, com o valor trocado.
+    private static Object[] assoc(int level, Object[] node, int index, Value<?> v) {
+        Object[] n = node.clone();
+        if (level == 0) {
+            n[index & MASK] = v;
+        } else {
+            int i = (index >>> level) & MASK;
+            n[i] = assoc(level - BITS, (Object[]) node[i], index, v);
+        }
+        return n;
+    }
+
+    // Cópia do caminho até a posição da folha cheia que entra na árvore.
+    private Object[] push(int level, Object[] parent, Object[] leaf) {
+        int i = ((size - 1) >>> level) & MASK;
+        Object[] n = parent.clone();
+        if (level == BITS) {
+            n[i] = leaf;
+        } else {
+            Object[] child = (Object[]) parent[i];
+            n[i] = child != null ? push(level - BITS, child, leaf) : path(level - BITS, leaf);
+        }
+        return n;
+    }
+
+    private static Object[] path(int level, Object[] leaf) {
+        if (level == 0)
+            return leaf;
+
+        Object[] n = new Object[WIDTH];
+        n[0] = path(level - BITS, leaf);
+        return n;
+    }
+
+}
@@ -0,0 +1,87 @@
+package interpreter.value;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+// Os inteiros de [start, end) sem lista por trás: cada leitura calcula o
+// valor. Quem itera sobre ela (ForCommand, ForListItem, AccessExpr.tagged)
+// testa isLazy e usa um contador com first e intAt. A primeira escrita
+// passa a lista, de uma vez e para sempre, para uma CompactList só dela,
+// como MapView faz com o mapa.
+public final class RangeList extends AbstractList<Value<?>> implements RandomAccess {
+
+    private final int start;
+    private final int size;
+    private CompactList copy;
+
+    // Quem cria confere antes com fits; a lista não trunca o tamanho.
+    public RangeList(int start, int end) {
+        this.start = start;
+        this.size = end > start ? end - start : 0;
+    }
+
+    // Se [start, end) tem no máximo Integer.MAX_VALUE elementos.
+    public static boolean fits(int start, int end) {
+        return (long) end - start <= Integer.MAX_VALUE;
+    }
+
+    public boolean isLazy() {
+        return copy == null;
+    }
+
+    // Só valem com isLazy verdadeiro.
+    public int first() {
+        return start;
+    }
+
+    public int intAt(int index) {
+        return start + index;
+    }
+
+    @Override
+    public int size() {
+        return copy != null ? copy.size() : size;
+    }
+
+    @Override
+    public Value<?> get(int index) {
+        if (copy != null)
+            return copy.get(index);
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        return NumberValue.of(start + index);
+    }
+
+    @Override
+    public Value<?> set(int index, Value<?> v) {
+        detach();
+        return copy.set(index, v);
+    }
+
+    @Override
+    public void add(int index, Value<?> v) {
+        detach();
+        copy.add(index, v);
+        modCount++;
+    }
+
+    @Override
+    public Value<?> remove(int index) {
+        detach();
+        modCount++;
+        return copy.remove(index);
+    }
+
+    private void detach() {
+        if (copy != null)
+            return;
+
+        CompactList c = new CompactList();
+        c.reserve(size);
+        for (int i = 0; i < size; i++)
+            c.addInt(start + i);
+        copy = c;
+    }
+
+}
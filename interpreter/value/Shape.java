@@ -0,0 +1,61 @@
+package interpreter.value;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Forma (classe oculta) de um mapa usado como registro: a sequência das
+// chaves de texto, cada uma com a sua posição no array de valores. Formas
+// são compartilhadas. Todo mapa que ganha as mesmas chaves na mesma ordem
+// chega à mesma Shape pelas transições a partir de EMPTY, então comparar
+// formas por identidade basta para saber que a posição de uma chave vale.
+public final class Shape {
+
+    public static final Shape EMPTY = new Shape(new TextValue[0]);
+
+    private final TextValue[] keys;
+    private final Map<TextValue, Integer> slots;
+    private final Map<TextValue, Shape> transitions;
+
+    private Shape(TextValue[] keys) {
+        this.keys = keys;
+        this.slots = new HashMap<>();
+        for (int i = 0; i < keys.length; i++)
+            slots.put(keys[i], i);
+        this.transitions = new HashMap<>();
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public TextValue keyAt(int slot) {
+        return keys[slot];
+    }
+
+    // A posição da chave, ou -1.
+    public int slot(Object key) {
+        if (!(key instanceof TextValue tv))
+            return -1;
+
+        Integer s = slots.get(tv);
+        return s == null ? -1 : s;
+    }
+
+    // A forma com a chave a mais no fim; a própria forma se a chave já está
+    // nela.
+    public Shape with(TextValue key) {
+        if (slots.containsKey(key))
+            return this;
+
+        Shape next = transitions.get(key);
+        if (next == null) {
+            TextValue[] k = Arrays.copyOf(keys, keys.length + 1);
+            k[keys.length] = key;
+            next = new Shape(k);
+            transitions.put(key, next);
+        }
+        return next;
+    }
+
+}
@@ -0,0 +1,192 @@
+package interpreter.value;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Mapa de um literal cujas chaves são todas textos constantes: a Shape diz a
+// posição de cada chave e os valores ficam num array do tamanho exato. Ler e
+// gravar uma chave da forma é só indexar o array, e um AccessExpr de índice
+// constante guarda a forma e a posição da última consulta. A primeira chave
+// fora da forma (ou uma remoção) passa o mapa, de uma vez e para sempre,
+// para um CompactMap com as mesmas entradas na mesma ordem.
+public final class ShapedMap extends AbstractMap<Value<?>, Value<?>> implements IndexedMap {
+
+    private final Shape shape;
+    private Value<?>[] values;
+
+    // A tabela de hash, depois da primeira chave nova.
+    private CompactMap map;
+
+    // As visões de keys() e values() ligadas ao mapa, ou null. A tabela de
+    // hash guarda as entradas na mesma ordem, então elas continuam valendo
+    // depois de generalize.
+    private Views keyViews;
+    private Views valueViews;
+
+    public ShapedMap(Shape shape) {
+        this.shape = shape;
+        this.values = new Value<?>[shape.size()];
+    }
+
+    // A forma, ou null depois de passar para a tabela de hash.
+    public Shape shape() {
+        return map == null ? shape : null;
+    }
+
+    // Só valem com shape() não nulo.
+    public Value<?> slotValue(int slot) {
+        return values[slot];
+    }
+
+    public void setSlot(int slot, Value<?> value) {
+        detachValues();
+        values[slot] = value;
+    }
+
+    @Override
+    public Value<?> keyAt(int entry) {
+        return map != null ? map.keyAt(entry) : shape.keyAt(entry);
+    }
+
+    @Override
+    public Value<?> valueAt(int entry) {
+        return map != null ? map.valueAt(entry) : values[entry];
+    }
+
+    @Override
+    public List<Value<?>> keyList() {
+        MapView v = new MapView(this, size(), true);
+        if (keyViews == null)
+            keyViews = new Views();
+        keyViews.add(v);
+        return v;
+    }
+
+    @Override
+    public List<Value<?>> valueList() {
+        MapView v = new MapView(this, size(), false);
+        if (valueViews == null)
+            valueViews = new Views();
+        valueViews.add(v);
+        return v;
+    }
+
+    @Override
+    public int size() {
+        return map != null ? map.size() : values.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map != null ? map.containsKey(key) : shape.slot(key) >= 0;
+    }
+
+    @Override
+    public Value<?> get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    public Value<?> getOrDefault(Object key, Value<?> defaultValue) {
+        if (map != null)
+            return map.getOrDefault(key, defaultValue);
+
+        int s = shape.slot(key);
+        return s < 0 ? defaultValue : values[s];
+    }
+
+    @Override
+    public Value<?> put(Value<?> key, Value<?> value) {
+        detachValues();
+        if (map == null) {
+            int s = shape.slot(key);
+            if (s >= 0) {
+                Value<?> old = values[s];
+                values[s] = value;
+                return old;
+            }
+            generalize();
+        }
+
+        return map.put(key, value);
+    }
+
+    @Override
+    public Value<?> remove(Object key) {
+        detachAll();
+        generalize();
+        return map.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        detachAll();
+        generalize();
+        map.clear();
+    }
+
+    @Override
+    public Set<Entry<Value<?>, Value<?>>> entrySet() {
+        if (map != null)
+            return map.entrySet();
+
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return ShapedMap.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<Value<?>, Value<?>>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return map == null && next < values.length;
+                    }
+
+                    @Override
+                    public Entry<Value<?>, Value<?>> next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        int s = next++;
+                        return new SimpleImmutableEntry<>(shape.keyAt(s), values[s]);
+                    }
+                };
+            }
+        };
+    }
+
+    // Conservador: qualquer put desliga as visões de values(), mesmo o de
+    // uma chave nova.
+    private void detachValues() {
+        if (valueViews != null) {
+            valueViews.detach();
+            valueViews = null;
+        }
+    }
+
+    private void detachAll() {
+        detachValues();
+        if (keyViews != null) {
+            keyViews.detach();
+            keyViews = null;
+        }
+    }
+
+    private void generalize() {
+        if (map != null)
+            return;
+
+        map = new CompactMap();
+        for (int i = 0; i < values.length; i++)
+            map.put(shape.keyAt(i), values[i]);
+        values = null;
+    }
+
+}
@@ -1,29 +1,100 @@
 package interpreter.value;
 
-public class TextValue extends Value<String> {
+import java.io.PrintStream;
+
+// Um texto é uma String ou o prefixo [0, length) de um StringBuilder
+// compartilhado. Concatenar a um texto que é o prefixo inteiro do seu
+// buffer acrescenta no próprio buffer, sem copiar o que já estava lá: os
+// textos anteriores continuam vendo o mesmo prefixo, que nunca muda. Assim
+// s = s + x num laço é linear no tamanho final. A String só é criada (e
+// guardada) quando alguém a pede: comparação, hash como chave de mapa ou
+// value(); print escreve o buffer em pedaços, sem criá-la.
+public final class TextValue implements Value<String> {
+
+    // Abaixo disso, concatenar cria logo a String.
+    private static final int SHORT = 64;
+    private static final int CHUNK = 8192;
 
     private String value;
+    private final StringBuilder buffer;
+    private final int length;
 
     public TextValue(String value) {
         this.value = value;
+        this.buffer = null;
+        this.length = value.length();
+    }
+
+    private TextValue(StringBuilder buffer, int length) {
+        this.value = null;
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    public static TextValue concat(TextValue a, TextValue b) {
+        if (b.length == 0)
+            return a;
+        if (a.length == 0)
+            return b;
+
+        if (a.buffer != null && a.buffer.length() == a.length) {
+            if (b.buffer == a.buffer)
+                a.buffer.append(b.value());
+            else
+                b.appendTo(a.buffer);
+            return new TextValue(a.buffer, a.buffer.length());
+        }
+
+        int n = a.length + b.length;
+        if (n < SHORT)
+            return new TextValue(a.value() + b.value());
+
+        StringBuilder sb = new StringBuilder(n * 2);
+        a.appendTo(sb);
+        b.appendTo(sb);
+        return new TextValue(sb, n);
+    }
+
+    public int length() {
+        return this.length;
     }
 
     @Override
     public String value() {
+        if (this.value == null)
+            this.value = this.buffer.substring(0, this.length);
         return this.value;
     }
 
+    // Escreve o texto sem criar a String inteira.
+    public void print(PrintStream out) {
+        if (this.value != null) {
+            out.print(this.value);
+            return;
+        }
+
+        for (int i = 0; i < this.length; i += CHUNK)
+            out.print(this.buffer.substring(i, Math.min(i + CHUNK, this.length)));
+    }
+
+    private void appendTo(StringBuilder sb) {
+        if (this.value != null)
+            sb.append(this.value);
+        else
+            sb.append(this.buffer, 0, this.length);
+    }
+
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return this.value().hashCode();
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
             return true;
-        } else if (obj instanceof TextValue) {
-            return this.value.equals(((TextValue) obj).value);
+        } else if (obj instanceof TextValue tv) {
+            return this.length == tv.length && this.value().equals(tv.value());
         } else {
             return false;
         }
@@ -31,7 +102,7 @@ public class TextValue extends Value<String> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return this.value();
     }
 
 }
@@ -1,10 +1,10 @@
 package interpreter.value;
 
-public abstract class Value<T> {
+// Os valores da linguagem. A hierarquia é fechada e as implementações são
+// finais, então cada teste instanceof dos operadores compara uma classe só.
+// O null da linguagem é NullValue.NULL, nunca o null do Java.
+public sealed interface Value<T> permits NumberValue, BoolValue, TextValue, ListValue, MapValue, NullValue {
 
-  protected Value() {
-  }
-
-  public abstract T value();
+  T value();
 
 }
@@ -0,0 +1,32 @@
+package interpreter.value;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+// As visões de um mapa ainda ligadas a ele. As referências são fracas: uma
+// visão que ninguém mais usa não precisa copiar nada, e as já coletadas
+// saem quando a lista chega a limit.
+final class Views {
+
+    private final List<WeakReference<MapView>> refs = new ArrayList<>(4);
+    private int limit = 4;
+
+    void add(MapView v) {
+        if (refs.size() == limit) {
+            refs.removeIf(r -> r.get() == null);
+            if (refs.size() > limit / 2)
+                limit *= 2;
+        }
+        refs.add(new WeakReference<>(v));
+    }
+
+    void detach() {
+        for (WeakReference<MapView> r : refs) {
+            MapView v = r.get();
+            if (v != null)
+                v.detach();
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+package interpreter.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.command.*;
+import interpreter.expr.*;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Traduz a árvore de SyntacticAnalysis para o código da máquina virtual.
+// Cada Variable vira uma posição fixa; laços viram desvios. A ordem de
+// avaliação é a mesma dos métodos execute()/expr() dos nós, inclusive quando
+// a árvore avalia a mesma subexpressão duas vezes (x[i]++ lê e escreve x[i]).
+public class BytecodeCompiler {
+
+    private int[] code;
+    private int size;
+    private int depth;
+    private int maxDepth;
+    private int temps;
+
+    private final List<Value<?>> constants;
+    private final Map<Value<?>, Integer> constantIndex;
+    private final Map<Variable, Integer> slots;
+    private final List<Variable> variables;
+
+    public BytecodeCompiler() {
+        code = new int[256];
+        constants = new ArrayList<>();
+        constantIndex = new HashMap<>();
+        slots = new IdentityHashMap<>();
+        variables = new ArrayList<>();
+    }
+
+    public Program compile(Command cmd) {
+        compileCommand(cmd);
+        emit(Opcode.HALT);
+
+        int n = variables.size();
+        String[] names = new String[n];
+        int[] lines = new int[n];
+        boolean[] constant = new boolean[n];
+        boolean[] nullable = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Variable var = variables.get(i);
+            names[i] = var.getName();
+            lines[i] = var.getLine();
+            constant[i] = var.isConstant();
+            nullable[i] = var instanceof UnsafeVariable;
+        }
+
+        return new Program(Arrays.copyOf(code, size), constants.toArray(new Value<?>[0]),
+                names, lines, constant, nullable, temps, maxDepth);
+    }
+
+    private void compileCommand(Command cmd) {
+        if (cmd instanceof BlocksCommand c) {
+            for (Command child : c.getCommands())
+                compileCommand(child);
+        } else if (cmd instanceof AssignCommand c) {
+            if (c.getLhs() == null && c.getRhs() instanceof UnaryExpr e
+                    && e.getExpr() instanceof Variable v && e.getOp() != UnaryOp.NEG && e.getOp() != UnaryOp.NOT) {
+                // x++; sozinho: o resultado seria descartado, então soma direto na variável.
+                int delta = e.getOp() == UnaryOp.PRE_INC || e.getOp() == UnaryOp.POS_INC ? 1 : -1;
+                emit(Opcode.INC_VAR, slot(v), delta, e.getLine());
+                return;
+            }
+
+            compileExpr(c.getRhs());
+            if (c.getLhs() != null) {
+                compileStore(c.getLhs());
+            } else {
+                emit(Opcode.POP);
+            }
+        } else if (cmd instanceof PrintCommand c) {
+            if (c.getExpr() != null) {
+                compileExpr(c.getExpr());
+                emit(Opcode.PRINT);
+            }
+            emit(Opcode.PRINTLN);
+        } else if (cmd instanceof IfCommand c) {
+            if (c.getExpr() == null) {
+                emit(Opcode.ABORT, c.getLine());
+                return;
+            }
+
+            int toElse = compileCondition(c.getExpr(), false, c.getLine());
+            compileCommand(c.getThen());
+            if (c.getElse() != null) {
+                int toEnd = emitJump(Opcode.JUMP);
+                patch(toElse);
+                compileCommand(c.getElse());
+                patch(toEnd);
+            } else {
+                patch(toElse);
+            }
+        } else if (cmd instanceof WhileCommand c) {
+            int start = size;
+            int toEnd = compileCondition(c.getExpr(), false, c.getLine());
+            compileCommand(c.getCommands());
+            emit(Opcode.JUMP, start);
+            patch(toEnd);
+        } else if (cmd instanceof DoWhileCommand c) {
+            int start = size;
+            compileCommand(c.getCommands());
+            int toStart = compileCondition(c.getExpr(), true, c.getLine());
+            code[toStart] = start;
+        } else if (cmd instanceof ForCommand c) {
+            compileExpr(c.getExpr());
+            int t = temps++;
+            emit(Opcode.FOR_ITER, t, c.getLine());
+            int start = size;
+            int toEnd = emitJump(Opcode.NEXT, t);
+            compileStore(c.getVar());
+            compileCommand(c.getCommands());
+            emit(Opcode.JUMP, start);
+            patch(toEnd);
+        } else if (cmd instanceof AssertCommand c) {
+            if (c.getExpr() == null)
+                return;
+
+            int toEnd = compileCondition(c.getExpr(), true, c.getLine());
+            if (c.getMsg() != null) {
+                compileExpr(c.getMsg());
+                emit(Opcode.ASSERT_FAIL);
+            } else {
+                emit(Opcode.ASSERT_FAIL_DEFAULT);
+            }
+            patch(toEnd);
+        } else {
+            throw new IllegalArgumentException("Unsupported command " + cmd.getClass().getName());
+        }
+    }
+
+    private void compileExpr(Expr expr) {
+        if (expr instanceof Variable v) {
+            int s = slot(v);
+            emit(v instanceof UnsafeVariable ? Opcode.LOAD_NULLABLE : Opcode.LOAD, s);
+        } else if (expr instanceof ConstExpr e) {
+            emit(Opcode.CONST, constant(e.getValue()));
+        } else if (expr instanceof BinaryExpr e) {
+            compileExpr(e.getLeft());
+            compileExpr(e.getRight());
+            emitBinary(e.getOp(), e.getLine());
+        } else if (expr instanceof UnaryExpr e) {
+            compileUnary(e);
+        } else if (expr instanceof AccessExpr e) {
+            compileExpr(e.getBase());
+            emit(Opcode.CHECK_INDEXABLE, e.getLine());
+            compileExpr(e.getIndex());
+            emit(Opcode.GET_INDEX, e.getLine());
+        } else if (expr instanceof FunctionExpr e) {
+            compileExpr(e.getExpr());
+            emit(Opcode.CALL, e.getOp().ordinal(), e.getLine());
+        } else if (expr instanceof RangeExpr e) {
+            if (e.getFrom() != null)
+                compileExpr(e.getFrom());
+            else
+                emit(Opcode.CONST, constant(NumberValue.of(0)));
+            compileExpr(e.getTo());
+            emit(Opcode.RANGE, e.getLine());
+        } else if (expr instanceof ListExpr e) {
+            int t = temps++;
+            emit(Opcode.NEW_LIST, t);
+            for (ListItem item : e.getItems())
+                compileItem(item, t);
+            emit(Opcode.LIST_VALUE, t);
+        } else if (expr instanceof MapExpr e) {
+            int t = temps++;
+            emit(Opcode.NEW_MAP, t);
+            for (MapItem item : e.getItems()) {
+                compileExpr(item.key);
+                emit(Opcode.CHECK_KEY, e.getLine());
+                compileExpr(item.value);
+                emit(Opcode.PUT, t);
+            }
+            emit(Opcode.MAP_VALUE, t);
+        } else {
+            throw new IllegalArgumentException("Unsupported expression " + expr.getClass().getName());
+        }
+    }
+
+    // Gera o equivalente a lhs.setValue(v), com v já no topo da pilha.
+    private void compileStore(SetExpr lhs) {
+        if (lhs instanceof Variable v) {
+            int s = slot(v);
+            emit(v instanceof UnsafeVariable ? Opcode.STORE_NULLABLE : Opcode.STORE, s);
+        } else if (lhs instanceof AccessExpr e) {
+            compileExpr(e.getBase());
+            emit(Opcode.CHECK_INDEXABLE, e.getLine());
+            compileExpr(e.getIndex());
+            emit(Opcode.SET_INDEX, e.getLine());
+        } else {
+            throw new IllegalArgumentException("Unsupported target " + lhs.getClass().getName());
+        }
+    }
+
+    private void compileUnary(UnaryExpr e) {
+        Expr operand = e.getExpr();
+        int line = e.getLine();
+        compileExpr(operand);
+
+        switch (e.getOp()) {
+            case NEG:
+                emit(Opcode.NEG, line);
+                return;
+            case NOT:
+                emit(Opcode.NOT, line);
+                return;
+            default:
+                break;
+        }
+
+        boolean post = e.getOp() == UnaryOp.POS_INC || e.getOp() == UnaryOp.POS_DEC;
+        int delta = e.getOp() == UnaryOp.PRE_INC || e.getOp() == UnaryOp.POS_INC ? 1 : -1;
+
+        // Pós-fixado: o valor antigo fica na pilha como resultado.
+        if (post)
+            emit(Opcode.DUP);
+        emit(Opcode.INCR, delta, line);
+
+        if (operand instanceof Variable || operand instanceof AccessExpr) {
+            if (!post)
+                emit(Opcode.DUP);
+            compileStore((SetExpr) operand);
+        } else if (post) {
+            emit(Opcode.POP);
+        }
+    }
+
+    private void compileItem(ListItem item, int t) {
+        if (item instanceof SingleListItem i) {
+            compileExpr(i.getExpr());
+            emit(Opcode.APPEND, t);
+        } else if (item instanceof SpreadListItem i) {
+            compileExpr(i.getExpr());
+            emit(Opcode.SPREAD, t, i.getLine());
+        } else if (item instanceof IfListItem i) {
+            int toElse = compileCondition(i.getExpr(), false, i.getLine());
+            compileItem(i.getThen(), t);
+            if (i.getElse() != null) {
+                int toEnd = emitJump(Opcode.JUMP);
+                patch(toElse);
+                compileItem(i.getElse(), t);
+                patch(toEnd);
+            } else {
+                patch(toElse);
+            }
+        } else if (item instanceof ForListItem i) {
+            compileExpr(i.getExpr());
+            int it = temps++;
+            emit(Opcode.ITER, it, i.getLine());
+            int start = size;
+            int toEnd = emitJump(Opcode.NEXT, it);
+            compileStore(i.getVar());
+            compileItem(i.getItem(), t);
+            emit(Opcode.JUMP, start);
+            patch(toEnd);
+        } else {
+            throw new IllegalArgumentException("Unsupported list item " + item.getClass().getName());
+        }
+    }
+
+    // Avalia a condição e desvia se ela for igual a "when"; devolve a posição
+    // do destino a corrigir. Uma comparação numérica vira um único desvio,
+    // sem criar o BoolValue intermediário.
+    private int compileCondition(Expr expr, boolean when, int line) {
+        if (expr instanceof BinaryExpr e) {
+            int op = switch (e.getOp()) {
+                case LOWER_THAN -> when ? Opcode.JUMP_LT : Opcode.JUMP_GE;
+                case LOWER_EQUAL -> when ? Opcode.JUMP_LE : Opcode.JUMP_GT;
+                case GREATER_THAN -> when ? Opcode.JUMP_GT : Opcode.JUMP_LE;
+                case GREATER_EQUAL -> when ? Opcode.JUMP_GE : Opcode.JUMP_LT;
+                default -> -1;
+            };
+
+            if (op != -1) {
+                compileExpr(e.getLeft());
+                compileExpr(e.getRight());
+                return emitJump(op, e.getLine());
+            }
+        }
+
+        compileExpr(expr);
+        return emitJump(when ? Opcode.JUMP_IF_TRUE : Opcode.JUMP_IF_FALSE, line);
+    }
+
+    private void emitBinary(BinaryOp op, int line) {
+        switch (op) {
+            case IF_NULL -> emit(Opcode.IF_NULL);
+            case AND -> emit(Opcode.AND, line);
+            case OR -> emit(Opcode.OR, line);
+            case EQUAL -> emit(Opcode.EQUAL);
+            case NOT_EQUAL -> emit(Opcode.NOT_EQUAL);
+            case LOWER_THAN -> emit(Opcode.LOWER_THAN, line);
+            case LOWER_EQUAL -> emit(Opcode.LOWER_EQUAL, line);
+            case GREATER_THAN -> emit(Opcode.GREATER_THAN, line);
+            case GREATER_EQUAL -> emit(Opcode.GREATER_EQUAL, line);
+            case ADD -> emit(Opcode.ADD, line);
+            case SUB -> emit(Opcode.SUB, line);
+            case MUL -> emit(Opcode.MUL, line);
+            case DIV -> emit(Opcode.DIV, line);
+            case MOD -> emit(Opcode.MOD, line);
+        }
+    }
+
+    private int slot(Variable var) {
+        Integer s = slots.get(var);
+        if (s == null) {
+            s = variables.size();
+            slots.put(var, s);
+            variables.add(var);
+        }
+
+        return s;
+    }
+
+    private int constant(Value<?> value) {
+        Integer k = constantIndex.get(value);
+        if (k == null) {
+            k = constants.size();
+            constantIndex.put(value, k);
+            constants.add(value);
+        }
+
+        return k;
+    }
+
+    // Emite um desvio cujo destino, o primeiro operando, ainda é desconhecido.
+    private int emitJump(int op, int... operands) {
+        int[] all = new int[operands.length + 1];
+        all[0] = -1;
+        System.arraycopy(operands, 0, all, 1, operands.length);
+        emit(op, all);
+
+        return size - all.length;
+    }
+
+    private void patch(int at) {
+        code[at] = size;
+    }
+
+    private void emit(int op, int... operands) {
+        ensure(1 + operands.length);
+        code[size++] = op;
+        for (int operand : operands)
+            code[size++] = operand;
+
+        depth += Opcode.effect(op);
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void ensure(int n) {
+        if (size + n > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + n));
+    }
+
+}
@@ -0,0 +1,137 @@
+package interpreter.vm;
+
+// Instruções da máquina virtual. Cada instrução ocupa uma posição do vetor de
+// código, seguida dos seus operandos. "line" é a linha usada por Utils.abort,
+// a mesma que o nó da árvore usaria.
+public final class Opcode {
+
+    private Opcode() {
+    }
+
+    // Pilha e variáveis
+    public static final int CONST = 0;          // k            -> constants[k]
+    public static final int LOAD = 1;           // s            -> valor (variável não anulável)
+    public static final int LOAD_NULLABLE = 2;  // s            -> valor (variável anulável)
+    public static final int STORE = 3;          // s       v    ->
+    public static final int STORE_NULLABLE = 4; // s       v    ->
+    public static final int POP = 5;            //         v    ->
+    public static final int DUP = 6;            //         v    -> v v
+
+    // Desvios
+    public static final int JUMP = 7;           // target
+    public static final int JUMP_IF_FALSE = 8;  // target line  b ->
+    public static final int JUMP_IF_TRUE = 9;   // target line  b ->
+    public static final int ABORT = 10;         // line
+
+    // Operadores binários: v1 v2 -> resultado
+    public static final int IF_NULL = 11;
+    public static final int AND = 12;           // line
+    public static final int OR = 13;            // line
+    public static final int EQUAL = 14;
+    public static final int NOT_EQUAL = 15;
+    public static final int LOWER_THAN = 16;    // line
+    public static final int LOWER_EQUAL = 17;   // line
+    public static final int GREATER_THAN = 18;  // line
+    public static final int GREATER_EQUAL = 19; // line
+    public static final int ADD = 20;           // line
+    public static final int SUB = 21;           // line
+    public static final int MUL = 22;           // line
+    public static final int DIV = 23;           // line
+    public static final int MOD = 24;           // line
+
+    // Operadores unários: v -> resultado
+    public static final int NEG = 25;           // line
+    public static final int NOT = 26;           // line
+    public static final int INCR = 27;          // delta line
+    public static final int CALL = 28;          // op line
+
+    // Acesso a listas e mapas
+    public static final int CHECK_INDEXABLE = 29; // line   base -> base
+    public static final int GET_INDEX = 30;     // line     base index -> valor
+    public static final int SET_INDEX = 31;     // line     v base index ->
+
+    // Construção de listas e mapas num temporário t
+    public static final int NEW_LIST = 32;      // t
+    public static final int APPEND = 33;        // t        v ->
+    public static final int SPREAD = 34;        // t line   lista ->
+    public static final int LIST_VALUE = 35;    // t        -> lista
+    public static final int NEW_MAP = 36;       // t
+    public static final int CHECK_KEY = 37;     // line     k -> k
+    public static final int PUT = 38;           // t        k v ->
+    public static final int MAP_VALUE = 39;     // t        -> mapa
+
+    // Iteração sobre uma lista guardada no temporário t
+    public static final int ITER = 40;          // t line   lista ->
+    public static final int FOR_ITER = 41;      // t line   lista ->
+    public static final int NEXT = 42;          // target t -> item, ou desvia ao final
+
+    // Comandos
+    public static final int PRINT = 43;         //          v ->
+    public static final int PRINTLN = 44;
+    public static final int ASSERT_FAIL = 45;   //          mensagem ->
+    public static final int ASSERT_FAIL_DEFAULT = 46;
+    public static final int HALT = 47;
+
+    // Instruções combinadas, geradas quando a forma da árvore permite
+    public static final int JUMP_LT = 48;       // target line  v1 v2 -> (desvia se v1 < v2)
+    public static final int JUMP_LE = 49;       // target line  v1 v2 ->
+    public static final int JUMP_GT = 50;       // target line  v1 v2 ->
+    public static final int JUMP_GE = 51;       // target line  v1 v2 ->
+    public static final int INC_VAR = 52;       // s delta line (x++; como comando)
+
+    // Funções de dois argumentos
+    public static final int RANGE = 53;         // line     v1 v2 -> lista (range(n) empilha 0 antes)
+
+    // Quanto cada instrução altera a altura da pilha
+    static int effect(int op) {
+        switch (op) {
+            case CONST:
+            case LOAD:
+            case LOAD_NULLABLE:
+            case DUP:
+            case LIST_VALUE:
+            case MAP_VALUE:
+            case NEXT:
+                return 1;
+            case STORE:
+            case STORE_NULLABLE:
+            case POP:
+            case JUMP_IF_FALSE:
+            case JUMP_IF_TRUE:
+            case IF_NULL:
+            case AND:
+            case OR:
+            case EQUAL:
+            case NOT_EQUAL:
+            case LOWER_THAN:
+            case LOWER_EQUAL:
+            case GREATER_THAN:
+            case GREATER_EQUAL:
+            case ADD:
+            case SUB:
+            case MUL:
+            case DIV:
+            case MOD:
+            case GET_INDEX:
+            case APPEND:
+            case SPREAD:
+            case ITER:
+            case FOR_ITER:
+            case PRINT:
+            case ASSERT_FAIL:
+            case RANGE:
+                return -1;
+            case PUT:
+            case JUMP_LT:
+            case JUMP_LE:
+            case JUMP_GT:
+            case JUMP_GE:
+                return -2;
+            case SET_INDEX:
+                return -3;
+            default:
+                return 0;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package interpreter.vm;
+
+import interpreter.value.Value;
+
+// Resultado da compilação: o código, a tabela de constantes e, para cada
+// posição de variável, o que o nó Variable correspondente sabia (nome, linha
+// da declaração, se é constante e se aceita null).
+public class Program {
+
+    final int[] code;
+    final Value<?>[] constants;
+    final String[] names;
+    final int[] lines;
+    final boolean[] constant;
+    final boolean[] nullable;
+    final int temps;
+    final int maxStack;
+
+    Program(int[] code, Value<?>[] constants, String[] names, int[] lines,
+            boolean[] constant, boolean[] nullable, int temps, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.names = names;
+        this.lines = lines;
+        this.constant = constant;
+        this.nullable = nullable;
+        this.temps = temps;
+        this.maxStack = maxStack;
+    }
+
+    public int size() {
+        return code.length;
+    }
+
+    public int variables() {
+        return names.length;
+    }
+
+}
@@ -0,0 +1,452 @@
+package interpreter.vm;
+
+import java.util.List;
+import java.util.Map;
+
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.RangeExpr;
+import interpreter.expr.FunctionOp;
+import interpreter.util.Operations;
+import interpreter.util.Utils;
+import interpreter.value.BoolValue;
+import interpreter.value.CompactList;
+import interpreter.value.CompactMap;
+import interpreter.value.ListValue;
+import interpreter.value.MapValue;
+import interpreter.value.NullValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Executa um Program numa pilha de valores. As verificações e as mensagens de
+// erro são as mesmas dos nós da árvore: Utils.abort com a linha do nó, e as
+// mesmas exceções de FunctionExpr.
+public class VirtualMachine {
+
+    private static final FunctionOp[] FUNCTION_OPS = FunctionOp.values();
+
+    private final Program program;
+
+    // Estado das variáveis, como em SafeVariable/UnsafeVariable
+    private final Value<?>[] vars;
+    private final boolean[] initialized;
+
+    // Listas e mapas em construção, e listas sendo percorridas
+    private final Object[] temps;
+    private final int[] cursors;
+
+    public VirtualMachine(Program program) {
+        this.program = program;
+        this.vars = new Value<?>[program.variables()];
+        this.initialized = new boolean[program.variables()];
+        this.temps = new Object[program.temps];
+        this.cursors = new int[program.temps];
+    }
+
+    @SuppressWarnings("unchecked")
+    public void run() {
+        final int[] code = program.code;
+        final Value<?>[] constants = program.constants;
+        final Value<?>[] stack = new Value<?>[program.maxStack + 1];
+        int sp = 0;
+        int pc = 0;
+
+        while (true) {
+            switch (code[pc++]) {
+                case Opcode.CONST:
+                    stack[sp++] = constants[code[pc++]];
+                    break;
+                case Opcode.LOAD: {
+                    int s = code[pc++];
+                    Value<?> v = vars[s];
+                    if (v == null)
+                        Utils.abort(program.lines[s]);
+                    stack[sp++] = v;
+                    break;
+                }
+                case Opcode.LOAD_NULLABLE: {
+                    int s = code[pc++];
+                    if (!initialized[s])
+                        Utils.abort(program.lines[s]);
+                    stack[sp++] = vars[s];
+                    break;
+                }
+                case Opcode.STORE: {
+                    int s = code[pc++];
+                    Value<?> v = stack[--sp];
+                    if (initialized[s] && program.constant[s])
+                        Utils.abort(program.lines[s]);
+                    if (v instanceof NullValue)
+                        Utils.abort(program.lines[s]);
+                    vars[s] = v;
+                    initialized[s] = true;
+                    break;
+                }
+                case Opcode.STORE_NULLABLE: {
+                    int s = code[pc++];
+                    if (initialized[s] && program.constant[s])
+                        Utils.abort(program.lines[s]);
+                    vars[s] = stack[--sp];
+                    initialized[s] = true;
+                    break;
+                }
+                case Opcode.POP:
+                    sp--;
+                    break;
+                case Opcode.DUP:
+                    stack[sp] = stack[sp - 1];
+                    sp++;
+                    break;
+
+                case Opcode.JUMP:
+                    pc = code[pc];
+                    break;
+                case Opcode.JUMP_IF_FALSE:
+                    if (bool(stack[--sp], code[pc + 1])) {
+                        pc += 2;
+                    } else {
+                        pc = code[pc];
+                    }
+                    break;
+                case Opcode.JUMP_IF_TRUE:
+                    if (bool(stack[--sp], code[pc + 1])) {
+                        pc = code[pc];
+                    } else {
+                        pc += 2;
+                    }
+                    break;
+                case Opcode.JUMP_LT: {
+                    int n2 = number(stack[--sp], code[pc + 1]);
+                    int n1 = number(stack[--sp], code[pc + 1]);
+                    pc = n1 < n2 ? code[pc] : pc + 2;
+                    break;
+                }
+                case Opcode.JUMP_LE: {
+                    int n2 = number(stack[--sp], code[pc + 1]);
+                    int n1 = number(stack[--sp], code[pc + 1]);
+                    pc = n1 <= n2 ? code[pc] : pc + 2;
+                    break;
+                }
+                case Opcode.JUMP_GT: {
+                    int n2 = number(stack[--sp], code[pc + 1]);
+                    int n1 = number(stack[--sp], code[pc + 1]);
+                    pc = n1 > n2 ? code[pc] : pc + 2;
+                    break;
+                }
+                case Opcode.JUMP_GE: {
+                    int n2 = number(stack[--sp], code[pc + 1]);
+                    int n1 = number(stack[--sp], code[pc + 1]);
+                    pc = n1 >= n2 ? code[pc] : pc + 2;
+                    break;
+                }
+                case Opcode.ABORT:
+                    Utils.abort(code[pc++]);
+                    break;
+
+                case Opcode.IF_NULL: {
+                    Value<?> v2 = stack[--sp];
+                    if (stack[sp - 1] instanceof NullValue)
+                        stack[sp - 1] = v2;
+                    break;
+                }
+                case Opcode.AND: {
+                    Value<?> v2 = stack[--sp];
+                    Value<?> v1 = stack[sp - 1];
+                    int line = code[pc++];
+                    if (v1 instanceof BoolValue b1 && v2 instanceof BoolValue b2) {
+                        stack[sp - 1] = BoolValue.of(b1.booleanValue() && b2.booleanValue());
+                    } else {
+                        Utils.abort(line);
+                    }
+                    break;
+                }
+                case Opcode.OR: {
+                    Value<?> v2 = stack[--sp];
+                    Value<?> v1 = stack[sp - 1];
+                    int line = code[pc++];
+                    if (v1 instanceof BoolValue b1 && v2 instanceof BoolValue b2) {
+                        stack[sp - 1] = BoolValue.of(b1.booleanValue() || b2.booleanValue());
+                    } else {
+                        Utils.abort(line);
+                    }
+                    break;
+                }
+                case Opcode.EQUAL: {
+                    Value<?> v2 = stack[--sp];
+                    stack[sp - 1] = BoolValue.of(equal(stack[sp - 1], v2));
+                    break;
+                }
+                case Opcode.NOT_EQUAL: {
+                    Value<?> v2 = stack[--sp];
+                    stack[sp - 1] = BoolValue.of(!equal(stack[sp - 1], v2));
+                    break;
+                }
+                case Opcode.LOWER_THAN: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc++]);
+                    stack[sp - 1] = BoolValue.of(n1 < n2);
+                    break;
+                }
+                case Opcode.LOWER_EQUAL: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc++]);
+                    stack[sp - 1] = BoolValue.of(n1 <= n2);
+                    break;
+                }
+                case Opcode.GREATER_THAN: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc++]);
+                    stack[sp - 1] = BoolValue.of(n1 > n2);
+                    break;
+                }
+                case Opcode.GREATER_EQUAL: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc++]);
+                    stack[sp - 1] = BoolValue.of(n1 >= n2);
+                    break;
+                }
+                case Opcode.ADD: {
+                    Value<?> v2 = stack[--sp];
+                    Value<?> v1 = stack[sp - 1];
+                    int line = code[pc++];
+                    if (v1 instanceof NumberValue nv1 && v2 instanceof NumberValue nv2) {
+                        stack[sp - 1] = NumberValue.of(nv1.intValue() + nv2.intValue());
+                    } else if (v1 instanceof TextValue tv1 && v2 instanceof TextValue tv2) {
+                        stack[sp - 1] = TextValue.concat(tv1, tv2);
+                    } else {
+                        Utils.abort(line);
+                    }
+                    break;
+                }
+                case Opcode.SUB: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc++]);
+                    stack[sp - 1] = NumberValue.of(n1 - n2);
+                    break;
+                }
+                case Opcode.MUL: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc++]);
+                    stack[sp - 1] = NumberValue.of(n1 * n2);
+                    break;
+                }
+                case Opcode.DIV: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc]);
+                    if (n2 == 0)
+                        Utils.abort(code[pc]);
+                    pc++;
+                    stack[sp - 1] = NumberValue.of(n1 / n2);
+                    break;
+                }
+                case Opcode.MOD: {
+                    int n2 = number(stack[--sp], code[pc]);
+                    int n1 = number(stack[sp - 1], code[pc]);
+                    if (n2 == 0)
+                        Utils.abort(code[pc]);
+                    pc++;
+                    stack[sp - 1] = NumberValue.of(n1 % n2);
+                    break;
+                }
+
+                case Opcode.NEG:
+                    stack[sp - 1] = NumberValue.of(-number(stack[sp - 1], code[pc++]));
+                    break;
+                case Opcode.NOT:
+                    stack[sp - 1] = BoolValue.of(!bool(stack[sp - 1], code[pc++]));
+                    break;
+                case Opcode.INCR: {
+                    int delta = code[pc++];
+                    stack[sp - 1] = NumberValue.of(number(stack[sp - 1], code[pc++]) + delta);
+                    break;
+                }
+                case Opcode.INC_VAR: {
+                    int s = code[pc++];
+                    int delta = code[pc++];
+                    int line = code[pc++];
+                    Value<?> v = vars[s];
+                    if (program.nullable[s] ? !initialized[s] : v == null)
+                        Utils.abort(program.lines[s]);
+                    int n = number(v, line);
+                    if (program.constant[s])
+                        Utils.abort(program.lines[s]);
+                    vars[s] = NumberValue.of(n + delta);
+                    break;
+                }
+                case Opcode.CALL: {
+                    FunctionOp op = FUNCTION_OPS[code[pc++]];
+                    stack[sp - 1] = FunctionExpr.apply(op, stack[sp - 1], code[pc++]);
+                    break;
+                }
+                case Opcode.RANGE: {
+                    Value<?> to = stack[--sp];
+                    stack[sp - 1] = RangeExpr.apply(stack[sp - 1], to, code[pc++]);
+                    break;
+                }
+
+                case Opcode.CHECK_INDEXABLE: {
+                    Value<?> base = stack[sp - 1];
+                    int line = code[pc++];
+                    if (!(base instanceof ListValue) && !(base instanceof MapValue))
+                        Utils.abort(line);
+                    break;
+                }
+                case Opcode.GET_INDEX: {
+                    Value<?> index = stack[--sp];
+                    Value<?> base = stack[sp - 1];
+                    int line = code[pc++];
+                    if (base instanceof ListValue lv) {
+                        var list = lv.value();
+                        int i = number(index, line);
+                        stack[sp - 1] = i >= list.size() || i < 0 ? NullValue.NULL : list.get(i);
+                    } else {
+                        if (index instanceof NullValue)
+                            Utils.abort(line);
+                        stack[sp - 1] = ((MapValue) base).value().getOrDefault(index, NullValue.NULL);
+                    }
+                    break;
+                }
+                case Opcode.SET_INDEX: {
+                    Value<?> index = stack[--sp];
+                    Value<?> base = stack[--sp];
+                    Value<?> v = stack[--sp];
+                    int line = code[pc++];
+                    if (base instanceof ListValue lv) {
+                        var list = lv.value();
+                        int i = number(index, line);
+                        if (i < list.size() && i >= 0)
+                            list.set(i, v);
+                    } else {
+                        if (index instanceof NullValue)
+                            Utils.abort(line);
+                        ((MapValue) base).value().put(index, v);
+                    }
+                    break;
+                }
+
+                case Opcode.NEW_LIST:
+                    temps[code[pc++]] = new CompactList();
+                    break;
+                case Opcode.APPEND: {
+                    Value<?> v = stack[--sp];
+                    // Mesmo efeito do List.of(v) de SingleListItem
+                    if (v instanceof NullValue)
+                        throw new NullPointerException();
+                    ((List<Value<?>>) temps[code[pc++]]).add(v);
+                    break;
+                }
+                case Opcode.SPREAD: {
+                    Value<?> v = stack[--sp];
+                    int t = code[pc++];
+                    if (!(v instanceof ListValue lv))
+                        Utils.abort(code[pc]);
+                    else
+                        ((List<Value<?>>) temps[t]).addAll(lv.value());
+                    pc++;
+                    break;
+                }
+                case Opcode.LIST_VALUE: {
+                    int t = code[pc++];
+                    stack[sp++] = new ListValue((List<Value<?>>) temps[t]);
+                    temps[t] = null;
+                    break;
+                }
+                case Opcode.NEW_MAP:
+                    temps[code[pc++]] = new CompactMap();
+                    break;
+                case Opcode.CHECK_KEY:
+                    if (stack[sp - 1] instanceof NullValue)
+                        Utils.abort(code[pc]);
+                    pc++;
+                    break;
+                case Opcode.PUT: {
+                    Value<?> v = stack[--sp];
+                    Value<?> k = stack[--sp];
+                    ((Map<Value<?>, Value<?>>) temps[code[pc++]]).put(k, v);
+                    break;
+                }
+                case Opcode.MAP_VALUE: {
+                    int t = code[pc++];
+                    stack[sp++] = new MapValue((Map<Value<?>, Value<?>>) temps[t]);
+                    temps[t] = null;
+                    break;
+                }
+
+                case Opcode.FOR_ITER:
+                case Opcode.ITER: {
+                    int op = code[pc - 1];
+                    Value<?> v = stack[--sp];
+                    int t = code[pc++];
+                    int line = code[pc++];
+                    if (!(v instanceof ListValue lv)) {
+                        if (op == Opcode.FOR_ITER)
+                            System.out.println("Error: " + " expression is not a list");
+                        Utils.abort(line);
+                        break;
+                    }
+                    temps[t] = lv.value();
+                    cursors[t] = 0;
+                    break;
+                }
+                case Opcode.NEXT: {
+                    int t = code[pc + 1];
+                    List<Value<?>> list = (List<Value<?>>) temps[t];
+                    int i = cursors[t];
+                    if (i < list.size()) {
+                        stack[sp++] = list.get(i);
+                        cursors[t] = i + 1;
+                        pc += 2;
+                    } else {
+                        temps[t] = null;
+                        pc = code[pc];
+                    }
+                    break;
+                }
+
+                case Opcode.PRINT:
+                    Operations.print(stack[--sp]);
+                    break;
+                case Opcode.PRINTLN:
+                    System.out.println();
+                    break;
+                case Opcode.ASSERT_FAIL:
+                    System.out.println("assert: " + stack[--sp]);
+                    break;
+                case Opcode.ASSERT_FAIL_DEFAULT:
+                    System.out.println("assert: not true");
+                    break;
+                case Opcode.HALT:
+                    return;
+
+                default:
+                    throw new IllegalStateException("Invalid opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+    }
+
+    private static boolean bool(Value<?> v, int line) {
+        if (!(v instanceof BoolValue bv)) {
+            Utils.abort(line);
+            return false;
+        }
+
+        return bv.booleanValue();
+    }
+
+    private static int number(Value<?> v, int line) {
+        if (!(v instanceof NumberValue nv)) {
+            Utils.abort(line);
+            return 0;
+        }
+
+        return nv.intValue();
+    }
+
+    private static boolean equal(Value<?> v1, Value<?> v2) {
+        if (v1 instanceof NullValue || v2 instanceof NullValue)
+            return v1 == v2;
+
+        return v1.value().equals(v2.value());
+    }
+
+}
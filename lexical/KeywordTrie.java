@@ -0,0 +1,76 @@
+package lexical;
+
+import java.util.Arrays;
+
+// Trie com as grafias de todos os TokenType, em tabelas planas indexadas por
+// (nó, caractere). Reconhece palavras-chave e operadores sem alocar String.
+class KeywordTrie {
+
+    private final int[] alphabet;
+    private final int width;
+    private int[] children;
+    private TokenType[] types;
+    private int nodes;
+
+    KeywordTrie() {
+        alphabet = new int[256];
+        int w = 0;
+        for (TokenType type : TokenType.values()) {
+            String s = type.lexeme();
+            if (s == null)
+                continue;
+
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (alphabet[c] == 0)
+                    alphabet[c] = ++w;
+            }
+        }
+        width = w + 1;
+
+        children = new int[16 * width];
+        types = new TokenType[16];
+        nodes = 1;
+        types[0] = TokenType.NAME;
+
+        for (TokenType type : TokenType.values()) {
+            if (type.lexeme() != null)
+                insert(type.lexeme(), type);
+        }
+    }
+
+    private void insert(String s, TokenType type) {
+        int node = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int slot = node * width + alphabet[s.charAt(i)];
+            if (children[slot] == 0) {
+                if (nodes == types.length) {
+                    types = Arrays.copyOf(types, nodes * 2);
+                    children = Arrays.copyOf(children, nodes * 2 * width);
+                }
+
+                types[nodes] = TokenType.NAME;
+                children[slot] = nodes++;
+            }
+            node = children[slot];
+        }
+
+        types[node] = type;
+    }
+
+    TokenType find(SourceBuffer source, int start, int length) {
+        int node = 0;
+        for (int i = start; i < start + length; i++) {
+            int a = alphabet[source.charAt(i)];
+            if (a == 0)
+                return TokenType.NAME;
+
+            node = children[node * width + a];
+            if (node == 0)
+                return TokenType.NAME;
+        }
+
+        return types[node];
+    }
+
+}
@@ -1,13 +1,68 @@
 package lexical;
 
-public class Lexeme {
+public class Lexeme implements CharSequence {
 
-    public String token;
     public TokenType type;
 
+    // Fatia [start, start + length) do arquivo fonte; o texto só vira String quando pedido.
+    private final SourceBuffer source;
+    private final int start;
+    private final int length;
+    private String token;
+
     public Lexeme(String token, TokenType type) {
         this.token = token;
         this.type = type;
+        this.source = null;
+        this.start = 0;
+        this.length = token.length();
+    }
+
+    public Lexeme(SourceBuffer source, int start, int length, TokenType type) {
+        this.type = type;
+        this.source = source;
+        this.start = start;
+        this.length = length;
+    }
+
+    public String token() {
+        if (token == null)
+            token = source.text(start, length);
+
+        return token;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException(index);
+
+        return token != null ? token.charAt(index) : (char) source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException();
+
+        if (source == null)
+            return token.subSequence(start, end);
+
+        return new Lexeme(source, this.start + start, end - start, type);
+    }
+
+    @Override
+    public String toString() {
+        return token();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package lexical;
+
+public interface Lexer extends AutoCloseable {
+
+    Lexeme nextToken();
+
+    int getLine();
+
+    SourceBuffer source();
+
+    void close();
+
+    default TokenStream stream() {
+        return new LexerTokenStream(this);
+    }
+
+    // Analisa o arquivo inteiro de uma vez, até o fim ou o primeiro erro léxico.
+    default TokenBuffer tokenize() {
+        TokenBuffer tokens = new TokenBuffer(source());
+        Lexeme lex;
+        do {
+            lex = nextToken();
+            tokens.add(lex.type, lex.start(), lex.length(), getLine());
+        } while (!TokenBuffer.isLast(lex.type));
+
+        return tokens;
+    }
+
+}
@@ -0,0 +1,34 @@
+package lexical;
+
+// Lê um token por vez do Lexer, à medida que o analisador sintático avança.
+class LexerTokenStream implements TokenStream {
+
+    private final Lexer lex;
+    private Lexeme current;
+
+    LexerTokenStream(Lexer lex) {
+        this.lex = lex;
+        this.current = lex.nextToken();
+    }
+
+    public TokenType type() {
+        return current.type;
+    }
+
+    public String token() {
+        return current.token();
+    }
+
+    public CharSequence text() {
+        return current;
+    }
+
+    public int line() {
+        return lex.getLine();
+    }
+
+    public void advance() {
+        current = lex.nextToken();
+    }
+
+}
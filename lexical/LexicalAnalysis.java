@@ -1,42 +1,41 @@
 package lexical;
 
-import java.io.FileInputStream;
-import java.io.PushbackInputStream;
+public class LexicalAnalysis implements Lexer {
 
-public class LexicalAnalysis implements AutoCloseable {
+    // Palavras-chave e operadores são resolvidos sobre a fatia, sem criar a
+    // String; o parser só pede token() quando precisa do nome.
+    private static final KeywordTrie KEYWORDS = new KeywordTrie();
 
     private int line;
-    private final SymbolTable st;
-    private final PushbackInputStream input;
+    private final SourceBuffer input;
 
     public LexicalAnalysis(String filename) {
-        try {
-            input = new PushbackInputStream(new FileInputStream(filename), 2);
-        } catch (Exception e) {
-            throw new LexicalException("Unable to open file");
-        }
-
-        st = new SymbolTable();
+        input = new SourceBuffer(filename);
         line = 1;
     }
 
     public void close() {
-        try {
-            input.close();
-        } catch (Exception e) {
-            throw new LexicalException("Unable to close file");
-        }
+        // O arquivo é mapeado por inteiro na abertura; não há recurso a liberar.
     }
 
     public int getLine() {
         return this.line;
     }
 
+    public SourceBuffer source() {
+        return input;
+    }
+
     public Lexeme nextToken() {
-        Lexeme lex = new Lexeme("", TokenType.END_OF_FILE);
+        TokenType type = TokenType.END_OF_FILE;
+        int start = 0;
+        int length = 0;
 
         int state = 1;
         while (state != 15 && state != 16) {
+            if (state == 1)
+                start = input.position();
+
             int c = getc();
             // System.out.printf(" [%02d, %03d ('%c')]\n",
             // state, c, (char) c);
@@ -51,46 +50,47 @@ public class LexicalAnalysis implements AutoCloseable {
                     } else if (c == '/') {
                         state = 2;
                     } else if (c == '=' || c == '!' || c == '<' || c == '>') {
-                        lex.token += (char) c;
+                        length++;
                         state = 4;
                     } else if (c == '+') {
-                        lex.token += (char) c;
+                        length++;
                         state = 5;
                     } else if (c == '-') {
-                        lex.token += (char) c;
+                        length++;
                         state = 6;
                     } else if (c == '?') {
-                        lex.token += (char) c;
+                        length++;
                         state = 7;
                     } else if (c == ',' || c == ':' || c == ';' ||
                             c == '(' || c == ')' || c == '{' || c == '}' ||
                             c == '[' || c == ']' || c == '*' || c == '%') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else if (c == '.') {
-                        lex.token += (char) c;
+                        length++;
                         state = 8;
                     } else if (c == '&') {
-                        lex.token += (char) c;
+                        length++;
                         state = 10;
                     } else if (c == '|') {
-                        lex.token += (char) c;
+                        length++;
                         state = 11;
                     } else if (c == '_' || c == '$' ||
                             Character.isLetter(c)) {
-                        lex.token += (char) c;
+                        length++;
                         state = 12;
                     } else if (Character.isDigit(c)) {
-                        lex.token += (char) c;
+                        length++;
                         state = 13;
                     } else if (c == '\'') {
+                        start = input.position();
                         state = 14;
                     } else if (c == -1) {
-                        lex.type = TokenType.END_OF_FILE;
+                        type = TokenType.END_OF_FILE;
                         state = 16;
                     } else {
-                        lex.token += (char) c;
-                        lex.type = TokenType.INVALID_TOKEN;
+                        length++;
+                        type = TokenType.INVALID_TOKEN;
                         state = 16;
                     }
 
@@ -108,7 +108,7 @@ public class LexicalAnalysis implements AutoCloseable {
                         state = 1;
                         this.line++;
                     } else if (c == -1) {
-                        lex.type = TokenType.UNEXPECTED_EOF;
+                        type = TokenType.UNEXPECTED_EOF;
                         state = 16;
                     } else {
                         state = 3;
@@ -116,7 +116,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 4:
                     if (c == '=') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else {
                         if (c != -1) {
@@ -128,7 +128,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 5:
                     if (c == '+') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else {
                         ungetc(c);
@@ -137,7 +137,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 6:
                     if (c == '-') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else {
                         ungetc(c);
@@ -146,7 +146,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 7:
                     if (c == '?') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else {
                         ungetc(c);
@@ -155,7 +155,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 8:
                     if (c == '.') {
-                        lex.token += (char) c;
+                        length++;
                         state = 9;
                     } else { // ELSE talvez esteja errado (conferir)
                         ungetc(c);
@@ -164,28 +164,28 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 9:
                     if (c == '.') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else { // ELSE pode estar errado (conferir)
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 16;
                     }
                     break;
                 case 10:
                     if (c == '&') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else {
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 16;
                     }
                     break;
                 case 11:
                     if (c == '|') {
-                        lex.token += (char) c;
+                        length++;
                         state = 15;
                     } else {
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 16;
                     }
                     break;
@@ -193,7 +193,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     if (c == '_' || c == '$' ||
                             Character.isLetter(c) ||
                             Character.isDigit(c)) {
-                        lex.token += (char) c;
+                        length++;
                         state = 12;
                     } else {
                         ungetc(c);
@@ -202,20 +202,23 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 13:
                     if (Character.isDigit(c)) {
-                        lex.token += (char) c;
+                        length++;
                         state = 13;
                     } else {
                         ungetc(c);
-                        lex.type = TokenType.NUMBER;
+                        type = TokenType.NUMBER;
                         state = 16;
                     }
                     break;
                 case 14:
                     if (c == '\'') {
-                        lex.type = TokenType.TEXT;
+                        type = TokenType.TEXT;
+                        state = 16;
+                    } else if (c == -1) {
+                        type = TokenType.UNEXPECTED_EOF;
                         state = 16;
                     } else {
-                        lex.token += (char) c;
+                        length++;
                         state = 14;
                     }
                     break;
@@ -224,28 +227,17 @@ public class LexicalAnalysis implements AutoCloseable {
             }
         }
 
-        if (state == 15) {
-            lex.type = st.find(lex.token);
-        }
+        if (state == 15)
+            type = KEYWORDS.find(input, start, length);
 
-        return lex;
+        return new Lexeme(input, start, length, type);
     }
 
     private int getc() {
-        try {
-            return input.read();
-        } catch (Exception e) {
-            throw new LexicalException("Unable to read file");
-        }
+        return input.getc();
     }
 
     private void ungetc(int c) {
-        if (c != -1) {
-            try {
-                input.unread(c);
-            } catch (Exception e) {
-                throw new LexicalException("Unable to ungetc");
-            }
-        }
+        input.ungetc(c);
     }
 }
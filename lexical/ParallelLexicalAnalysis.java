@@ -0,0 +1,133 @@
+package lexical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Analisa arquivos grandes em paralelo: o arquivo é dividido em trechos que
+// começam logo após um '\n' fora de textos e comentários (onde o autômato está
+// garantidamente no estado inicial), cada trecho é analisado por um
+// TableLexicalAnalysis num ForkJoinPool e os resultados são costurados num
+// único TokenBuffer, com as linhas deslocadas pelas dos trechos anteriores.
+public class ParallelLexicalAnalysis {
+
+    private static final int MIN_CHUNK = 1 << 20;
+
+    private final ForkJoinPool pool;
+    private final int minChunk;
+
+    public ParallelLexicalAnalysis() {
+        this(ForkJoinPool.commonPool(), MIN_CHUNK);
+    }
+
+    public ParallelLexicalAnalysis(ForkJoinPool pool, int minChunk) {
+        this.pool = pool;
+        this.minChunk = minChunk;
+    }
+
+    public TokenBuffer tokenize(String filename) {
+        return tokenize(new SourceBuffer(filename));
+    }
+
+    public TokenBuffer tokenize(SourceBuffer source) {
+        int chunks = (int) Math.min(pool.getParallelism() * 4L, Math.max(1, source.size() / minChunk));
+        int[] cuts = boundaries(source, chunks);
+        chunks = cuts.length - 1;
+
+        if (chunks == 1)
+            return new TableLexicalAnalysis(source.region(0, source.size())).tokenize();
+
+        List<ForkJoinTask<TokenBuffer>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            SourceBuffer region = source.region(cuts[i], cuts[i + 1]);
+            tasks.add(pool.submit(() -> new TableLexicalAnalysis(region).tokenize()));
+        }
+
+        // Quantos tokens aproveitar de cada trecho e quanto somar às suas linhas.
+        int[] counts = new int[chunks];
+        int[] positions = new int[chunks];
+        int[] lineOffsets = new int[chunks];
+        int total = 0;
+        int lineOffset = 0;
+        int used = 0;
+        for (int i = 0; i < chunks; i++) {
+            TokenBuffer part = tasks.get(i).join();
+            int n = part.size();
+            TokenType last = part.type(n - 1);
+
+            positions[i] = total;
+            lineOffsets[i] = lineOffset;
+            used++;
+
+            if (last != TokenType.END_OF_FILE || i == chunks - 1) {
+                // Erro léxico (ou fim do arquivo): os trechos seguintes são descartados.
+                counts[i] = n;
+                total += n;
+                break;
+            }
+
+            counts[i] = n - 1;
+            total += n - 1;
+            lineOffset += part.line(n - 1) - 1;
+        }
+
+        TokenBuffer tokens = new TokenBuffer(source, total);
+        List<ForkJoinTask<?>> copies = new ArrayList<>(used);
+        for (int i = 0; i < used; i++) {
+            TokenBuffer part = tasks.get(i).join();
+            int pos = positions[i];
+            int count = counts[i];
+            int offset = lineOffsets[i];
+            copies.add(pool.submit(() -> part.copyTo(tokens, pos, count, offset)));
+        }
+        for (ForkJoinTask<?> copy : copies)
+            copy.join();
+
+        tokens.setSize(total);
+        return tokens;
+    }
+
+    // Início de cada trecho, mais o fim do arquivo. Os cortes ficam logo após
+    // o primeiro '\n' fora de textos e comentários depois de cada múltiplo do
+    // tamanho alvo.
+    private static int[] boundaries(SourceBuffer source, int chunks) {
+        int size = source.size();
+        int target = Math.max(1, size / chunks);
+
+        int[] cuts = new int[chunks + 1];
+        int n = 0;
+        cuts[n++] = 0;
+
+        int next = target;
+        boolean text = false;
+        boolean comment = false;
+        boolean slash = false;
+        for (int i = 0; i < size && n < chunks; i++) {
+            int c = source.charAt(i);
+            if (comment) {
+                if (c == '\n')
+                    comment = false;
+            } else if (text) {
+                if (c == '\'')
+                    text = false;
+            } else if (slash && c == '/') {
+                comment = true;
+                slash = false;
+            } else {
+                slash = c == '/';
+                if (c == '\'') {
+                    text = true;
+                } else if (c == '\n' && i + 1 >= next && i + 1 < size) {
+                    cuts[n++] = i + 1;
+                    next = i + 1 + target;
+                }
+            }
+        }
+
+        cuts[n++] = size;
+        return Arrays.copyOf(cuts, n);
+    }
+
+}
@@ -0,0 +1,140 @@
+package lexical;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Roda o analisador léxico numa thread própria, adiantado em relação ao
+// sintático. Os tokens passam por um anel de capacidade fixa com um único
+// produtor e um único consumidor, sem travas: cada lado só publica o seu
+// índice (tail para o produtor, head para o consumidor) e espera, girando,
+// quando o anel está cheio ou vazio.
+public class PipelinedTokenStream implements TokenStream, AutoCloseable {
+
+    private static final int CAPACITY = 1 << 12;
+    private static final int SPINS = 64;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final SourceBuffer source;
+    private final int capacity;
+    private final int mask;
+    private final int[] types;
+    private final int[] starts;
+    private final int[] lengths;
+    private final int[] lines;
+
+    // Primeira posição ainda em uso pelo consumidor / próxima a ser escrita
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    // Estado do consumidor
+    private long pos;
+    private long available;
+    private int slot;
+
+    public PipelinedTokenStream(Lexer lex) {
+        this(lex, CAPACITY);
+    }
+
+    public PipelinedTokenStream(Lexer lex, int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of two");
+
+        this.source = lex.source();
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.types = new int[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+
+        Thread producer = new Thread(() -> produce(lex), "lexer");
+        producer.setDaemon(true);
+        producer.start();
+
+        await(0);
+    }
+
+    private void produce(Lexer lex) {
+        try {
+            long t = 0;
+            long limit = capacity;
+            Lexeme lexeme;
+            do {
+                lexeme = lex.nextToken();
+
+                int spins = 0;
+                while (t >= limit) {
+                    limit = head.get() + capacity;
+                    if (t >= limit) {
+                        if (closed)
+                            return;
+                        pause(spins++);
+                    }
+                }
+
+                int i = (int) t & mask;
+                types[i] = lexeme.type.ordinal();
+                starts[i] = lexeme.start();
+                lengths[i] = lexeme.length();
+                lines[i] = lex.getLine();
+                tail.lazySet(++t);
+            } while (!TokenBuffer.isLast(lexeme.type));
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    private void await(long p) {
+        int spins = 0;
+        while (p >= available) {
+            available = tail.get();
+            if (p >= available) {
+                if (failure != null && p >= tail.get())
+                    throw new LexicalException("Lexer thread failed: " + failure.getMessage());
+                pause(spins++);
+            }
+        }
+
+        slot = (int) p & mask;
+    }
+
+    private static void pause(int spins) {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    public TokenType type() {
+        return TYPES[types[slot]];
+    }
+
+    public String token() {
+        return source.text(starts[slot], lengths[slot]);
+    }
+
+    public CharSequence text() {
+        return new Lexeme(source, starts[slot], lengths[slot], type());
+    }
+
+    public int line() {
+        return lines[slot];
+    }
+
+    public void advance() {
+        // Depois do último token (fim de arquivo ou erro léxico) não há mais nada a ler.
+        if (TokenBuffer.isLast(type()))
+            return;
+
+        pos++;
+        head.lazySet(pos);
+        await(pos);
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+}
@@ -0,0 +1,105 @@
+package lexical;
+
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SourceBuffer {
+
+    private static final int INITIAL_CAPACITY = 1 << 20;
+
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int limit;
+    private int cursor;
+
+    public SourceBuffer(String filename) {
+        try (FileInputStream fis = new FileInputStream(filename)) {
+            FileChannel channel = fis.getChannel();
+            if (Files.isRegularFile(Path.of(filename))) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE)
+                    throw new LexicalException("File too large");
+
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                // Pipes e dispositivos não podem ser mapeados: lê tudo para um buffer direto.
+                buffer = readFully(channel);
+            }
+        } catch (LexicalException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new LexicalException("Unable to open file");
+        }
+
+        base = 0;
+        limit = buffer.limit();
+        cursor = 0;
+    }
+
+    private SourceBuffer(ByteBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        this.base = from;
+        this.limit = to;
+        this.cursor = from;
+    }
+
+    // Visão do trecho [from, to) do mesmo arquivo, com posições absolutas.
+    public SourceBuffer region(int from, int to) {
+        return new SourceBuffer(buffer, from, to);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel) throws Exception {
+        ByteBuffer buf = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+        while (channel.read(buf) != -1) {
+            if (!buf.hasRemaining()) {
+                if (buf.capacity() == Integer.MAX_VALUE)
+                    throw new LexicalException("File too large");
+
+                int capacity = (int) Math.min(Integer.MAX_VALUE, 2L * buf.capacity());
+                ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+                buf.flip();
+                bigger.put(buf);
+                buf = bigger;
+            }
+        }
+
+        buf.flip();
+        return buf;
+    }
+
+    public int getc() {
+        return cursor < limit ? buffer.get(cursor++) & 0xFF : -1;
+    }
+
+    public void ungetc(int c) {
+        if (c != -1)
+            cursor--;
+    }
+
+    public int peek() {
+        return cursor < limit ? buffer.get(cursor) & 0xFF : -1;
+    }
+
+    public int charAt(int pos) {
+        return buffer.get(pos) & 0xFF;
+    }
+
+    public String text(int start, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    public int position() {
+        return cursor;
+    }
+
+    public int size() {
+        return limit - base;
+    }
+
+}
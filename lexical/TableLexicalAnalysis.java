@@ -0,0 +1,248 @@
+package lexical;
+
+// Mesmo autômato de LexicalAnalysis, mas dirigido por tabelas: cada byte é
+// convertido numa classe de caractere e o próximo estado vem de uma matriz
+// de transição. Palavras-chave e operadores são resolvidos pelo KeywordTrie.
+public class TableLexicalAnalysis implements Lexer {
+
+    // Classes de caractere
+    private static final int C_WS = 0;
+    private static final int C_NL = 1;
+    private static final int C_SLASH = 2;
+    private static final int C_EQ = 3;
+    private static final int C_CMP = 4;
+    private static final int C_PLUS = 5;
+    private static final int C_MINUS = 6;
+    private static final int C_QUEST = 7;
+    private static final int C_SINGLE = 8;
+    private static final int C_DOT = 9;
+    private static final int C_AMP = 10;
+    private static final int C_PIPE = 11;
+    private static final int C_ALPHA = 12;
+    private static final int C_DIGIT = 13;
+    private static final int C_QUOTE = 14;
+    private static final int C_OTHER = 15;
+    private static final int C_EOF = 16;
+    private static final int CLASS_COUNT = 17;
+
+    // Estados finais (os não finais seguem a numeração de LexicalAnalysis)
+    private static final int S_SYMBOL = 15;
+    private static final int S_NUMBER = 16;
+    private static final int S_TEXT = 17;
+    private static final int S_END_OF_FILE = 18;
+    private static final int S_INVALID = 19;
+    private static final int S_UNEXPECTED_EOF = 20;
+    private static final int STATE_COUNT = 21;
+
+    // Ações codificadas junto do próximo estado
+    private static final int STATE_MASK = 0xFF;
+    private static final int APPEND = 1 << 8;
+    private static final int UNGET = 1 << 9;
+    private static final int NEWLINE = 1 << 10;
+    private static final int MARK = 1 << 11;
+
+    private static final TokenType[] FINAL_TYPES = {
+            null,
+            TokenType.NUMBER,
+            TokenType.TEXT,
+            TokenType.END_OF_FILE,
+            TokenType.INVALID_TOKEN,
+            TokenType.UNEXPECTED_EOF
+    };
+
+    // Indexada por c + 1, de modo que EOF (-1) cai na posição 0
+    private static final byte[] CLASSES = new byte[257];
+    private static final int[] TRANSITIONS = new int[STATE_COUNT * CLASS_COUNT];
+    private static final KeywordTrie KEYWORDS = new KeywordTrie();
+
+    static {
+        for (int c = 0; c < 256; c++) {
+            int cls;
+            if (c == ' ' || c == '\t' || c == '\r') {
+                cls = C_WS;
+            } else if (c == '\n') {
+                cls = C_NL;
+            } else if (c == '/') {
+                cls = C_SLASH;
+            } else if (c == '=') {
+                cls = C_EQ;
+            } else if (c == '!' || c == '<' || c == '>') {
+                cls = C_CMP;
+            } else if (c == '+') {
+                cls = C_PLUS;
+            } else if (c == '-') {
+                cls = C_MINUS;
+            } else if (c == '?') {
+                cls = C_QUEST;
+            } else if (c == ',' || c == ':' || c == ';' ||
+                    c == '(' || c == ')' || c == '{' || c == '}' ||
+                    c == '[' || c == ']' || c == '*' || c == '%') {
+                cls = C_SINGLE;
+            } else if (c == '.') {
+                cls = C_DOT;
+            } else if (c == '&') {
+                cls = C_AMP;
+            } else if (c == '|') {
+                cls = C_PIPE;
+            } else if (c == '_' || c == '$' || Character.isLetter(c)) {
+                cls = C_ALPHA;
+            } else if (Character.isDigit(c)) {
+                cls = C_DIGIT;
+            } else if (c == '\'') {
+                cls = C_QUOTE;
+            } else {
+                cls = C_OTHER;
+            }
+            CLASSES[c + 1] = (byte) cls;
+        }
+        CLASSES[0] = C_EOF;
+
+        fill(1, S_INVALID | APPEND);
+        on(1, C_WS, 1);
+        on(1, C_NL, 1 | NEWLINE);
+        on(1, C_SLASH, 2);
+        on(1, C_EQ, 4 | APPEND);
+        on(1, C_CMP, 4 | APPEND);
+        on(1, C_PLUS, 5 | APPEND);
+        on(1, C_MINUS, 6 | APPEND);
+        on(1, C_QUEST, 7 | APPEND);
+        on(1, C_SINGLE, S_SYMBOL | APPEND);
+        on(1, C_DOT, 8 | APPEND);
+        on(1, C_AMP, 10 | APPEND);
+        on(1, C_PIPE, 11 | APPEND);
+        on(1, C_ALPHA, 12 | APPEND);
+        on(1, C_DIGIT, 13 | APPEND);
+        on(1, C_QUOTE, 14 | MARK);
+        on(1, C_EOF, S_END_OF_FILE);
+
+        fill(2, S_SYMBOL | UNGET);
+        on(2, C_SLASH, 3);
+
+        fill(3, 3);
+        on(3, C_NL, 1 | NEWLINE);
+        on(3, C_EOF, S_UNEXPECTED_EOF);
+
+        fill(4, S_SYMBOL | UNGET);
+        on(4, C_EQ, S_SYMBOL | APPEND);
+
+        fill(5, S_SYMBOL | UNGET);
+        on(5, C_PLUS, S_SYMBOL | APPEND);
+
+        fill(6, S_SYMBOL | UNGET);
+        on(6, C_MINUS, S_SYMBOL | APPEND);
+
+        fill(7, S_SYMBOL | UNGET);
+        on(7, C_QUEST, S_SYMBOL | APPEND);
+
+        fill(8, S_SYMBOL | UNGET);
+        on(8, C_DOT, 9 | APPEND);
+
+        fill(9, S_INVALID);
+        on(9, C_DOT, S_SYMBOL | APPEND);
+
+        fill(10, S_INVALID);
+        on(10, C_AMP, S_SYMBOL | APPEND);
+
+        fill(11, S_INVALID);
+        on(11, C_PIPE, S_SYMBOL | APPEND);
+
+        fill(12, S_SYMBOL | UNGET);
+        on(12, C_ALPHA, 12 | APPEND);
+        on(12, C_DIGIT, 12 | APPEND);
+
+        fill(13, S_NUMBER | UNGET);
+        on(13, C_DIGIT, 13 | APPEND);
+
+        fill(14, 14 | APPEND);
+        on(14, C_QUOTE, S_TEXT);
+        on(14, C_EOF, S_UNEXPECTED_EOF);
+    }
+
+    private static void fill(int state, int action) {
+        for (int cls = 0; cls < CLASS_COUNT; cls++)
+            on(state, cls, action);
+    }
+
+    private static void on(int state, int cls, int action) {
+        TRANSITIONS[state * CLASS_COUNT + cls] = action;
+    }
+
+    private int line;
+    private final SourceBuffer input;
+    private int tokenStart;
+    private int tokenLength;
+
+    public TableLexicalAnalysis(String filename) {
+        this(new SourceBuffer(filename));
+    }
+
+    public TableLexicalAnalysis(SourceBuffer input) {
+        this.input = input;
+        line = 1;
+    }
+
+    public void close() {
+        // O arquivo é mapeado por inteiro na abertura; não há recurso a liberar.
+    }
+
+    public int getLine() {
+        return this.line;
+    }
+
+    public SourceBuffer source() {
+        return input;
+    }
+
+    public Lexeme nextToken() {
+        TokenType type = scan();
+        return new Lexeme(input, tokenStart, tokenLength, type);
+    }
+
+    @Override
+    public TokenBuffer tokenize() {
+        TokenBuffer tokens = new TokenBuffer(input);
+        TokenType type;
+        do {
+            type = scan();
+            tokens.add(type, tokenStart, tokenLength, line);
+        } while (!TokenBuffer.isLast(type));
+
+        return tokens;
+    }
+
+    // Reconhece o próximo token, deixando sua posição em tokenStart/tokenLength.
+    private TokenType scan() {
+        int start = 0;
+        int length = 0;
+
+        int state = 1;
+        while (state < S_SYMBOL) {
+            if (state == 1)
+                start = input.position();
+
+            int c = input.getc();
+            int action = TRANSITIONS[state * CLASS_COUNT + CLASSES[c + 1]];
+
+            if ((action & APPEND) != 0) {
+                length++;
+            } else if ((action & (UNGET | NEWLINE | MARK)) != 0) {
+                if ((action & UNGET) != 0)
+                    input.ungetc(c);
+                if ((action & NEWLINE) != 0)
+                    this.line++;
+                if ((action & MARK) != 0)
+                    start = input.position();
+            }
+
+            state = action & STATE_MASK;
+        }
+
+        tokenStart = start;
+        tokenLength = length;
+
+        return state == S_SYMBOL
+                ? KEYWORDS.find(input, start, length)
+                : FINAL_TYPES[state - S_SYMBOL];
+    }
+
+}
@@ -0,0 +1,137 @@
+package lexical;
+
+import java.util.Arrays;
+
+// Todos os tokens de um arquivo em vetores paralelos de int (tipo, início,
+// tamanho e linha). O texto continua no SourceBuffer e só vira String sob demanda.
+public class TokenBuffer {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // Capacidade inicial; grow dobra os vetores conforme os tokens chegam.
+    private static final int INITIAL = 1024;
+
+    private final SourceBuffer source;
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int size;
+
+    public TokenBuffer(SourceBuffer source) {
+        this(source, INITIAL);
+    }
+
+    public TokenBuffer(SourceBuffer source, int capacity) {
+        this.source = source;
+        types = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        size = 0;
+    }
+
+    public static boolean isLast(TokenType type) {
+        return type == TokenType.END_OF_FILE ||
+                type == TokenType.INVALID_TOKEN ||
+                type == TokenType.UNEXPECTED_EOF;
+    }
+
+    public void add(TokenType type, int start, int length, int line) {
+        if (size == types.length)
+            grow();
+
+        types[size] = type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+
+    // Copia os tokens [0, count) para dst a partir de pos, deslocando as linhas.
+    void copyTo(TokenBuffer dst, int pos, int count, int lineOffset) {
+        System.arraycopy(types, 0, dst.types, pos, count);
+        System.arraycopy(starts, 0, dst.starts, pos, count);
+        System.arraycopy(lengths, 0, dst.lengths, pos, count);
+        for (int i = 0; i < count; i++)
+            dst.lines[pos + i] = lines[i] + lineOffset;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SourceBuffer source() {
+        return source;
+    }
+
+    public TokenType type(int i) {
+        return TYPES[types[i]];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    public int line(int i) {
+        return lines[i];
+    }
+
+    public String token(int i) {
+        return source.text(starts[i], lengths[i]);
+    }
+
+    public Lexeme lexeme(int i) {
+        return new Lexeme(source, starts[i], lengths[i], type(i));
+    }
+
+    public TokenStream stream() {
+        return new Cursor();
+    }
+
+    // Percorre o buffer por índice; ao chegar no último token (fim de arquivo
+    // ou erro léxico) permanece nele.
+    private class Cursor implements TokenStream {
+
+        private int pos = 0;
+
+        public TokenType type() {
+            return TYPES[types[pos]];
+        }
+
+        public String token() {
+            return TokenBuffer.this.token(pos);
+        }
+
+        public CharSequence text() {
+            return lexeme(pos);
+        }
+
+        public int line() {
+            return lines[pos];
+        }
+
+        public void advance() {
+            if (pos < size - 1)
+                pos++;
+        }
+
+    }
+
+}
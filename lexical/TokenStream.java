@@ -0,0 +1,17 @@
+package lexical;
+
+// Visão do analisador sintático sobre a sequência de tokens: o token corrente
+// e a linha em que ele foi lido.
+public interface TokenStream {
+
+    TokenType type();
+
+    String token();
+
+    CharSequence text();
+
+    int line();
+
+    void advance();
+
+}
@@ -1,24 +1,105 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+import interpreter.aot.AotCompiler;
+import interpreter.cache.AstCache;
 import interpreter.command.Command;
+import interpreter.command.LoopFusion;
+import interpreter.command.Tiering;
+import interpreter.expr.Specializations;
+import interpreter.expr.Tagged;
+import interpreter.jit.JitCompiler;
+import interpreter.vm.BytecodeCompiler;
+import interpreter.vm.VirtualMachine;
+import lexical.Lexer;
 import lexical.LexicalAnalysis;
+import lexical.ParallelLexicalAnalysis;
+import lexical.PipelinedTokenStream;
+import lexical.TableLexicalAnalysis;
+import lexical.TokenStream;
 import syntatic.SyntacticAnalysis;
 
 public class mdi {
 
     public static void main(String[] args) {
         String arquivo = "examples/test3.mdart";
+        boolean tableLexer = false;
+        boolean batch = false;
+        boolean parallel = false;
+        boolean pipeline = false;
+        boolean cache = false;
+        boolean vm = false;
+        boolean stats = false;
+        boolean jit = false;
+        boolean aot = false;
+        boolean tagged = false;
+
+        for (String arg : args) {
+            switch (arg) {
+                case "--table-lexer" -> tableLexer = true;
+                case "--batch" -> batch = true;
+                case "--parallel" -> parallel = true;
+                case "--pipeline" -> pipeline = true;
+                case "--cache" -> cache = true;
+                case "--vm" -> vm = true;
+                case "--stats" -> stats = true;
+                case "--jit" -> jit = true;
+                case "--aot" -> aot = true;
+                case "--tagged" -> tagged = true;
+                default -> arquivo = arg;
+            }
+        }
+
+        // Com --jit, os laços quentes da árvore são compilados para bytecode da JVM.
+        if (jit)
+            Tiering.enable(new JitCompiler());
+
+        // Com --tagged, inteiros e booleanos intermediários não viram objetos.
+        if (tagged)
+            Tagged.enable();
 
-        try (LexicalAnalysis l = new LexicalAnalysis(arquivo)) {
+        // Com --cache, a árvore de uma execução anterior pula léxico e sintático.
+        AstCache ast = cache ? new AstCache(Path.of(arquivo)) : null;
+        if (ast != null) {
+            Command c = ast.load();
+            if (c != null) {
+                if (aot)
+                    compile(arquivo, c);
+                else
+                    run(c, vm, stats);
+                return;
+            }
+        }
+
+        try (Lexer l = tableLexer ? new TableLexicalAnalysis(arquivo) : new LexicalAnalysis(arquivo)) {
             // O código a seguir é dado para testar o interpretador.
-            SyntacticAnalysis s = new SyntacticAnalysis(l);
+            TokenStream tokens;
+            if (parallel) {
+                tokens = new ParallelLexicalAnalysis().tokenize(l.source()).stream();
+            } else if (batch) {
+                tokens = l.tokenize().stream();
+            } else if (pipeline) {
+                tokens = new PipelinedTokenStream(l);
+            } else {
+                tokens = l.stream();
+            }
+
+            SyntacticAnalysis s = new SyntacticAnalysis(tokens);
             Command c = s.start();
-            c.execute();
+            if (ast != null)
+                ast.store(c);
+
+            if (aot)
+                compile(arquivo, c);
+            else
+                run(c, vm, stats);
 
             // O código a seguir é usado apenas para testar o analisador léxico
             //             Lexeme lex;
             //             do {
             //             lex = l.nextToken();
             //             System.out.printf("%02d: (\"%s\", %s)\n", l.getLine(),
-            //             lex.token, lex.type);
+            //             lex.token(), lex.type);
             //             } while (lex.type != TokenType.END_OF_FILE &&
             //             lex.type != TokenType.INVALID_TOKEN &&
             //             lex.type != TokenType.UNEXPECTED_EOF);
@@ -28,4 +109,32 @@ public class mdi {
         }
     }
 
+    // Com --aot, o script não é executado: vira um JAR autônomo ao lado do
+    // arquivo, que roda com java -jar.
+    private static void compile(String arquivo, Command c) {
+        try {
+            System.out.println(new AotCompiler().compile(Path.of(arquivo), c));
+        } catch (IOException e) {
+            System.err.println("Internal error: " + e.getMessage());
+        }
+    }
+
+    // Com --vm, a árvore é compilada para a máquina virtual em vez de percorrida.
+    // Percorrendo a árvore, os for sobre compreensões são fundidos antes (LoopFusion).
+    // Com --stats, informa na saída de erro quantos nós da árvore se especializaram.
+    private static void run(Command c, boolean vm, boolean stats) {
+        if (vm) {
+            new VirtualMachine(new BytecodeCompiler().compile(c)).run();
+        } else {
+            LoopFusion.apply(c);
+            c.execute();
+        }
+
+        if (stats) {
+            System.err.println(Specializations.report());
+            System.err.println(Tiering.report());
+            System.err.println(LoopFusion.report());
+        }
+    }
+
 }
@@ -1,6 +1,7 @@
 package syntatic;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,22 +10,75 @@ import interpreter.command.*;
 import interpreter.expr.*;
 import interpreter.util.Utils;
 import interpreter.value.BoolValue;
+import interpreter.value.NullValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
-import lexical.Lexeme;
-import lexical.LexicalAnalysis;
+import lexical.Lexer;
+import lexical.TokenStream;
 import lexical.TokenType;
 
 public class SyntacticAnalysis {
 
-    private final LexicalAnalysis lex;
-    private Lexeme current;
+    private static final EnumSet<TokenType> FIRST_EXPR = EnumSet.of(
+            TokenType.NOT, TokenType.SUB, TokenType.INC, TokenType.DEC, TokenType.OPEN_PAR,
+            TokenType.NULL, TokenType.FALSE, TokenType.TRUE, TokenType.NUMBER, TokenType.TEXT,
+            TokenType.READ, TokenType.RANDOM, TokenType.LENGTH, TokenType.KEYS, TokenType.VALUES,
+            TokenType.TOBOOL, TokenType.TOINT, TokenType.TOSTR, TokenType.RANGE, TokenType.NAME,
+            TokenType.OPEN_BRA, TokenType.OPEN_CUR);
+
+    private static final EnumSet<TokenType> FIRST_CMD = EnumSet.of(
+            TokenType.FINAL, TokenType.VAR, TokenType.PRINT, TokenType.ASSERT, TokenType.IF,
+            TokenType.WHILE, TokenType.DO, TokenType.FOR);
+
+    private static final EnumSet<TokenType> PREFIX_OPS = EnumSet.of(
+            TokenType.NOT, TokenType.SUB, TokenType.INC, TokenType.DEC);
+
+    // Potência de ligação dos operadores binários (0 para os demais tokens)
+    private static final int BP_IF_NULL = 1;
+    private static final int BP_COND = 2;
+    private static final int BP_REL = 3;
+    private static final int BP_ARITH = 4;
+    private static final int BP_TERM = 5;
+
+    private static final int[] BINDING = new int[TokenType.values().length];
+    private static final boolean[] NON_ASSOCIATIVE = new boolean[TokenType.values().length];
+    private static final BinaryOp[] BINARY_OPS = new BinaryOp[TokenType.values().length];
+
+    static {
+        FIRST_CMD.addAll(FIRST_EXPR);
+
+        infix(TokenType.IF_NULL, BP_IF_NULL, BinaryOp.IF_NULL, true);
+        infix(TokenType.AND, BP_COND, BinaryOp.AND, false);
+        infix(TokenType.OR, BP_COND, BinaryOp.OR, false);
+        infix(TokenType.LOWER_THAN, BP_REL, BinaryOp.LOWER_THAN, true);
+        infix(TokenType.GREATER_THAN, BP_REL, BinaryOp.GREATER_THAN, true);
+        infix(TokenType.LOWER_EQUAL, BP_REL, BinaryOp.LOWER_EQUAL, true);
+        infix(TokenType.GREATER_EQUAL, BP_REL, BinaryOp.GREATER_EQUAL, true);
+        infix(TokenType.EQUAL, BP_REL, BinaryOp.EQUAL, true);
+        infix(TokenType.NOT_EQUAL, BP_REL, BinaryOp.NOT_EQUAL, true);
+        infix(TokenType.ADD, BP_ARITH, BinaryOp.ADD, false);
+        infix(TokenType.SUB, BP_ARITH, BinaryOp.SUB, false);
+        infix(TokenType.MUL, BP_TERM, BinaryOp.MUL, false);
+        infix(TokenType.DIV, BP_TERM, BinaryOp.DIV, false);
+        infix(TokenType.MOD, BP_TERM, BinaryOp.MOD, false);
+    }
+
+    private static void infix(TokenType type, int bp, BinaryOp op, boolean nonAssociative) {
+        BINDING[type.ordinal()] = bp;
+        BINARY_OPS[type.ordinal()] = op;
+        NON_ASSOCIATIVE[type.ordinal()] = nonAssociative;
+    }
+
+    private final TokenStream tokens;
     private final Map<String, Variable> memory;
 
-    public SyntacticAnalysis(LexicalAnalysis lex) {
-        this.lex = lex;
-        this.current = lex.nextToken();
+    public SyntacticAnalysis(Lexer lex) {
+        this(lex.stream());
+    }
+
+    public SyntacticAnalysis(TokenStream tokens) {
+        this.tokens = tokens;
         memory = new HashMap<>();
     }
 
@@ -35,28 +89,28 @@ public class SyntacticAnalysis {
     }
 
     private void advance() {
-        // System.out.println("Advanced (\"" + current.token + "\", " +
-        // current.type + ")");
-        current = lex.nextToken();
+        // System.out.println("Advanced (\"" + tokens.token() + "\", " +
+        // tokens.type() + ")");
+        tokens.advance();
     }
 
     private void eat(TokenType type) {
         // System.out.println("Expected (..., " + type + "), found (\"" +
-        // current.token + "\", " + current.type + ")");
-        if (type == current.type) {
-            current = lex.nextToken();
+        // tokens.token() + "\", " + tokens.type() + ")");
+        if (type == tokens.type()) {
+            tokens.advance();
         } else {
             showError();
         }
     }
 
     private void showError() {
-        System.out.printf("%02d: ", lex.getLine());
+        System.out.printf("%02d: ", tokens.line());
 
-        switch (current.type) {
-            case INVALID_TOKEN -> System.out.printf("Lexema inválido [%s]\n", current.token);
+        switch (tokens.type()) {
+            case INVALID_TOKEN -> System.out.printf("Lexema inválido [%s]\n", tokens.token());
             case UNEXPECTED_EOF, END_OF_FILE -> System.out.print("Fim de arquivo inesperado\n");
-            default -> System.out.printf("Lexema não esperado [%s]\n", current.token);
+            default -> System.out.printf("Lexema não esperado [%s]\n", tokens.token());
         }
 
         System.exit(1);
@@ -64,19 +118,9 @@ public class SyntacticAnalysis {
 
     // <code> ::= { <cmd> }
     private BlocksCommand procCode() {
-        int line = lex.getLine();
+        int line = tokens.line();
         List<Command> cmds = new ArrayList<>();
-        while (current.type == TokenType.FINAL || current.type == TokenType.VAR || current.type == TokenType.PRINT
-                || current.type == TokenType.ASSERT || current.type == TokenType.IF || current.type == TokenType.WHILE
-                || current.type == TokenType.DO || current.type == TokenType.FOR || current.type == TokenType.NOT
-                || current.type == TokenType.SUB || current.type == TokenType.INC || current.type == TokenType.DEC
-                || current.type == TokenType.OPEN_PAR || current.type == TokenType.NULL
-                || current.type == TokenType.FALSE || current.type == TokenType.TRUE || current.type == TokenType.NUMBER
-                || current.type == TokenType.TEXT || current.type == TokenType.READ || current.type == TokenType.RANDOM
-                || current.type == TokenType.LENGTH || current.type == TokenType.KEYS
-                || current.type == TokenType.VALUES || current.type == TokenType.TOBOOL
-                || current.type == TokenType.TOINT || current.type == TokenType.TOSTR || current.type == TokenType.NAME
-                || current.type == TokenType.OPEN_BRA || current.type == TokenType.OPEN_CUR) {
+        while (FIRST_CMD.contains(tokens.type())) {
             Command c = procCmd();
             cmds.add(c);
         }
@@ -88,7 +132,7 @@ public class SyntacticAnalysis {
     // <assign>
     private Command procCmd() {
         Command cmd = null;
-        switch (current.type) {
+        switch (tokens.type()) {
             case FINAL:
             case VAR:
                 cmd = procDecl();
@@ -129,6 +173,7 @@ public class SyntacticAnalysis {
             case TOBOOL:
             case TOINT:
             case TOSTR:
+            case RANGE:
             case NAME:
             case OPEN_BRA:
             case OPEN_CUR:
@@ -145,11 +190,11 @@ public class SyntacticAnalysis {
     // <decl> ::= [ final ] var [ '?' ] <name> [ '=' <expr> ] { ',' <name> [ '='
     // <expr> ] } ';'
     private BlocksCommand procDecl() {
-        int line = lex.getLine();
+        int line = tokens.line();
         List<Command> cmds = new ArrayList<>();
 
         boolean constant = false;
-        if (current.type == TokenType.FINAL) {
+        if (tokens.type() == TokenType.FINAL) {
             advance();
             constant = true;
         }
@@ -157,15 +202,15 @@ public class SyntacticAnalysis {
         eat(TokenType.VAR);
 
         boolean nullable = false;
-        if (current.type == TokenType.NULLABLE) {
+        if (tokens.type() == TokenType.NULLABLE) {
             advance();
             nullable = true;
         }
 
         Variable var = procDeclarationName(constant, nullable);
 
-        if (current.type == TokenType.ASSIGN) {
-            line = lex.getLine();
+        if (tokens.type() == TokenType.ASSIGN) {
+            line = tokens.line();
             advance();
 
             Expr rhs = procExpr();
@@ -174,12 +219,12 @@ public class SyntacticAnalysis {
             cmds.add(acmd);
         }
 
-        while (current.type == TokenType.COMMA) {
+        while (tokens.type() == TokenType.COMMA) {
             advance();
 
             var = procDeclarationName(constant, nullable);
 
-            if (current.type == TokenType.ASSIGN) {
+            if (tokens.type() == TokenType.ASSIGN) {
                 advance();
 
                 Expr rhs = procExpr();
@@ -196,20 +241,13 @@ public class SyntacticAnalysis {
 
     // <print> ::= print '(' [ <expr> ] ')' ';'
     private PrintCommand procPrint() {
+        int line = tokens.line();
         eat(TokenType.PRINT);
-        int line = lex.getLine();
 
         eat(TokenType.OPEN_PAR);
 
         Expr expr = null;
-        if (current.type == TokenType.NOT || current.type == TokenType.SUB || current.type == TokenType.INC
-                || current.type == TokenType.DEC || current.type == TokenType.OPEN_PAR || current.type == TokenType.NULL
-                || current.type == TokenType.FALSE || current.type == TokenType.TRUE || current.type == TokenType.NUMBER
-                || current.type == TokenType.TEXT || current.type == TokenType.READ || current.type == TokenType.RANDOM
-                || current.type == TokenType.LENGTH || current.type == TokenType.KEYS
-                || current.type == TokenType.VALUES || current.type == TokenType.TOBOOL
-                || current.type == TokenType.TOINT || current.type == TokenType.TOSTR || current.type == TokenType.NAME
-                || current.type == TokenType.OPEN_BRA || current.type == TokenType.OPEN_CUR) {
+        if (FIRST_EXPR.contains(tokens.type())) {
             expr = procExpr();
         }
         eat(TokenType.CLOSE_PAR);
@@ -220,14 +258,14 @@ public class SyntacticAnalysis {
 
     // <assert> ::= assert '(' <expr> [ ',' <expr> ] ')' ';'
     private AssertCommand procAssert() {
+        int line = tokens.line();
         eat(TokenType.ASSERT);
-        int line = lex.getLine();
 
         eat(TokenType.OPEN_PAR);
 
         Expr expr = procExpr();
         Expr msg = null;
-        if (current.type == TokenType.COMMA) {
+        if (tokens.type() == TokenType.COMMA) {
             advance();
             msg = procExpr();
         }
@@ -239,15 +277,15 @@ public class SyntacticAnalysis {
 
     // <if> ::= if '(' <expr> ')' <body> [ else <body> ]
     private IfCommand procIf() {
+        int line = tokens.line();
         eat(TokenType.IF);
-        int line = lex.getLine();
 
         eat(TokenType.OPEN_PAR);
         Expr expr = procExpr();
         eat(TokenType.CLOSE_PAR);
         Command thenCmds = procBody();
         Command elseCmds = null;
-        if (current.type == TokenType.ELSE) {
+        if (tokens.type() == TokenType.ELSE) {
             advance();
             elseCmds = procBody();
         }
@@ -257,8 +295,8 @@ public class SyntacticAnalysis {
 
     // <while> ::= while '(' <expr> ')' <body>
     private WhileCommand procWhile() {
+        int line = tokens.line();
         eat(TokenType.WHILE);
-        int line = lex.getLine();
 
         eat(TokenType.OPEN_PAR);
         Expr expr = procExpr();
@@ -270,8 +308,8 @@ public class SyntacticAnalysis {
 
     // <dowhile> ::= do <body> while '(' <expr> ')' ';'
     private DoWhileCommand procDoWhile() {
+        int line = tokens.line();
         eat(TokenType.DO);
-        int line = lex.getLine();
 
         Command command = procBody();
         eat(TokenType.WHILE);
@@ -286,8 +324,8 @@ public class SyntacticAnalysis {
 
     // <for> ::= for '(' <name> in <expr> ')' <body>
     private ForCommand procFor() {
+        int line = tokens.line();
         eat(TokenType.FOR);
-        int line = lex.getLine();
         eat(TokenType.OPEN_PAR);
 
         Variable v = procName();
@@ -304,7 +342,7 @@ public class SyntacticAnalysis {
     // <body> ::= <cmd> | '{' <code> '}'
     private Command procBody() {
         Command cmds;
-        if (current.type == TokenType.OPEN_CUR) {
+        if (tokens.type() == TokenType.OPEN_CUR) {
             advance();
             cmds = procCode();
             eat(TokenType.CLOSE_CUR);
@@ -317,11 +355,11 @@ public class SyntacticAnalysis {
 
     // <assign> ::= [ <expr> '=' ] <expr> ';'
     private AssignCommand procAssign() {
+        int line = tokens.line();
         Expr rhs = procExpr();
         SetExpr lhs = null;
 
-        int line = lex.getLine();
-        if (current.type == TokenType.ASSIGN) {
+        if (tokens.type() == TokenType.ASSIGN) {
             advance();
 
             if (!(rhs instanceof SetExpr)) {
@@ -338,125 +376,41 @@ public class SyntacticAnalysis {
         return new AssignCommand(line, rhs, lhs);
     }
 
-    // <expr> ::= <cond> [ '??' <cond> ]
+    // <expr>  ::= <cond> [ '??' <cond> ]
+    // <cond>  ::= <rel> { ( '&&' | '||' ) <rel> }
+    // <rel>   ::= <arith> [ ( '<' | '>' | '<=' | '>=' | '==' | '!=' ) <arith> ]
+    // <arith> ::= <term> { ( '+' | '-' ) <term> }
+    // <term>  ::= <prefix> { ( '*' | '/' | '%' ) <prefix> }
     private Expr procExpr() {
-        Expr expr1 = procCond();
-        Expr expr2 = null;
-        if (current.type == TokenType.IF_NULL) {
-            advance();
-            expr2 = procCond();
-        }
-
-        if (expr2 != null) {
-            return new BinaryExpr(expr1.getLine(), expr1, BinaryOp.IF_NULL, expr2);
-        } else {
-            return expr1;
-        }
+        return procExpr(0);
     }
 
-    // <cond> ::= <rel> { ( '&&' | '||' ) <rel> }
-    private Expr procCond() {
-        Expr expr = procRel();
-        while (current.type == TokenType.AND || current.type == TokenType.OR) {
-            if (current.type == TokenType.AND) {
-                advance();
-            } else {
-                advance();
-            }
-
-            procRel();
-        }
-
-        return expr;
-    }
-
-    // <rel> ::= <arith> [ ( '<' | '>' | '<=' | '>=' | '==' | '!=' ) <arith> ]
-    private Expr procRel() {
-        Expr left = procArith();
-
-        if (current.type == TokenType.LOWER_THAN || current.type == TokenType.GREATER_THAN
-                || current.type == TokenType.LOWER_EQUAL || current.type == TokenType.GREATER_EQUAL
-                || current.type == TokenType.EQUAL || current.type == TokenType.NOT_EQUAL) {
-            BinaryOp op = null;
-            switch (current.type) {
-                case LOWER_THAN:
-                    op = BinaryOp.LOWER_THAN;
-                    advance();
-                    break;
-                case GREATER_THAN:
-                    op = BinaryOp.GREATER_THAN;
-                    advance();
-                    break;
-                case LOWER_EQUAL:
-                    op = BinaryOp.LOWER_EQUAL;
-                    advance();
-                    break;
-                case GREATER_EQUAL:
-                    op = BinaryOp.GREATER_EQUAL;
-                    advance();
-                    break;
-                case EQUAL:
-                    op = BinaryOp.EQUAL;
-                    advance();
-                    break;
-                default:
-                    op = BinaryOp.NOT_EQUAL;
-                    advance();
-                    break;
-            }
-
-            int line = lex.getLine();
-            Expr right = procArith();
-
-            left = new BinaryExpr(line, left, op, right);
-        }
-
-        return left;
-    }
-
-    // <arith> ::= <term> { ( '+' | '-' ) <term> }
-    private Expr procArith() {
-        Expr left = procTerm();
-
-        while (current.type == TokenType.ADD || current.type == TokenType.SUB) {
-            BinaryOp op;
-            if (current.type == TokenType.ADD) {
-                op = BinaryOp.ADD;
-                advance();
-            } else {
-                op = BinaryOp.SUB;
-                advance();
-            }
-            int line = lex.getLine();
-
-            Expr right = procTerm();
+    // Precedence climbing sobre a tabela BINDING: cada nível acima equivale a
+    // uma potência de ligação. Depois de um operador de potência bp só se aceitam
+    // operadores de potência <= bp (< bp se ele não for associativo), o que
+    // reproduz exatamente os níveis da gramática.
+    private Expr procExpr(int minBp) {
+        Expr left = procPrefix();
 
-            left = new BinaryExpr(line, left, op, right);
-        }
+        int maxBp = Integer.MAX_VALUE;
+        while (true) {
+            TokenType type = tokens.type();
+            int bp = BINDING[type.ordinal()];
+            if (bp == 0 || bp < minBp || bp > maxBp)
+                break;
 
-        return left;
-    }
+            int line = tokens.line();
+            advance();
 
-    // <term> ::= <prefix> { ( '*' | '/' | '%' ) <prefix> }
-    private Expr procTerm() {
-        Expr left = procPrefix();
-        while (current.type == TokenType.MUL || current.type == TokenType.DIV || current.type == TokenType.MOD) {
-            BinaryOp op;
-            if (current.type == TokenType.MUL) {
-                op = BinaryOp.MUL;
-                advance();
-            } else if (current.type == TokenType.DIV) {
-                op = BinaryOp.DIV;
-                advance();
-            } else {
-                op = BinaryOp.MOD;
-                advance();
+            Expr right = procExpr(bp + 1);
+            if (bp == BP_IF_NULL) {
+                left = new BinaryExpr(left.getLine(), left, BinaryOp.IF_NULL, right);
+            } else if (bp != BP_COND) {
+                // Como sempre em <cond>, o operando de '&&' e '||' é analisado e descartado.
+                left = new BinaryExpr(line, left, BINARY_OPS[type.ordinal()], right);
             }
 
-            int line = lex.getLine();
-            Expr right = procPrefix();
-
-            left = new BinaryExpr(line, left, op, right);
+            maxBp = NON_ASSOCIATIVE[type.ordinal()] ? bp - 1 : bp;
         }
 
         return left;
@@ -464,10 +418,10 @@ public class SyntacticAnalysis {
 
     // <prefix> ::= [ '!' | '-' | '++' | '--' ] <factor>
     private Expr procPrefix() {
+        int line = tokens.line();
         UnaryOp op = null;
-        if (current.type == TokenType.NOT || current.type == TokenType.SUB || current.type == TokenType.INC
-                || current.type == TokenType.DEC) {
-            switch (current.type) {
+        if (PREFIX_OPS.contains(tokens.type())) {
+            switch (tokens.type()) {
                 case NOT -> op = UnaryOp.NOT;
                 case SUB -> op = UnaryOp.NEG;
                 case INC -> op = UnaryOp.PRE_INC;
@@ -476,7 +430,6 @@ public class SyntacticAnalysis {
             advance();
         }
 
-        int line = lex.getLine();
         Expr expr = procFactor();
 
         if (op != null) {
@@ -489,7 +442,7 @@ public class SyntacticAnalysis {
     // <factor> ::= ( '(' <expr> ')' | <rvalue> ) [ '++' | '--' ]
     private Expr procFactor() {
         Expr expr;
-        if (current.type == TokenType.OPEN_PAR) {
+        if (tokens.type() == TokenType.OPEN_PAR) {
             advance();
             expr = procExpr();
             eat(TokenType.CLOSE_PAR);
@@ -497,10 +450,10 @@ public class SyntacticAnalysis {
             expr = procRValue();
         }
 
-        int line = lex.getLine();
-        if (current.type == TokenType.INC || current.type == TokenType.DEC) {
+        int line = tokens.line();
+        if (tokens.type() == TokenType.INC || tokens.type() == TokenType.DEC) {
             UnaryExpr ue;
-            if (current.type == TokenType.INC) {
+            if (tokens.type() == TokenType.INC) {
                 advance();
                 ue = new UnaryExpr(line, expr, UnaryOp.POS_INC);
             } else {
@@ -513,10 +466,10 @@ public class SyntacticAnalysis {
         return expr;
     }
 
-    // <rvalue> ::= <const> | <function> | <lvalue> | <list> | <map>
+    // <rvalue> ::= <const> | <function> | <range> | <lvalue> | <list> | <map>
     private Expr procRValue() {
         Expr expr = null;
-        switch (current.type) {
+        switch (tokens.type()) {
             case NULL:
             case FALSE:
             case TRUE:
@@ -534,6 +487,9 @@ public class SyntacticAnalysis {
             case TOSTR:
                 expr = procFunction();
                 break;
+            case RANGE:
+                expr = procRange();
+                break;
             case NAME:
                 expr = procLValue();
                 break;
@@ -553,18 +509,20 @@ public class SyntacticAnalysis {
 
     // <const> ::= null | false | true | <number> | <text>
     private ConstExpr procConst() {
+        int line = tokens.line();
         Value<?> v = null;
-        switch (current.type) {
+        switch (tokens.type()) {
             case NULL:
                 advance();
+                v = NullValue.NULL;
                 break;
             case FALSE:
                 advance();
-                v = new BoolValue(false);
+                v = BoolValue.FALSE;
                 break;
             case TRUE:
                 advance();
-                v = new BoolValue(true);
+                v = BoolValue.TRUE;
                 break;
             case NUMBER:
                 v = procNumber();
@@ -577,15 +535,15 @@ public class SyntacticAnalysis {
                 break;
         }
 
-        int line = lex.getLine();
         return new ConstExpr(line, v);
     }
 
     // <function> ::= ( read | random | length | keys | values | tobool | toint |
     // tostr ) '(' <expr> ')'
     private FunctionExpr procFunction() {
+        int line = tokens.line();
         FunctionOp op = null;
-        switch (current.type) {
+        switch (tokens.type()) {
             case READ:
                 advance();
                 op = FunctionOp.READ;
@@ -622,8 +580,6 @@ public class SyntacticAnalysis {
                 showError();
                 break;
         }
-        int line = lex.getLine();
-
         eat(TokenType.OPEN_PAR);
         Expr expr = procExpr();
         eat(TokenType.CLOSE_PAR);
@@ -631,12 +587,30 @@ public class SyntacticAnalysis {
         return new FunctionExpr(line, op, expr);
     }
 
+    // <range> ::= range '(' <expr> [ ',' <expr> ] ')'
+    // range é palavra reservada, como read ou length: não pode ser nome de variável.
+    private RangeExpr procRange() {
+        int line = tokens.line();
+        eat(TokenType.RANGE);
+        eat(TokenType.OPEN_PAR);
+        Expr from = null;
+        Expr to = procExpr();
+        if (tokens.type() == TokenType.COMMA) {
+            advance();
+            from = to;
+            to = procExpr();
+        }
+        eat(TokenType.CLOSE_PAR);
+
+        return new RangeExpr(line, from, to);
+    }
+
     // <lvalue> ::= <name> { '[' <expr> ']' }
     private SetExpr procLValue() {
         SetExpr base = procName();
-        while (current.type == TokenType.OPEN_BRA) {
+        while (tokens.type() == TokenType.OPEN_BRA) {
+            int line = tokens.line();
             advance();
-            int line = lex.getLine();
 
             Expr index = procExpr();
 
@@ -650,15 +624,15 @@ public class SyntacticAnalysis {
 
     // <list> ::= '[' [ <l-elem> { ',' <l-elem> } ] ']'
     private ListExpr procList() {
+        int line = tokens.line();
         eat(TokenType.OPEN_BRA);
-        int line = lex.getLine();
 
         ListExpr expr = new ListExpr(line);
-        if (current.type != TokenType.CLOSE_BRA) {
+        if (tokens.type() != TokenType.CLOSE_BRA) {
             ListItem item = procLElem();
             expr.addItem(item);
 
-            while (current.type == TokenType.COMMA) {
+            while (tokens.type() == TokenType.COMMA) {
                 advance();
                 item = procLElem();
                 expr.addItem(item);
@@ -671,7 +645,7 @@ public class SyntacticAnalysis {
 
     // <l-elem> ::= <l-single> | <l-spread> | <l-if> | <l-for>
     private ListItem procLElem() {
-        return switch (current.type) {
+        return switch (tokens.type()) {
             case SPREAD -> procLSpread();
             case IF -> procLIf();
             case FOR -> procLFor();
@@ -681,31 +655,31 @@ public class SyntacticAnalysis {
 
     // <l-single> ::= <expr>
     private SingleListItem procLSingle() {
-        int line = lex.getLine();
+        int line = tokens.line();
         Expr expr = procExpr();
         return new SingleListItem(line, expr);
     }
 
     // <l-spread> ::= '...' <expr>
     private SpreadListItem procLSpread() {
+        int line = tokens.line();
         eat(TokenType.SPREAD);
-        int line = lex.getLine();
         Expr expr = procExpr();
         return new SpreadListItem(line, expr);
     }
 
     // <l-if> ::= if '(' <expr> ')' <l-elem> [ else <l-elem> ]
     private IfListItem procLIf() {
+        int line = tokens.line();
         eat(TokenType.IF);
         eat(TokenType.OPEN_PAR);
 
-        int line = lex.getLine();
         Expr expr = procExpr();
         eat(TokenType.CLOSE_PAR);
 
         ListItem thenItem = procLElem();
         ListItem elseItem = null;
-        if (current.type == TokenType.ELSE) {
+        if (tokens.type() == TokenType.ELSE) {
             advance();
             elseItem = procLElem();
         }
@@ -715,8 +689,8 @@ public class SyntacticAnalysis {
 
     // <l-for> ::= for '(' <name> in <expr> ')' <l-elem>
     private ForListItem procLFor() {
+        int line = tokens.line();
         eat(TokenType.FOR);
-        int line = lex.getLine();
         eat(TokenType.OPEN_PAR);
 
         Variable var = procName();
@@ -732,23 +706,16 @@ public class SyntacticAnalysis {
 
     // <map> ::= '{' [ <m-elem> { ',' <m-elem> } ] '}'
     private MapExpr procMap() {
+        int line = tokens.line();
         eat(TokenType.OPEN_CUR);
-        int line = lex.getLine();
 
         MapExpr mexpr = new MapExpr(line);
 
-        if (current.type == TokenType.NOT || current.type == TokenType.SUB || current.type == TokenType.INC
-                || current.type == TokenType.DEC || current.type == TokenType.OPEN_PAR || current.type == TokenType.NULL
-                || current.type == TokenType.FALSE || current.type == TokenType.TRUE || current.type == TokenType.NUMBER
-                || current.type == TokenType.TEXT || current.type == TokenType.READ || current.type == TokenType.RANDOM
-                || current.type == TokenType.LENGTH || current.type == TokenType.KEYS
-                || current.type == TokenType.VALUES || current.type == TokenType.TOBOOL
-                || current.type == TokenType.TOINT || current.type == TokenType.TOSTR || current.type == TokenType.NAME
-                || current.type == TokenType.OPEN_BRA || current.type == TokenType.OPEN_CUR) {
+        if (FIRST_EXPR.contains(tokens.type())) {
             MapItem item = procMElem();
             mexpr.addItem(item);
 
-            while (current.type == TokenType.COMMA) {
+            while (tokens.type() == TokenType.COMMA) {
                 advance();
                 item = procMElem();
                 mexpr.addItem(item);
@@ -769,9 +736,9 @@ public class SyntacticAnalysis {
     }
 
     private Variable procDeclarationName(boolean constant, boolean nullable) {
-        String name = current.token;
+        int line = tokens.line();
+        String name = tokens.token();
         eat(TokenType.NAME);
-        int line = lex.getLine();
 
         if (memory.containsKey(name))
             Utils.abort(line);
@@ -789,9 +756,9 @@ public class SyntacticAnalysis {
     }
 
     private Variable procName() {
-        String name = current.token;
+        int line = tokens.line();
+        String name = tokens.token();
         eat(TokenType.NAME);
-        int line = lex.getLine();
 
         if (!memory.containsKey(name))
             Utils.abort(line);
@@ -800,21 +767,21 @@ public class SyntacticAnalysis {
     }
 
     private NumberValue procNumber() {
-        String txt = current.token;
+        CharSequence digits = tokens.text();
         eat(TokenType.NUMBER);
 
         int n;
         try {
-            n = Integer.parseInt(txt);
+            n = Integer.parseInt(digits, 0, digits.length(), 10);
         } catch (Exception e) {
             n = 0;
         }
 
-        return new NumberValue(n);
+        return NumberValue.of(n);
     }
 
     private TextValue procText() {
-        String txt = current.token;
+        String txt = tokens.token();
         eat(TokenType.TEXT);
 
         return new TextValue(txt);